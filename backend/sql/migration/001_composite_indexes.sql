@@ -0,0 +1,24 @@
+-- 已有库升级：voice_card / voice_model 单列索引替换为与查询条件一致的联合索引
+-- 新建库直接执行 voicekeeper.sql 即可，无需执行本脚本
+-- 大表建议在低峰期执行（InnoDB 在线 DDL，ALGORITHM=INPLACE 不锁写）
+
+USE voiceKeeper;
+
+-- ==================== 声音卡片表 ====================
+-- idx_user_id、idx_scene_tag 是联合索引的前缀或选择性太低，idx_model_id 由 idx_model_delete_create 覆盖
+ALTER TABLE voice_card
+    ADD INDEX idx_user_delete_create (userId, isDelete, createTime),
+    ADD INDEX idx_user_scene_delete_create (userId, sceneTag, isDelete, createTime),
+    ADD INDEX idx_user_model_delete_create (userId, voiceModelId, isDelete, createTime),
+    ADD INDEX idx_model_delete_create (voiceModelId, isDelete, createTime),
+    DROP INDEX idx_user_id,
+    DROP INDEX idx_model_id,
+    DROP INDEX idx_scene_tag,
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+-- ==================== 声音模型表 ====================
+ALTER TABLE voice_model
+    ADD INDEX idx_user_delete_create (userId, isDelete, createTime),
+    ADD INDEX idx_user_name (userId, modelName),
+    DROP INDEX idx_user_id,
+    ALGORITHM = INPLACE, LOCK = NONE;
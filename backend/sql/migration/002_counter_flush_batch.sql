@@ -0,0 +1,10 @@
+-- 已有库升级：计数写回批次表，写回计数时记录已应用的批次，避免重复累加
+-- 新建库直接执行 voicekeeper.sql 即可，无需执行本脚本
+
+USE voiceKeeper;
+
+CREATE TABLE IF NOT EXISTS counter_flush_batch (
+    batchId VARCHAR(64) NOT NULL COMMENT '写回批次ID' PRIMARY KEY,
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '写回时间',
+    INDEX idx_create_time (createTime)
+) COMMENT '计数写回批次表' COLLATE = utf8mb4_unicode_ci;
@@ -70,7 +70,10 @@ CREATE TABLE IF NOT EXISTS voice_model (
     updateTime DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     isDelete TINYINT DEFAULT 0 COMMENT '是否删除',
     
-    INDEX idx_user_id (userId),
+    -- 按用户列表、游标翻页（userId + isDelete 过滤，createTime 倒序，InnoDB 二级索引末尾自带主键 id）
+    INDEX idx_user_delete_create (userId, isDelete, createTime),
+    -- 按用户和名称查找
+    INDEX idx_user_name (userId, modelName),
     INDEX idx_training_status (trainingStatus),
     INDEX idx_create_time (createTime)
 ) COMMENT '声音模型表' COLLATE = utf8mb4_unicode_ci;
@@ -105,12 +108,22 @@ CREATE TABLE IF NOT EXISTS voice_card (
     updateTime DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     isDelete TINYINT DEFAULT 0 COMMENT '是否删除',
     
-    INDEX idx_user_id (userId),
-    INDEX idx_model_id (voiceModelId),
-    INDEX idx_scene_tag (sceneTag),
+    -- 列表查询都按 userId + isDelete 过滤、按 createTime 倒序，索引顺序与之一致，免去 filesort
+    INDEX idx_user_delete_create (userId, isDelete, createTime),
+    INDEX idx_user_scene_delete_create (userId, sceneTag, isDelete, createTime),
+    INDEX idx_user_model_delete_create (userId, voiceModelId, isDelete, createTime),
+    INDEX idx_model_delete_create (voiceModelId, isDelete, createTime),
     INDEX idx_create_time (createTime)
 ) COMMENT '声音卡片表' COLLATE = utf8mb4_unicode_ci;
 
+-- ==================== 计数写回批次表 ====================
+-- 播放/分享/使用次数写回时，批次ID与增量在同一事务中写入，重复写回同一批次时跳过，保证计数不会重复累加
+CREATE TABLE IF NOT EXISTS counter_flush_batch (
+    batchId VARCHAR(64) NOT NULL COMMENT '写回批次ID' PRIMARY KEY,
+    createTime DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '写回时间',
+    INDEX idx_create_time (createTime)
+) COMMENT '计数写回批次表' COLLATE = utf8mb4_unicode_ci;
+
 -- ==================== 插入测试数据 ====================
 
 -- 插入测试用户（使用明文密码，便于测试）
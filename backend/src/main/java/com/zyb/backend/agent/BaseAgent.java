@@ -1,6 +1,8 @@
 package com.zyb.backend.agent;
 
 import com.zyb.backend.agent.model.AgentState;
+import com.zyb.backend.chatmemory.DeltaChatMemory;
+import com.zyb.backend.manager.BoundedVirtualThreadExecutor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,12 +10,15 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 抽象基础智能体类，用于管理智能体状态和执行流程
@@ -44,8 +49,14 @@ public abstract class BaseAgent {
     private String conversationId;
     private ChatMemory chatMemory;
 
-    // 并发控制锁
-    private final transient Object executionLock = new Object();
+    // 流式运行时的SSE连接，用于推送模型增量输出
+    private transient SseEmitter streamEmitter;
+
+    // 异步运行使用的执行器
+    private BoundedVirtualThreadExecutor executor;
+
+    // 并发控制锁（虚拟线程中长时间持有，使用 ReentrantLock 避免 synchronized 钉住载体线程）
+    private final transient ReentrantLock executionLock = new ReentrantLock();
 
     /**
      * 构造函数
@@ -84,12 +95,37 @@ public abstract class BaseAgent {
 
     /**
      * 设置消息列表
+     * 存储支持增量写入时只写入与当前历史不同的部分
      */
     protected void setMessageList(List<Message> messages) {
-        if (chatMemory != null && conversationId != null && messages != null) {
+        if (chatMemory == null || conversationId == null || messages == null) {
+            return;
+        }
+        if (!(chatMemory instanceof DeltaChatMemory deltaChatMemory)) {
             chatMemory.clear(conversationId);
             chatMemory.add(conversationId, messages);
+            return;
+        }
+
+        List<Message> current = getMessageList();
+
+        // 新列表恰好是当前历史的后缀：只裁剪头部
+        int headCount = current.size() - messages.size();
+        if (headCount > 0 && current.subList(headCount, current.size()).equals(messages)) {
+            deltaChatMemory.truncateHead(conversationId, headCount);
+            return;
         }
+
+        // 否则保留公共前缀，只重写变化的尾部
+        int prefix = 0;
+        int limit = Math.min(current.size(), messages.size());
+        while (prefix < limit && current.get(prefix).equals(messages.get(prefix))) {
+            prefix++;
+        }
+        if (prefix == current.size() && prefix == messages.size()) {
+            return;
+        }
+        deltaChatMemory.replaceTail(conversationId, prefix, messages.subList(prefix, messages.size()));
     }
 
     /**
@@ -97,7 +133,8 @@ public abstract class BaseAgent {
      */
     public String run(String userPrompt) {
         // 并发控制：同一Agent实例同时只能运行一次
-        synchronized (executionLock) {
+        executionLock.lock();
+        try {
             if (this.state != AgentState.IDLE) {
                 throw new RuntimeException("智能体正在运行中，请稍后再试。当前状态: " + this.state);
             }
@@ -135,6 +172,8 @@ public abstract class BaseAgent {
             } finally {
                 this.cleanup();
             }
+        } finally {
+            executionLock.unlock();
         }
     }
 
@@ -146,9 +185,10 @@ public abstract class BaseAgent {
         SseEmitter emitter = new SseEmitter(300000L); // 5分钟超时
 
         // 异步处理
-        CompletableFuture.runAsync(() -> {
+        Runnable task = () -> {
             // 并发控制：同一Agent实例同时只能运行一次
-            synchronized (executionLock) {
+            executionLock.lock();
+            try {
                 try {
                     // 首先发送conversationId给前端
                     try {
@@ -180,6 +220,7 @@ public abstract class BaseAgent {
 
                     // 更改状态
                     state = AgentState.RUNNING;
+                    streamEmitter = emitter;
                     // 记录消息上下文
                     addMessage(new UserMessage(userPrompt));
 
@@ -226,31 +267,73 @@ public abstract class BaseAgent {
                     log.error("SSE处理异常", e);
                     emitter.completeWithError(e);
                 }
+            } finally {
+                executionLock.unlock();
             }
-        });
+        };
+
+        try {
+            if (executor != null) {
+                executor.execute(task);
+            } else {
+                Thread.ofVirtual().name("agent-" + conversationId).start(task);
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("智能体执行器繁忙，拒绝本次运行: {}", e.getMessage());
+            try {
+                emitter.send("错误：当前请求过多，请稍后再试");
+                emitter.complete();
+            } catch (Exception ex) {
+                emitter.completeWithError(ex);
+            }
+            return emitter;
+        }
 
         // 设置超时和完成回调
         emitter.onTimeout(() -> {
-            synchronized (executionLock) {
+            executionLock.lock();
+            try {
                 this.state = AgentState.ERROR;
                 this.cleanup();
                 log.warn("SSE 连接超时");
+            } finally {
+                executionLock.unlock();
             }
         });
 
         emitter.onCompletion(() -> {
-            synchronized (executionLock) {
+            executionLock.lock();
+            try {
                 if (this.state == AgentState.RUNNING) {
                     this.state = AgentState.FINISHED;
                 }
                 this.cleanup();
                 log.info("SSE 连接完成");
+            } finally {
+                executionLock.unlock();
             }
         });
 
         return emitter;
     }
 
+    /**
+     * 推送模型输出的增量内容（仅流式运行时有效）
+     * 使用 JSON 包装，避免 EventSource 吞掉行首空格
+     */
+    protected void sendDelta(String delta) {
+        if (streamEmitter == null || !StringUtils.hasLength(delta)) {
+            return;
+        }
+        try {
+            streamEmitter.send(SseEmitter.event()
+                    .name("delta")
+                    .data(Map.of("text", delta), MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            log.debug("推送增量内容失败: {}", e.getMessage());
+        }
+    }
+
     /**
      * 执行单个步骤（子类实现）
      */
@@ -264,6 +347,7 @@ public abstract class BaseAgent {
             state = AgentState.IDLE;
         }
         currentStep = 0;
+        streamEmitter = null;
     }
 
     /**
@@ -278,14 +362,15 @@ public abstract class BaseAgent {
 
         log.info("对话历史较长，当前大小: {}，开始修剪...", messages.size());
 
-        // 保留最近的消息
-        List<Message> recentMessages = new ArrayList<>(
-                messages.subList(messages.size() - maxHistorySize, messages.size())
-        );
-
-        // 替换为修剪后的历史
-        setMessageList(recentMessages);
+        int removeCount = messages.size() - maxHistorySize;
+        if (chatMemory instanceof DeltaChatMemory deltaChatMemory) {
+            // 只删除头部的旧消息
+            deltaChatMemory.truncateHead(conversationId, removeCount);
+        } else {
+            // 保留最近的消息，替换为修剪后的历史
+            setMessageList(new ArrayList<>(messages.subList(removeCount, messages.size())));
+        }
 
-        log.info("对话历史已修剪: {} → {} 条消息", messages.size(), recentMessages.size());
+        log.info("对话历史已修剪: {} → {} 条消息", messages.size(), maxHistorySize);
     }
 }
@@ -3,22 +3,31 @@ package com.zyb.backend.agent;
 import cn.hutool.core.collection.CollUtil;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.zyb.backend.agent.model.AgentState;
+import com.zyb.backend.manager.DashScopeGateway;
+import com.zyb.backend.model.enums.DashScopeApiEnum;
+import com.zyb.backend.tools.ParallelToolExecutor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.ToolResponseMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.model.tool.ToolCallingManager;
 import org.springframework.ai.model.tool.ToolExecutionResult;
 import org.springframework.ai.tool.ToolCallback;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +58,9 @@ public class ToolCallAgent extends ReActAgent {
     // 工具调用管理者
     private final ToolCallingManager toolCallingManager;
 
+    // 并行工具执行器（未设置时使用 toolCallingManager 串行执行）
+    private ParallelToolExecutor parallelToolExecutor;
+
     // 禁用内置的工具调用机制，自己维护上下文
     private final ChatOptions chatOptions;
 
@@ -57,9 +69,8 @@ public class ToolCallAgent extends ReActAgent {
     private int maxRecentActions = 10; // 记录最近的操作数量
     private int loopThreshold = 3; // 检测到循环的阈值
 
-    // 重试机制相关
-    private int maxRetries = 3; // 最大重试次数
-    private long retryDelayMillis = 1000; // 重试间隔
+    // DashScope 调用网关（未设置时直接调用，不做限流和重试）
+    private DashScopeGateway dashScopeGateway;
 
     public ToolCallAgent(ToolCallback[] availableTools) {
         super();
@@ -91,35 +102,17 @@ public class ToolCallAgent extends ReActAgent {
         List<Message> messageList = getMessageList();
         Prompt prompt = new Prompt(messageList, chatOptions);
 
-        // 调用大模型API，带重试机制
-        ChatResponse chatResponse = null;
-        int attempt = 0;
-        while (true) {
-            try {
-                log.info("调用通义千问LLM (尝试次数: {})", attempt + 1);
-                chatResponse = getChatClient().prompt(prompt)
-                        .system(getSystemPrompt())
-                        .toolCallbacks(availableTools)
-                        .call()
-                        .chatResponse();
-                break;
-            } catch (Exception e) {
-                log.error("{}的思考过程遇到了问题: {}", getName(), e.getMessage());
-                attempt++;
-                if (attempt >= maxRetries) {
-                    log.error("API 调用失败，已达到最大重试次数 ({})", maxRetries);
-                    getMessageList().add(new AssistantMessage("处理时遇到错误: " + e.getMessage()));
-                    return false;
-                }
-                log.info("🔄 将在 {} 毫秒后重试... (第 {}/{}次)", retryDelayMillis, attempt, maxRetries);
-                try {
-                    Thread.sleep(retryDelayMillis);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    getMessageList().add(new AssistantMessage("重试等待时被中断"));
-                    return false;
-                }
-            }
+        // 调用大模型API，限流和重试由网关统一处理
+        ChatResponse chatResponse;
+        try {
+            log.info("调用通义千问LLM");
+            chatResponse = callModel(getChatClient().prompt(prompt)
+                    .system(getSystemPrompt())
+                    .toolCallbacks(availableTools));
+        } catch (Exception e) {
+            log.error("{}的思考过程遇到了问题: {}", getName(), e.getMessage());
+            getMessageList().add(new AssistantMessage("处理时遇到错误: " + e.getMessage()));
+            return false;
         }
 
         // 记录响应，用于Act方法
@@ -175,6 +168,92 @@ public class ToolCallAgent extends ReActAgent {
         }
     }
 
+    /**
+     * 调用大模型
+     * 经由网关限流，失败时按退避策略重试
+     */
+    protected ChatResponse callModel(ChatClient.ChatClientRequestSpec requestSpec) {
+        if (dashScopeGateway == null) {
+            return doCallModel(requestSpec);
+        }
+        return dashScopeGateway.execute(DashScopeApiEnum.LLM, () -> doCallModel(requestSpec));
+    }
+
+    /**
+     * 流式运行时逐块推送文本增量，并把分片的工具调用拼装成完整的 ChatResponse 供 act() 使用
+     */
+    private ChatResponse doCallModel(ChatClient.ChatClientRequestSpec requestSpec) {
+        if (getStreamEmitter() == null) {
+            return requestSpec.call().chatResponse();
+        }
+
+        StringBuilder text = new StringBuilder();
+        List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>();
+        Map<String, Object> properties = new HashMap<>();
+        ChatResponse lastChunk = null;
+
+        try {
+            for (ChatResponse chunk : requestSpec.stream().chatResponse().toIterable()) {
+                lastChunk = chunk;
+                if (chunk.getResult() == null || chunk.getResult().getOutput() == null) {
+                    continue;
+                }
+                AssistantMessage output = chunk.getResult().getOutput();
+                if (StringUtils.hasLength(output.getText())) {
+                    text.append(output.getText());
+                    sendDelta(output.getText());
+                }
+                mergeToolCalls(toolCalls, output.getToolCalls());
+                output.getMetadata().forEach((key, value) -> {
+                    if (key != null && value != null) {
+                        properties.put(key, value);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            // 已推送给前端的内容无法撤回，重试会导致重复输出
+            if (!text.isEmpty()) {
+                throw new DashScopeGateway.NonRetryableException(e.getMessage(), e);
+            }
+            throw e;
+        }
+
+        if (lastChunk == null) {
+            return null;
+        }
+        ChatGenerationMetadata generationMetadata = lastChunk.getResult() != null
+                ? lastChunk.getResult().getMetadata()
+                : ChatGenerationMetadata.NULL;
+        AssistantMessage assistantMessage = new AssistantMessage(text.toString(), properties, toolCalls);
+        return new ChatResponse(List.of(new Generation(assistantMessage, generationMetadata)), lastChunk.getMetadata());
+    }
+
+    /**
+     * 合并流式返回的工具调用分片
+     * 没有ID或ID与上一个相同的分片视为上一个调用的后续参数
+     */
+    private static void mergeToolCalls(List<AssistantMessage.ToolCall> merged, List<AssistantMessage.ToolCall> chunkCalls) {
+        for (AssistantMessage.ToolCall call : chunkCalls) {
+            String arguments = call.arguments() != null ? call.arguments() : "";
+            int last = merged.size() - 1;
+            boolean continuation = last >= 0
+                    && (!StringUtils.hasText(call.id()) || call.id().equals(merged.get(last).id()));
+            if (!continuation) {
+                merged.add(new AssistantMessage.ToolCall(call.id(), call.type(), call.name(), arguments));
+                continue;
+            }
+            AssistantMessage.ToolCall previous = merged.get(last);
+            // 部分实现每次返回累计的完整参数，此时直接替换而不是拼接
+            boolean cumulative = StringUtils.hasText(call.id()) && !previous.arguments().isEmpty()
+                    && arguments.startsWith(previous.arguments());
+            merged.set(last, new AssistantMessage.ToolCall(
+                    previous.id(),
+                    StringUtils.hasText(previous.type()) ? previous.type() : call.type(),
+                    StringUtils.hasText(previous.name()) ? previous.name() : call.name(),
+                    cumulative ? arguments : previous.arguments() + arguments));
+        }
+    }
+
     /**
      * 行动：执行工具调用并处理结果
      * AI原生应用的执行层
@@ -186,7 +265,9 @@ public class ToolCallAgent extends ReActAgent {
         }
 
         Prompt prompt = new Prompt(getMessageList(), chatOptions);
-        ToolExecutionResult toolExecutionResult = toolCallingManager.executeToolCalls(prompt, toolCallChatResponse);
+        ToolExecutionResult toolExecutionResult = parallelToolExecutor != null
+                ? parallelToolExecutor.executeToolCalls(prompt, toolCallChatResponse)
+                : toolCallingManager.executeToolCalls(prompt, toolCallChatResponse);
 
         Message lastMessage = CollUtil.getLast(toolExecutionResult.conversationHistory());
         if (!(lastMessage instanceof ToolResponseMessage)) {
@@ -370,13 +370,18 @@ public class VoiceKeeperAgent extends ToolCallAgent {
                 clientBuilder = clientBuilder.user(additionalUserPrompt);
             }
             
-            chatResponse = clientBuilder.call().chatResponse();
+            // 流式运行时边生成边推送增量内容
+            chatResponse = callModel(clientBuilder);
         } catch (Exception e) {
             log.error("VoiceKeeper 思考失败: {}", e.getMessage(), e);
             getMessageList().add(new org.springframework.ai.chat.messages.AssistantMessage(
                     "抱歉，我在思考时遇到了问题: " + e.getMessage()));
             return false;
         }
+        if (chatResponse == null) {
+            log.error("VoiceKeeper 未获取到模型响应");
+            return false;
+        }
 
         // 记录响应，用于 act() 方法
         this.setToolCallChatResponse(chatResponse);
@@ -4,6 +4,9 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.zyb.backend.agent.BaseAgent;
 import com.zyb.backend.agent.VoiceKeeperAgent;
+import com.zyb.backend.manager.BoundedVirtualThreadExecutor;
+import com.zyb.backend.manager.DashScopeGateway;
+import com.zyb.backend.tools.ParallelToolExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
@@ -30,6 +33,15 @@ public class AgentManagerService {
     @Resource
     private ChatModel chatModel;
 
+    @Resource
+    private BoundedVirtualThreadExecutor agentExecutor;
+
+    @Resource
+    private ParallelToolExecutor parallelToolExecutor;
+
+    @Resource
+    private DashScopeGateway dashScopeGateway;
+
     // 智能体实例缓存 - 30分钟过期
     private final Cache<String, BaseAgent> agentCache = Caffeine.newBuilder()
             .expireAfterAccess(30, TimeUnit.MINUTES)
@@ -46,6 +58,9 @@ public class AgentManagerService {
             VoiceKeeperAgent agent = new VoiceKeeperAgent(voiceTools, chatModel);
             agent.setConversationInfo(conversationId, chatMemory);
             agent.setUserId(userId);
+            agent.setExecutor(agentExecutor);
+            agent.setParallelToolExecutor(parallelToolExecutor);
+            agent.setDashScopeGateway(dashScopeGateway);
 
             log.info("VoiceKeeper 智能体创建成功: conversationId={}, userId={}", conversationId, userId);
             return agent;
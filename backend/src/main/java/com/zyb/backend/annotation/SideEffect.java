@@ -0,0 +1,15 @@
+package com.zyb.backend.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记有副作用的工具方法（写数据库、上传文件、调用外部任务等）
+ * 同一步骤中的多个工具调用并行执行时，带此注解的工具按原始顺序串行执行
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SideEffect {
+}
@@ -0,0 +1,246 @@
+package com.zyb.backend.chatmemory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 对话记忆本地缓存装饰器
+ * 工作原理：
+ * 1. 按会话缓存不可变的消息列表快照，读取命中时不再访问 Redis、不再反序列化
+ * 2. 写入时先写底层存储，再在同一把会话锁内更新缓存（write-through）
+ *    会话锁是条带化的 ReentrantLock，在缓存之外持有：存储 I/O 不占用缓存内部的桶锁，虚拟线程等待时也不会钉住载体线程
+ * 3. 每次写入生成新的版本号，调用方可据此做乐观并发控制
+ */
+@Slf4j
+public class CachingChatMemoryDecorator implements DeltaChatMemory {
+
+    /**
+     * 会话锁条带数（2 的幂）
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * 被装饰的 ChatMemory（实际存储）
+     */
+    private final ChatMemory chatMemory;
+
+    /**
+     * 会话ID -> 消息快照
+     */
+    private final Cache<String, Snapshot> cache;
+
+    /**
+     * 全局版本时钟，保证同一会话被淘汰后重新加载也不会复用旧版本号
+     */
+    private final AtomicLong versionClock = new AtomicLong();
+
+    /**
+     * 条带化会话锁，同一会话的读写加载串行执行
+     */
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * 未命中时的加载次数和耗时
+     */
+    private final LongAdder loadCount = new LongAdder();
+
+    private final LongAdder loadNanos = new LongAdder();
+
+    public CachingChatMemoryDecorator(ChatMemory chatMemory, long maximumSize, Duration expireAfterAccess) {
+        this.chatMemory = chatMemory;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+
+        log.info("初始化对话记忆缓存: 最大会话数={}, 过期时间={}", maximumSize, expireAfterAccess);
+    }
+
+    /**
+     * 消息快照
+     *
+     * @param messages 不可变消息列表
+     * @param version 版本号
+     */
+    public record Snapshot(List<Message> messages, long version) {
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        ReentrantLock lock = lockFor(conversationId);
+        lock.lock();
+        try {
+            chatMemory.add(conversationId, messages);
+            cache.asMap().computeIfPresent(conversationId, (key, snapshot) -> {
+                List<Message> newMessages = new ArrayList<>(snapshot.messages().size() + messages.size());
+                newMessages.addAll(snapshot.messages());
+                newMessages.addAll(messages);
+                return newSnapshot(newMessages);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        // 返回可变副本，调用方对列表的修改不会污染缓存
+        return new ArrayList<>(snapshot(conversationId).messages());
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        ReentrantLock lock = lockFor(conversationId);
+        lock.lock();
+        try {
+            chatMemory.clear(conversationId);
+            cache.invalidate(conversationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replaceTail(String conversationId, int keep, List<Message> tail) {
+        ReentrantLock lock = lockFor(conversationId);
+        lock.lock();
+        try {
+            Snapshot snapshot = cache.asMap().get(conversationId);
+            List<Message> current = snapshot != null ? snapshot.messages() : null;
+            if (chatMemory instanceof DeltaChatMemory deltaChatMemory) {
+                deltaChatMemory.replaceTail(conversationId, keep, tail);
+            } else {
+                if (current == null) {
+                    current = chatMemory.get(conversationId);
+                }
+                chatMemory.clear(conversationId);
+                chatMemory.add(conversationId, concat(current.subList(0, Math.min(Math.max(keep, 0), current.size())), tail));
+            }
+            if (current != null) {
+                cache.put(conversationId, newSnapshot(
+                        concat(current.subList(0, Math.min(Math.max(keep, 0), current.size())), tail)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void truncateHead(String conversationId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        ReentrantLock lock = lockFor(conversationId);
+        lock.lock();
+        try {
+            Snapshot snapshot = cache.asMap().get(conversationId);
+            List<Message> current = snapshot != null ? snapshot.messages() : null;
+            if (chatMemory instanceof DeltaChatMemory deltaChatMemory) {
+                deltaChatMemory.truncateHead(conversationId, count);
+            } else {
+                if (current == null) {
+                    current = chatMemory.get(conversationId);
+                }
+                chatMemory.clear(conversationId);
+                chatMemory.add(conversationId, new ArrayList<>(current.subList(Math.min(count, current.size()), current.size())));
+            }
+            if (current != null) {
+                cache.put(conversationId, newSnapshot(
+                        new ArrayList<>(current.subList(Math.min(count, current.size()), current.size()))));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取会话快照（未命中时在会话锁内从底层存储加载）
+     */
+    public Snapshot snapshot(String conversationId) {
+        Snapshot snapshot = cache.getIfPresent(conversationId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        ReentrantLock lock = lockFor(conversationId);
+        lock.lock();
+        try {
+            // 等锁期间可能已被其它线程加载
+            snapshot = cache.asMap().get(conversationId);
+            if (snapshot == null) {
+                long start = System.nanoTime();
+                snapshot = newSnapshot(chatMemory.get(conversationId));
+                loadNanos.add(System.nanoTime() - start);
+                loadCount.increment();
+                cache.put(conversationId, snapshot);
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 版本未变化时整体替换会话历史
+     *
+     * @return 版本已变化（期间有其他写入）时返回 false，不做任何修改
+     */
+    public boolean compareAndSet(String conversationId, long expectedVersion, List<Message> messages) {
+        ReentrantLock lock = lockFor(conversationId);
+        lock.lock();
+        try {
+            Snapshot snapshot = cache.asMap().get(conversationId);
+            if (snapshot == null || snapshot.version() != expectedVersion) {
+                return false;
+            }
+            chatMemory.clear(conversationId);
+            chatMemory.add(conversationId, messages);
+            cache.put(conversationId, newSnapshot(new ArrayList<>(messages)));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public String getCacheStats() {
+        var stats = cache.stats();
+        return String.format("对话记忆缓存统计 - 命中率: %.2f%%, 命中: %d, 未命中: %d, 加载耗时: %.2fms, 缓存会话数: %d",
+                stats.hitRate() * 100,
+                stats.hitCount(),
+                stats.missCount(),
+                loadCount.sum() == 0 ? 0.0 : loadNanos.sum() / (double) loadCount.sum() / 1_000_000.0,
+                cache.estimatedSize());
+    }
+
+    private ReentrantLock lockFor(String conversationId) {
+        int hash = conversationId.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private Snapshot newSnapshot(List<Message> messages) {
+        return new Snapshot(List.copyOf(messages), versionClock.incrementAndGet());
+    }
+
+    private static List<Message> concat(List<Message> head, List<Message> tail) {
+        List<Message> result = new ArrayList<>(head.size() + tail.size());
+        result.addAll(head);
+        result.addAll(tail);
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+package com.zyb.backend.chatmemory;
+
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * 支持增量改写的ChatMemory
+ * 智能体每一步只会追加尾部消息或裁掉头部旧消息，实现类只需写入变化的部分，
+ * 避免 clear + 全量 add 带来的 O(步数 × 历史长度) 序列化开销
+ */
+public interface DeltaChatMemory extends ChatMemory {
+
+    /**
+     * 保留前 keep 条消息，其后的消息替换为 tail
+     *
+     * @param conversationId 会话ID
+     * @param keep 保留的前缀长度
+     * @param tail 新的尾部消息
+     */
+    void replaceTail(String conversationId, int keep, List<Message> tail);
+
+    /**
+     * 删除最早的 count 条消息
+     *
+     * @param conversationId 会话ID
+     * @param count 删除的条数
+     */
+    void truncateHead(String conversationId, int count);
+}
@@ -6,29 +6,48 @@ import com.esotericsoftware.kryo.io.Output;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.objenesis.strategy.StdInstantiatorStrategy;
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.*;
 import org.springframework.ai.content.Media;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 基于文件的ChatMemory实现
  * 使用Kryo序列化，作为Redis的备份存储
+ * 文件格式：魔数头 + 若干条 [长度 + 单条消息] 记录，追加只写新消息，
+ * 截断尾部直接 truncate 文件，裁剪头部按字节拷贝剩余记录，均不重新序列化历史消息
  */
 @Slf4j
-public class FileBasedChatMemory implements ChatMemory {
+public class FileBasedChatMemory implements DeltaChatMemory {
+
+    /**
+     * 文件头：魔数 "VKCM" + 格式版本
+     */
+    private static final byte[] MAGIC = {'V', 'K', 'C', 'M'};
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
 
     private final String BASE_DIR;
 
-    private static final Kryo kryo = new Kryo();
+    /**
+     * Kryo不是线程安全的，读写均在实例锁内进行
+     */
+    private final Kryo kryo = new Kryo();
 
-    static {
+    {
         kryo.setRegistrationRequired(false);
         kryo.setInstantiatorStrategy(new StdInstantiatorStrategy());
 
@@ -55,30 +74,41 @@ public class FileBasedChatMemory implements ChatMemory {
     }
 
     @Override
-    public void add(@NotNull String conversationId, @NotNull Message message) {
-        // 获取现有对话历史
-        List<Message> messageList = getOrCreateConversation(conversationId);
-        // 追加新消息
-        messageList.add(message);
-        // 保存完整的对话历史
-        saveConversation(conversationId, messageList);
+    public synchronized void add(@NotNull String conversationId, @NotNull Message message) {
+        add(conversationId, List.of(message));
     }
 
     @Override
-    public void add(@NotNull String conversationId, @NotNull List<Message> messages) {
-        List<Message> messageList = getOrCreateConversation(conversationId);
-        messageList.addAll(messages);
-        saveConversation(conversationId, messageList);
+    public synchronized void add(@NotNull String conversationId, @NotNull List<Message> messages) {
+        File file = prepareFile(conversationId);
+        appendRecords(file, messages);
+        log.debug("追加对话记录: {} ({} 条消息)", conversationId, messages.size());
     }
 
     @NotNull
     @Override
-    public List<Message> get(@NotNull String conversationId) {
-        return getOrCreateConversation(conversationId);
+    public synchronized List<Message> get(@NotNull String conversationId) {
+        File file = getConversationFile(conversationId);
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        try {
+            if (!hasHeader(file)) {
+                return migrateLegacyFile(file);
+            }
+            return readRecords(file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取对话文件失败: {}", e.getMessage());
+            boolean deleted = file.delete();
+            if (deleted) {
+                log.info("已删除损坏的对话文件");
+            }
+            return new ArrayList<>();
+        }
     }
 
     @Override
-    public void clear(@NotNull String conversationId) {
+    public synchronized void clear(@NotNull String conversationId) {
         File file = getConversationFile(conversationId);
         if (file.exists()) {
             boolean deleted = file.delete();
@@ -88,43 +118,163 @@ public class FileBasedChatMemory implements ChatMemory {
         }
     }
 
-    private List<Message> getOrCreateConversation(String conversationId) {
+    @Override
+    public synchronized void replaceTail(String conversationId, int keep, List<Message> tail) {
+        File file = prepareFile(conversationId);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long offset = recordOffset(raf, Math.max(keep, 0));
+            raf.getChannel().truncate(offset);
+        } catch (IOException e) {
+            log.error("截断对话文件失败: {}", e.getMessage(), e);
+            throw new RuntimeException("截断对话文件失败", e);
+        }
+        appendRecords(file, tail);
+        log.debug("替换对话尾部: {} (保留 {} 条, 追加 {} 条)", conversationId, keep, tail.size());
+    }
+
+    @Override
+    public synchronized void truncateHead(String conversationId, int count) {
         File file = getConversationFile(conversationId);
-        List<Message> messages = new ArrayList<>();
-        if (file.exists()) {
-            try (Input input = new Input(new FileInputStream(file))) {
-                List<Message> loadedMessages = kryo.readObject(input, ArrayList.class);
-                if (loadedMessages != null) {
-                    // 过滤掉 null 消息
-                    for (Message msg : loadedMessages) {
-                        if (msg != null) {
-                            messages.add(msg);
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                log.warn("读取对话文件失败: {}", e.getMessage());
-                boolean deleted = file.delete();
-                if (deleted) {
-                    log.info("已删除损坏的对话文件");
+        if (count <= 0 || !file.exists()) {
+            return;
+        }
+        file = prepareFile(conversationId);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileOutputStream out = new FileOutputStream(tempFile)) {
+            long offset = recordOffset(raf, count);
+            out.write(MAGIC);
+            out.write(FORMAT_VERSION);
+            // 按原始字节拷贝剩余记录，无需反序列化
+            raf.getChannel().transferTo(offset, raf.length() - offset, out.getChannel());
+        } catch (IOException e) {
+            log.error("裁剪对话文件失败: {}", e.getMessage(), e);
+            boolean ignored = tempFile.delete();
+            throw new RuntimeException("裁剪对话文件失败", e);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("替换对话文件失败", e);
+        }
+        log.debug("裁剪对话头部: {} ({} 条)", conversationId, count);
+    }
+
+    /**
+     * 确保文件存在且为记录格式（旧格式文件会先迁移）
+     */
+    private File prepareFile(String conversationId) {
+        File file = getConversationFile(conversationId);
+        try {
+            if (!file.exists() || file.length() == 0) {
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    out.write(MAGIC);
+                    out.write(FORMAT_VERSION);
                 }
+            } else if (!hasHeader(file)) {
+                migrateLegacyFile(file);
             }
+        } catch (IOException e) {
+            log.error("初始化对话文件失败: {}", e.getMessage(), e);
+            throw new RuntimeException("初始化对话文件失败", e);
         }
-        return messages;
+        return file;
     }
 
-    private void saveConversation(String conversationId, List<Message> messages) {
-        File file = getConversationFile(conversationId);
-        try (Output output = new Output(new FileOutputStream(file))) {
-            kryo.writeObject(output, messages);
-            output.flush();
-            log.debug("保存对话文件: {} ({} 条消息)", conversationId, messages.size());
+    /**
+     * 追加记录
+     */
+    private void appendRecords(File file, List<Message> messages) {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            Output output = new Output(1024, -1);
+            for (Message message : messages) {
+                if (message == null) {
+                    continue;
+                }
+                output.reset();
+                kryo.writeClassAndObject(output, message);
+                out.writeInt(output.position());
+                out.write(output.getBuffer(), 0, output.position());
+            }
+            out.flush();
         } catch (IOException e) {
             log.error("保存对话文件失败: {}", e.getMessage(), e);
             throw new RuntimeException("保存对话文件失败", e);
         }
     }
 
+    /**
+     * 读取全部记录
+     */
+    private List<Message> readRecords(File file) throws IOException {
+        List<Message> messages = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            in.skipNBytes(HEADER_LENGTH);
+            while (in.available() > 0) {
+                byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+                Object msg = kryo.readClassAndObject(new Input(record));
+                // 过滤掉 null 消息
+                if (msg instanceof Message message) {
+                    messages.add(message);
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * 定位第 index 条记录的起始偏移，超出记录数时返回文件末尾
+     */
+    private long recordOffset(RandomAccessFile raf, int index) throws IOException {
+        long offset = HEADER_LENGTH;
+        long length = raf.length();
+        for (int i = 0; i < index && offset < length; i++) {
+            raf.seek(offset);
+            offset += 4 + raf.readInt();
+        }
+        return Math.min(offset, length);
+    }
+
+    private boolean hasHeader(File file) throws IOException {
+        if (file.length() < HEADER_LENGTH) {
+            return false;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] header = in.readNBytes(HEADER_LENGTH);
+            return Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)
+                    && header[MAGIC.length] == FORMAT_VERSION;
+        }
+    }
+
+    /**
+     * 迁移旧格式文件（整个 ArrayList 一次性序列化）为记录格式
+     */
+    @SuppressWarnings("unchecked")
+    private List<Message> migrateLegacyFile(File file) throws IOException {
+        List<Message> messages = new ArrayList<>();
+        try (Input input = new Input(new FileInputStream(file))) {
+            List<Message> loadedMessages = kryo.readObject(input, ArrayList.class);
+            if (loadedMessages != null) {
+                for (Message msg : loadedMessages) {
+                    if (msg != null) {
+                        messages.add(msg);
+                    }
+                }
+            }
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(MAGIC);
+            out.write(FORMAT_VERSION);
+        }
+        appendRecords(file, messages);
+        log.info("已迁移旧格式对话文件: {} ({} 条消息)", file.getName(), messages.size());
+        return messages;
+    }
+
     private File getConversationFile(String conversationId) {
         // 替换文件名中的非法字符
         String safeFileName = conversationId
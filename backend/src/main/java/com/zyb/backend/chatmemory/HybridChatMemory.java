@@ -2,7 +2,6 @@ package com.zyb.backend.chatmemory;
 
 import com.zyb.backend.constant.FileConstant;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -16,7 +15,7 @@ import java.util.List;
  */
 @Slf4j
 @Component
-public class HybridChatMemory implements ChatMemory {
+public class HybridChatMemory implements DeltaChatMemory {
 
     private final RedisChatMemory redisChatMemory;
     private final FileBasedChatMemory fileBasedChatMemory;
@@ -96,6 +95,58 @@ public class HybridChatMemory implements ChatMemory {
         }
     }
 
+    @Override
+    public void replaceTail(String conversationId, int keep, List<Message> tail) {
+        switch (storageType.toLowerCase()) {
+            case "redis":
+                redisChatMemory.replaceTail(conversationId, keep, tail);
+                break;
+            case "file":
+                fileBasedChatMemory.replaceTail(conversationId, keep, tail);
+                break;
+            case "hybrid":
+            default:
+                try {
+                    redisChatMemory.replaceTail(conversationId, keep, tail);
+                } catch (Exception e) {
+                    log.error("Redis替换尾部失败: {}", e.getMessage());
+                }
+
+                try {
+                    fileBasedChatMemory.replaceTail(conversationId, keep, tail);
+                } catch (Exception e) {
+                    log.error("文件替换尾部失败: {}", e.getMessage());
+                }
+                break;
+        }
+    }
+
+    @Override
+    public void truncateHead(String conversationId, int count) {
+        switch (storageType.toLowerCase()) {
+            case "redis":
+                redisChatMemory.truncateHead(conversationId, count);
+                break;
+            case "file":
+                fileBasedChatMemory.truncateHead(conversationId, count);
+                break;
+            case "hybrid":
+            default:
+                try {
+                    redisChatMemory.truncateHead(conversationId, count);
+                } catch (Exception e) {
+                    log.error("Redis裁剪头部失败: {}", e.getMessage());
+                }
+
+                try {
+                    fileBasedChatMemory.truncateHead(conversationId, count);
+                } catch (Exception e) {
+                    log.error("文件裁剪头部失败: {}", e.getMessage());
+                }
+                break;
+        }
+    }
+
     /**
      * 从Redis获取数据，失败时回退到文件
      */
@@ -1,12 +1,15 @@
 package com.zyb.backend.chatmemory;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,12 +19,41 @@ import java.util.List;
  */
 @Slf4j
 @Component
-public class RedisChatMemory implements ChatMemory {
+public class RedisChatMemory implements DeltaChatMemory {
 
     private final RedisTemplate<String, Object> redisTemplate;
     private final String keyPrefix = "voiceKeeper:chat:";
     private final Duration expireTime = Duration.ofDays(30);
 
+    /**
+     * 每个会话最多保留的消息条数
+     */
+    private static final int MAX_MESSAGES = 1000;
+
+    /**
+     * 写入脚本：按需截断尾部后 RPUSH + EXPIRE + LTRIM，在一次往返内原子完成
+     * ARGV[1] 保留的前缀长度（-1 表示全部保留），ARGV[2] 过期秒数，ARGV[3] 保留条数，ARGV[4..] 已序列化的消息
+     */
+    private static final RedisScript<Long> WRITE_SCRIPT = new DefaultRedisScript<>("""
+            local keep = tonumber(ARGV[1])
+            if keep == 0 then
+                redis.call('DEL', KEYS[1])
+            elseif keep > 0 then
+                redis.call('LTRIM', KEYS[1], 0, keep - 1)
+            end
+            local size = redis.call('LLEN', KEYS[1])
+            if #ARGV > 3 then
+                size = redis.call('RPUSH', KEYS[1], unpack(ARGV, 4))
+            end
+            redis.call('EXPIRE', KEYS[1], tonumber(ARGV[2]))
+            local cap = tonumber(ARGV[3])
+            if size > cap then
+                redis.call('LTRIM', KEYS[1], -cap, -1)
+                size = cap
+            end
+            return size
+            """, Long.class);
+
     public RedisChatMemory(RedisTemplate<String, Object> redisTemplate) {
         this.redisTemplate = redisTemplate;
     }
@@ -33,33 +65,65 @@ public class RedisChatMemory implements ChatMemory {
 
     @Override
     public void add(String conversationId, List<Message> messages) {
-        String key = keyPrefix + conversationId;
-
         try {
-            // 使用RedisTemplate的序列化机制
-            for (Message message : messages) {
-                if (message != null) {
-                    redisTemplate.opsForList().rightPush(key, message);
-                }
-            }
-
-            // 设置过期时间
-            redisTemplate.expire(key, expireTime);
-
-            // 限制消息数量（保留最近1000条）
-            Long size = redisTemplate.opsForList().size(key);
-            if (size != null && size > 1000) {
-                redisTemplate.opsForList().trim(key, -1000, -1);
-            }
-
+            write(conversationId, -1, messages);
             log.debug("成功添加 {} 条消息到会话: {}", messages.size(), conversationId);
-
         } catch (Exception e) {
             log.error("保存消息失败: {}", e.getMessage(), e);
             throw new RuntimeException("保存消息失败", e);
         }
     }
 
+    @Override
+    public void replaceTail(String conversationId, int keep, List<Message> tail) {
+        try {
+            write(conversationId, Math.max(keep, 0), tail);
+            log.debug("替换会话 {} 的尾部消息: 保留 {} 条, 追加 {} 条", conversationId, keep, tail.size());
+        } catch (Exception e) {
+            log.error("替换尾部消息失败: {}", e.getMessage(), e);
+            throw new RuntimeException("替换尾部消息失败", e);
+        }
+    }
+
+    @Override
+    public void truncateHead(String conversationId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        String key = keyPrefix + conversationId;
+        redisTemplate.opsForList().trim(key, count, -1);
+        log.debug("裁剪会话 {} 头部 {} 条消息", conversationId, count);
+    }
+
+    /**
+     * 执行写入脚本
+     */
+    private void write(String conversationId, int keep, List<Message> messages) {
+        String key = keyPrefix + conversationId;
+
+        // 超出上限的部分写入后也会被裁掉，直接只取最后 MAX_MESSAGES 条
+        List<Message> toAppend = messages.size() > MAX_MESSAGES
+                ? messages.subList(messages.size() - MAX_MESSAGES, messages.size())
+                : messages;
+
+        // 使用RedisTemplate的值序列化器预先序列化，脚本参数按原始字节传递
+        List<byte[]> args = new ArrayList<>(toAppend.size() + 3);
+        args.add(toBytes(keep));
+        args.add(toBytes(expireTime.toSeconds()));
+        args.add(toBytes(MAX_MESSAGES));
+        for (Message message : toAppend) {
+            if (message != null) {
+                args.add(valueSerializer().serialize(message));
+            }
+        }
+        if (args.size() == 3 && keep < 0) {
+            return;
+        }
+
+        redisTemplate.execute(WRITE_SCRIPT, RedisSerializer.byteArray(), null,
+                List.of(key), args.toArray());
+    }
+
     @Override
     public List<Message> get(String conversationId) {
         String key = keyPrefix + conversationId;
@@ -101,6 +165,15 @@ public class RedisChatMemory implements ChatMemory {
         log.debug("清空会话: {}", conversationId);
     }
 
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+
+    private static byte[] toBytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * 获取会话消息数量
      */
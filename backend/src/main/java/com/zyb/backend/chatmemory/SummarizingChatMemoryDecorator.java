@@ -1,5 +1,8 @@
 package com.zyb.backend.chatmemory;
 
+import com.zyb.backend.manager.BoundedVirtualThreadExecutor;
+import com.zyb.backend.manager.DashScopeGateway;
+import com.zyb.backend.model.enums.DashScopeApiEnum;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.AssistantMessage;
@@ -12,7 +15,9 @@ import org.springframework.ai.chat.prompt.Prompt;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -24,7 +29,7 @@ import java.util.stream.Collectors;
  * 4. 异步执行，不阻塞用户请求
  */
 @Slf4j
-public class SummarizingChatMemoryDecorator implements ChatMemory {
+public class SummarizingChatMemoryDecorator implements DeltaChatMemory {
 
     /**
      * 被装饰的 ChatMemory（实际存储）
@@ -36,6 +41,11 @@ public class SummarizingChatMemoryDecorator implements ChatMemory {
      */
     private final ChatModel chatModel;
 
+    /**
+     * DashScope 调用网关，摘要请求与对话请求共用大模型配额
+     */
+    private final DashScopeGateway dashScopeGateway;
+
     /**
      * 触发摘要的对话长度阈值（默认15条）
      */
@@ -46,13 +56,27 @@ public class SummarizingChatMemoryDecorator implements ChatMemory {
      */
     private final int messagesToSummarize;
 
+    /**
+     * 执行摘要任务的执行器
+     */
+    private final BoundedVirtualThreadExecutor executor;
+
+    /**
+     * 已提交但尚未执行的摘要任务，同一会话只保留一个
+     */
+    private final Set<String> pendingConversations = ConcurrentHashMap.newKeySet();
+
     public SummarizingChatMemoryDecorator(
             ChatMemory chatMemory,
             ChatModel chatModel,
+            DashScopeGateway dashScopeGateway,
+            BoundedVirtualThreadExecutor executor,
             int summarizationThreshold,
             int messagesToSummarize) {
         this.chatMemory = chatMemory;
         this.chatModel = chatModel;
+        this.dashScopeGateway = dashScopeGateway;
+        this.executor = executor;
         this.summarizationThreshold = summarizationThreshold;
         this.messagesToSummarize = messagesToSummarize;
 
@@ -69,19 +93,43 @@ public class SummarizingChatMemoryDecorator implements ChatMemory {
         chatMemory.add(conversationId, messages);
 
         // 2. 异步执行摘要（不阻塞用户请求）
-        CompletableFuture.runAsync(() -> summarize(conversationId))
-                .exceptionally(e -> {
-                    log.error("会话 {} 的异步摘要任务执行失败", conversationId, e);
-                    return null;
-                });
+        scheduleSummarize(conversationId);
+    }
+
+    /**
+     * 异步触发摘要检查
+     */
+    private void scheduleSummarize(String conversationId) {
+        // 智能体每一步都会写入，已有排队中的任务时无需重复提交
+        if (!pendingConversations.add(conversationId)) {
+            return;
+        }
+        try {
+            executor.runAsync(() -> {
+                        pendingConversations.remove(conversationId);
+                        summarize(conversationId);
+                    })
+                    .exceptionally(e -> {
+                        log.error("会话 {} 的异步摘要任务执行失败", conversationId, e);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            // 摘要可以延后，下次写入时会重新触发
+            pendingConversations.remove(conversationId);
+            log.warn("摘要执行器繁忙，跳过会话 {} 的本次摘要: {}", conversationId, e.getMessage());
+        }
     }
 
     /**
      * 实际的摘要逻辑
      */
     private void summarize(String conversationId) {
-        List<Message> currentHistory = chatMemory.get(conversationId);
-        
+        // 底层带版本号缓存时记录读取时的版本，替换时据此判断期间是否有新写入
+        CachingChatMemoryDecorator.Snapshot snapshot = chatMemory instanceof CachingChatMemoryDecorator caching
+                ? caching.snapshot(conversationId)
+                : null;
+        List<Message> currentHistory = snapshot != null ? snapshot.messages() : chatMemory.get(conversationId);
+
         // 检查是否需要摘要
         if (currentHistory.size() <= summarizationThreshold) {
             return;
@@ -114,7 +162,7 @@ public class SummarizingChatMemoryDecorator implements ChatMemory {
 
             // 3. 调用 AI 模型生成摘要
             Prompt summaryPrompt = new Prompt(promptTemplate);
-            String summaryText = chatModel.call(summaryPrompt)
+            String summaryText = dashScopeGateway.execute(DashScopeApiEnum.LLM, () -> chatModel.call(summaryPrompt))
                     .getResult()
                     .getOutput()
                     .getText();
@@ -128,9 +176,17 @@ public class SummarizingChatMemoryDecorator implements ChatMemory {
             newHistory.addAll(recentMessages);
 
             // 5. 原子性替换旧历史
-            synchronized (this) {
-                chatMemory.clear(conversationId);
-                chatMemory.add(conversationId, newHistory);
+            if (snapshot != null) {
+                // 摘要期间历史已被修改则放弃本次结果，避免覆盖新消息，下次写入会重新触发
+                if (!((CachingChatMemoryDecorator) chatMemory).compareAndSet(conversationId, snapshot.version(), newHistory)) {
+                    log.info("会话 {} 在摘要期间有新消息写入，放弃本次摘要结果", conversationId);
+                    return;
+                }
+            } else {
+                synchronized (this) {
+                    chatMemory.clear(conversationId);
+                    chatMemory.add(conversationId, newHistory);
+                }
             }
 
             log.info("会话 {} 的记忆摘要已完成。历史从 {} 条压缩到 {} 条",
@@ -150,5 +206,37 @@ public class SummarizingChatMemoryDecorator implements ChatMemory {
     public void clear(String conversationId) {
         chatMemory.clear(conversationId);
     }
+
+    /**
+     * 底层存储支持增量写入时直接委托，否则退化为全量替换
+     */
+    @Override
+    public void replaceTail(String conversationId, int keep, List<Message> tail) {
+        if (chatMemory instanceof DeltaChatMemory deltaChatMemory) {
+            deltaChatMemory.replaceTail(conversationId, keep, tail);
+        } else {
+            List<Message> history = chatMemory.get(conversationId);
+            List<Message> newHistory = new ArrayList<>(history.subList(0, Math.min(Math.max(keep, 0), history.size())));
+            newHistory.addAll(tail);
+            chatMemory.clear(conversationId);
+            chatMemory.add(conversationId, newHistory);
+        }
+        scheduleSummarize(conversationId);
+    }
+
+    @Override
+    public void truncateHead(String conversationId, int count) {
+        if (chatMemory instanceof DeltaChatMemory deltaChatMemory) {
+            deltaChatMemory.truncateHead(conversationId, count);
+            return;
+        }
+        List<Message> history = chatMemory.get(conversationId);
+        if (count <= 0 || history.isEmpty()) {
+            return;
+        }
+        List<Message> newHistory = new ArrayList<>(history.subList(Math.min(count, history.size()), history.size()));
+        chatMemory.clear(conversationId);
+        chatMemory.add(conversationId, newHistory);
+    }
 }
 
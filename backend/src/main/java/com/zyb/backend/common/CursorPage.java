@@ -0,0 +1,101 @@
+package com.zyb.backend.common;
+
+import com.zyb.backend.common.exception.BusinessException;
+import com.zyb.backend.common.response.ResultCode;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * 按（createTime, id）倒序翻页，游标是上一页最后一行的这两个值，
+ * 下一页直接 WHERE (createTime, id) < 游标，不做 COUNT，也不随页深变慢
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    /**
+     * 游标格式：创建时间毫秒数_ID
+     */
+    private static final String SEPARATOR = "_";
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 解析后的游标
+     */
+    public record Cursor(Date createTime, Long id) {
+    }
+
+    /**
+     * 由多查一行的结果构建分页
+     *
+     * @param rows 按 size + 1 查询的结果
+     * @param size 页大小
+     */
+    public static <E> CursorPage<E> of(List<E> rows, int size, Function<E, Date> createTime, Function<E, Long> id) {
+        CursorPage<E> page = new CursorPage<>();
+        boolean hasMore = rows.size() > size;
+        List<E> records = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            E last = records.get(records.size() - 1);
+            page.setNextCursor(createTime.apply(last).getTime() + SEPARATOR + id.apply(last));
+        }
+        return page;
+    }
+
+    /**
+     * 转换记录类型，游标不变
+     */
+    public <R> CursorPage<R> convert(Function<List<T>, List<R>> converter) {
+        CursorPage<R> page = new CursorPage<>();
+        page.setRecords(converter.apply(records));
+        page.setNextCursor(nextCursor);
+        page.setHasMore(hasMore);
+        return page;
+    }
+
+    /**
+     * 解析游标
+     *
+     * @return 为空时返回 null，表示第一页
+     */
+    public static Cursor decode(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+        String[] parts = cursor.split(SEPARATOR);
+        try {
+            if (parts.length == 2) {
+                return new Cursor(new Date(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+            }
+        } catch (NumberFormatException ignored) {
+            // 统一按参数错误处理
+        }
+        throw new BusinessException(ResultCode.PARAMS_ERROR, "游标格式错误");
+    }
+}
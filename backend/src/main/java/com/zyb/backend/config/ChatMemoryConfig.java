@@ -1,7 +1,10 @@
 package com.zyb.backend.config;
 
+import com.zyb.backend.chatmemory.CachingChatMemoryDecorator;
 import com.zyb.backend.chatmemory.HybridChatMemory;
 import com.zyb.backend.chatmemory.SummarizingChatMemoryDecorator;
+import com.zyb.backend.manager.BoundedVirtualThreadExecutor;
+import com.zyb.backend.manager.DashScopeGateway;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +12,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import java.time.Duration;
+
 /**
  * 对话记忆配置类
  */
@@ -21,16 +26,40 @@ public class ChatMemoryConfig {
     @Value("${voiceKeeper.agent.memory.summary.chunk-size}")
     private int summaryChunkSize;
 
+    @Value("${voiceKeeper.agent.memory.cache.max-size:1000}")
+    private long cacheMaxSize;
+
+    @Value("${voiceKeeper.agent.memory.cache.expire-minutes:30}")
+    private long cacheExpireMinutes;
+
+    /**
+     * 创建对话记忆本地缓存
+     * 热点会话读取直接命中内存，只有写入和未命中时才访问 Redis
+     */
+    @Bean
+    public CachingChatMemoryDecorator cachingChatMemory(HybridChatMemory hybridChatMemory) {
+        return new CachingChatMemoryDecorator(
+                hybridChatMemory,
+                cacheMaxSize,
+                Duration.ofMinutes(cacheExpireMinutes)
+        );
+    }
+
     /**
      * 创建并配置记忆摘要装饰器
      * 当对话超过阈值时，自动使用AI生成摘要压缩历史
      */
     @Bean
     @Primary
-    public ChatMemory summarizingChatMemory(HybridChatMemory hybridChatMemory, ChatModel chatModel) {
+    public ChatMemory summarizingChatMemory(CachingChatMemoryDecorator cachingChatMemory,
+                                            ChatModel chatModel,
+                                            DashScopeGateway dashScopeGateway,
+                                            BoundedVirtualThreadExecutor summaryExecutor) {
         return new SummarizingChatMemoryDecorator(
-                hybridChatMemory,
+                cachingChatMemory,
                 chatModel,
+                dashScopeGateway,
+                summaryExecutor,
                 summaryThreshold,
                 summaryChunkSize
         );
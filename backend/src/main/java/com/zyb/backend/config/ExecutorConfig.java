@@ -0,0 +1,52 @@
+package com.zyb.backend.config;
+
+import com.zyb.backend.manager.BoundedVirtualThreadExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 异步执行器配置类
+ * 按负载类型拆分执行器，智能体运行、记忆摘要、向量索引互不抢占，也不占用公共 ForkJoinPool
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 智能体运行执行器（SSE 流式对话）
+     */
+    @Bean(destroyMethod = "close")
+    public BoundedVirtualThreadExecutor agentExecutor(
+            @Value("${voiceKeeper.executor.agent.max-concurrency:200}") int maxConcurrency,
+            @Value("${voiceKeeper.executor.agent.max-queue-size:500}") int maxQueueSize,
+            @Value("${voiceKeeper.executor.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        return new BoundedVirtualThreadExecutor("agent", maxConcurrency, maxQueueSize,
+                Duration.ofMillis(shutdownTimeoutMs));
+    }
+
+    /**
+     * 记忆摘要执行器
+     */
+    @Bean(destroyMethod = "close")
+    public BoundedVirtualThreadExecutor summaryExecutor(
+            @Value("${voiceKeeper.executor.summary.max-concurrency:8}") int maxConcurrency,
+            @Value("${voiceKeeper.executor.summary.max-queue-size:200}") int maxQueueSize,
+            @Value("${voiceKeeper.executor.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        return new BoundedVirtualThreadExecutor("summary", maxConcurrency, maxQueueSize,
+                Duration.ofMillis(shutdownTimeoutMs));
+    }
+
+    /**
+     * 向量索引执行器
+     */
+    @Bean(destroyMethod = "close")
+    public BoundedVirtualThreadExecutor indexExecutor(
+            @Value("${voiceKeeper.executor.index.max-concurrency:4}") int maxConcurrency,
+            @Value("${voiceKeeper.executor.index.max-queue-size:1000}") int maxQueueSize,
+            @Value("${voiceKeeper.executor.shutdown-timeout-ms:30000}") long shutdownTimeoutMs) {
+        return new BoundedVirtualThreadExecutor("index", maxConcurrency, maxQueueSize,
+                Duration.ofMillis(shutdownTimeoutMs));
+    }
+}
@@ -0,0 +1,82 @@
+package com.zyb.backend.config;
+
+import com.alibaba.cloud.ai.dashscope.embedding.DashScopeEmbeddingModel;
+import com.zyb.backend.manager.CachingEmbeddingModel;
+import com.zyb.backend.manager.DashScopeGateway;
+import com.zyb.backend.vectorstore.LocalHnswVectorStore;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 向量存储配置类
+ */
+@Configuration
+public class VectorStoreConfig {
+
+    /**
+     * 向量化分批策略
+     * 默认策略只按 token 数切分，一批可能超过 DashScope 单次请求的文本条数上限（text-embedding-v3 为 10 条），
+     * 这里在 token 切分的基础上再按条数切分，ElasticsearchVectorStore 会自动使用该 Bean
+     */
+    @Bean
+    public BatchingStrategy batchingStrategy(
+            @Value("${voiceKeeper.vector.embedding.batch-size:10}") int batchSize) {
+        TokenCountBatchingStrategy tokenCountBatchingStrategy = new TokenCountBatchingStrategy();
+        return documents -> {
+            List<List<Document>> batches = new ArrayList<>();
+            for (List<Document> tokenBatch : tokenCountBatchingStrategy.batch(documents)) {
+                for (int i = 0; i < tokenBatch.size(); i += batchSize) {
+                    batches.add(tokenBatch.subList(i, Math.min(i + batchSize, tokenBatch.size())));
+                }
+            }
+            return batches;
+        };
+    }
+
+    /**
+     * 带查询向量缓存的 EmbeddingModel
+     * 标记为 @Primary，向量存储检索时的查询向量化会先查缓存
+     */
+    @Bean
+    @Primary
+    public CachingEmbeddingModel cachingEmbeddingModel(
+            DashScopeEmbeddingModel dashScopeEmbeddingModel,
+            DashScopeGateway dashScopeGateway,
+            RedisTemplate<String, Object> redisTemplate,
+            @Value("${spring.ai.dashscope.embedding.model:text-embedding-v3}") String modelName,
+            @Value("${voiceKeeper.vector.embedding.cache.max-size:10000}") long maxSize,
+            @Value("${voiceKeeper.vector.embedding.cache.expire-minutes:1440}") long expireMinutes,
+            @Value("${voiceKeeper.vector.embedding.cache.redis-enabled:true}") boolean redisEnabled) {
+        return new CachingEmbeddingModel(dashScopeEmbeddingModel, dashScopeGateway, redisEnabled ? redisTemplate : null, modelName, maxSize, expireMinutes);
+    }
+
+    /**
+     * 本地 HNSW 向量存储（spring.ai.vectorstore.type=local 时启用，替代 Elasticsearch）
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "local")
+    public LocalHnswVectorStore localHnswVectorStore(
+            EmbeddingModel embeddingModel,
+            BatchingStrategy batchingStrategy,
+            @Value("${voiceKeeper.vector.local.data-dir:data/vector}") String dataDir,
+            @Value("${voiceKeeper.vector.local.m:16}") int m,
+            @Value("${voiceKeeper.vector.local.ef-construction:100}") int efConstruction,
+            @Value("${voiceKeeper.vector.local.ef-search:64}") int efSearch,
+            @Value("${voiceKeeper.vector.local.brute-force-threshold:2000}") int bruteForceThreshold,
+            @Value("${voiceKeeper.vector.local.wal-max-bytes:268435456}") long walMaxBytes) {
+        return new LocalHnswVectorStore(embeddingModel, batchingStrategy, Path.of(dataDir),
+                m, efConstruction, efSearch, bruteForceThreshold, walMaxBytes);
+    }
+}
@@ -1,8 +1,11 @@
 package com.zyb.backend.controller;
 
 import com.zyb.backend.agent.service.AgentManagerService;
+import com.zyb.backend.annotation.AuthCheck;
+import com.zyb.backend.chatmemory.CachingChatMemoryDecorator;
 import com.zyb.backend.common.response.BaseResponse;
 import com.zyb.backend.common.response.ResultCode;
+import com.zyb.backend.constant.UserConstant;
 import jakarta.annotation.Resource;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -16,6 +19,9 @@ public class ConversationController {
     @Resource
     private AgentManagerService agentManagerService;
 
+    @Resource
+    private CachingChatMemoryDecorator cachingChatMemory;
+
     /**
      * 清理会话数据
      */
@@ -44,4 +50,13 @@ public class ConversationController {
             return BaseResponse.error(ResultCode.FAILED, "获取信息失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 获取会话缓存统计（仅管理员）
+     */
+    @GetMapping("/cache/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getCacheStats() {
+        return BaseResponse.success(agentManagerService.getCacheStats() + "\n" + cachingChatMemory.getCacheStats());
+    }
 }
@@ -0,0 +1,148 @@
+package com.zyb.backend.controller;
+
+import com.zyb.backend.annotation.AuthCheck;
+import com.zyb.backend.common.response.BaseResponse;
+import com.zyb.backend.constant.UserConstant;
+import com.zyb.backend.manager.BoundedVirtualThreadExecutor;
+import com.zyb.backend.manager.CachingEmbeddingModel;
+import com.zyb.backend.manager.DashScopeGateway;
+import com.zyb.backend.manager.SpeechSynthesizerPool;
+import com.zyb.backend.manager.SynthesisCacheManager;
+import com.zyb.backend.manager.VoiceModelCacheManager;
+import com.zyb.backend.manager.WriteBehindCounterManager;
+import com.zyb.backend.service.VoiceCardIndexSyncService;
+import com.zyb.backend.service.VoiceEnrollmentPoller;
+import jakarta.annotation.Resource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 运行状态监控接口（仅管理员）
+ */
+@RestController
+@RequestMapping("/monitor")
+public class MonitorController {
+
+    @Resource
+    private List<BoundedVirtualThreadExecutor> executors;
+
+    @Resource
+    private SynthesisCacheManager synthesisCacheManager;
+
+    @Resource
+    private SpeechSynthesizerPool speechSynthesizerPool;
+
+    @Resource
+    private CachingEmbeddingModel cachingEmbeddingModel;
+
+    @Resource
+    private VoiceCardIndexSyncService voiceCardIndexSyncService;
+
+    @Resource
+    private DashScopeGateway dashScopeGateway;
+
+    @Resource
+    private VoiceEnrollmentPoller voiceEnrollmentPoller;
+
+    @Resource
+    private VoiceModelCacheManager voiceModelCacheManager;
+
+    @Resource
+    private WriteBehindCounterManager writeBehindCounterManager;
+
+    /**
+     * 获取执行器运行状态：运行中任务数、排队深度等
+     */
+    @GetMapping("/executor/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Map<String, Map<String, Object>>> getExecutorStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (BoundedVirtualThreadExecutor executor : executors) {
+            Map<String, Object> gauges = new LinkedHashMap<>();
+            gauges.put("active", executor.getActiveCount());
+            gauges.put("maxConcurrency", executor.getMaxConcurrency());
+            gauges.put("queueDepth", executor.getQueueDepth());
+            gauges.put("maxQueueSize", executor.getMaxQueueSize());
+            gauges.put("summary", executor.getStats());
+            result.put(executor.getName(), gauges);
+        }
+        return BaseResponse.success(result);
+    }
+
+    /**
+     * 获取语音合成缓存命中率
+     */
+    @GetMapping("/synthesis/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getSynthesisCacheStats() {
+        return BaseResponse.success(synthesisCacheManager.getCacheStats());
+    }
+
+    /**
+     * 获取语音合成器对象池状态：借出、空闲、累计创建数
+     */
+    @GetMapping("/synthesizer-pool/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getSynthesizerPoolStats() {
+        return BaseResponse.success(speechSynthesizerPool.getStats());
+    }
+
+    /**
+     * 获取查询向量缓存命中率及节省的向量化耗时
+     */
+    @GetMapping("/embedding/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getEmbeddingCacheStats() {
+        return BaseResponse.success(cachingEmbeddingModel.getCacheStats());
+    }
+
+    /**
+     * 获取向量索引增量同步状态
+     */
+    @GetMapping("/index-sync/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getIndexSyncStats() {
+        return BaseResponse.success(voiceCardIndexSyncService.getStats());
+    }
+
+    /**
+     * 获取 DashScope 网关状态：各类接口的并发、重试计数，以及排队等待和调用耗时分布
+     */
+    @GetMapping("/dashscope/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Map<String, Map<String, Object>>> getDashScopeStats() {
+        return BaseResponse.success(dashScopeGateway.getStats());
+    }
+
+    /**
+     * 获取声音复刻状态轮询统计
+     */
+    @GetMapping("/enrollment/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getEnrollmentStats() {
+        return BaseResponse.success(voiceEnrollmentPoller.getStats());
+    }
+
+    /**
+     * 获取声音模型缓存命中率
+     */
+    @GetMapping("/voice-model/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getVoiceModelCacheStats() {
+        return BaseResponse.success(voiceModelCacheManager.getCacheStats());
+    }
+
+    /**
+     * 获取写回计数器状态：累计计数、已写回、写回失败次数
+     */
+    @GetMapping("/counter/stats")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> getCounterStats() {
+        return BaseResponse.success(writeBehindCounterManager.getStats());
+    }
+}
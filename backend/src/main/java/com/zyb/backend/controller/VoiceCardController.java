@@ -2,6 +2,8 @@ package com.zyb.backend.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zyb.backend.common.CursorPage;
 import com.zyb.backend.common.DeleteRequest;
 import com.zyb.backend.common.exception.BusinessException;
 import com.zyb.backend.common.response.BaseResponse;
@@ -11,22 +13,24 @@ import com.zyb.backend.model.dto.voicecard.VoiceCardQueryRequest;
 import com.zyb.backend.model.dto.voicecard.VoiceCardUpdateRequest;
 import com.zyb.backend.model.entity.User;
 import com.zyb.backend.model.entity.VoiceCard;
-import com.zyb.backend.model.entity.VoiceModel;
 import com.zyb.backend.model.vo.VoiceCardVO;
 import com.zyb.backend.service.UserService;
 import com.zyb.backend.service.VoiceCardService;
-import com.zyb.backend.service.VoiceModelService;
+import com.zyb.backend.utils.NdjsonWriter;
 import com.zyb.backend.utils.ThrowUtils;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 声音卡片接口
@@ -36,6 +40,26 @@ import java.util.stream.Collectors;
 @Slf4j
 public class VoiceCardController {
 
+    /**
+     * 卡片库单次返回的最大卡片数
+     */
+    private static final int MY_LIST_MAX_SIZE = 500;
+
+    /**
+     * 列表被截断时的响应头
+     */
+    private static final String TRUNCATED_HEADER = "X-Truncated";
+
+    /**
+     * 游标分页的最大页大小
+     */
+    private static final int CURSOR_PAGE_MAX_SIZE = 100;
+
+    /**
+     * 流式输出时每批转换、刷出的卡片数
+     */
+    private static final int STREAM_CHUNK_SIZE = 100;
+
     @Resource
     private VoiceCardService voiceCardService;
 
@@ -43,7 +67,7 @@ public class VoiceCardController {
     private UserService userService;
 
     @Resource
-    private VoiceModelService voiceModelService;
+    private ObjectMapper objectMapper;
 
     // region 增删改查
 
@@ -141,7 +165,7 @@ public class VoiceCardController {
         if (voiceCard == null) {
             throw new BusinessException(ResultCode.NOT_FOUND);
         }
-        return BaseResponse.success(getVoiceCardVO(voiceCard));
+        return BaseResponse.success(voiceCardService.getVoiceCardVO(voiceCard));
     }
 
     /**
@@ -167,50 +191,81 @@ public class VoiceCardController {
         );
         
         Page<VoiceCardVO> voiceCardVOPage = new Page<>(current, size, voiceCardPage.getTotal());
-        List<VoiceCardVO> voiceCardVOList = voiceCardPage.getRecords().stream()
-                .map(this::getVoiceCardVO)
-                .collect(Collectors.toList());
-        voiceCardVOPage.setRecords(voiceCardVOList);
+        voiceCardVOPage.setRecords(voiceCardService.getVoiceCardVO(voiceCardPage.getRecords()));
         
         return BaseResponse.success(voiceCardVOPage);
     }
 
     /**
-     * 获取当前用户的所有声音卡片（不分页，用于卡片库）
+     * 获取当前用户最近的声音卡片（不分页），最多返回 MY_LIST_MAX_SIZE 张
+     * 超出时响应头 X-Truncated 为 true；完整卡片库请使用 /my/list/cursor 逐页获取
      */
     @GetMapping("/my/list")
     public BaseResponse<List<VoiceCardVO>> listMyVoiceCards(HttpServletRequest request,
+                                                             HttpServletResponse response,
                                                              @RequestParam(required = false) String sceneTag) {
         User loginUser = userService.getLoginUser(request);
         
-        List<VoiceCard> voiceCards;
-        if (StringUtils.isNotBlank(sceneTag)) {
-            voiceCards = voiceCardService.listByUserIdAndScene(loginUser.getId(), sceneTag);
-        } else {
-            voiceCards = voiceCardService.listByUserId(loginUser.getId());
+        // 多查一张判断是否被截断
+        List<VoiceCard> voiceCards = voiceCardService.listRecentByUserId(loginUser.getId(), sceneTag, MY_LIST_MAX_SIZE + 1);
+        boolean truncated = voiceCards.size() > MY_LIST_MAX_SIZE;
+        response.setHeader(TRUNCATED_HEADER, String.valueOf(truncated));
+        if (truncated) {
+            voiceCards = voiceCards.subList(0, MY_LIST_MAX_SIZE);
         }
         
-        List<VoiceCardVO> voiceCardVOList = voiceCards.stream()
-                .map(this::getVoiceCardVO)
-                .collect(Collectors.toList());
-        
-        return BaseResponse.success(voiceCardVOList);
+        return BaseResponse.success(voiceCardService.getVoiceCardVO(voiceCards));
+    }
+
+    /**
+     * 按游标分页获取当前用户的声音卡片（按创建时间倒序）
+     */
+    @GetMapping("/my/list/cursor")
+    public BaseResponse<CursorPage<VoiceCardVO>> listMyVoiceCardsByCursor(HttpServletRequest request,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(defaultValue = "20") int size,
+                                                                          @RequestParam(required = false) String sceneTag) {
+        ThrowUtils.throwIf(size <= 0 || size > CURSOR_PAGE_MAX_SIZE, ResultCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return BaseResponse.success(voiceCardService.listVoiceCardVOByCursor(loginUser.getId(), sceneTag, cursor, size));
+    }
+
+    /**
+     * 流式获取当前用户的全部声音卡片（NDJSON，每行一张卡片）
+     * 按游标逐页查询、逐页写出，卡片再多内存占用也不变，写出期间不占用数据库连接
+     */
+    @GetMapping(value = "/my/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMyVoiceCards(HttpServletRequest request,
+                                                                    @RequestParam(required = false) String sceneTag) {
+        User loginUser = userService.getLoginUser(request);
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(outputStream, objectMapper);
+            voiceCardService.streamVoiceCardVOByUserId(loginUser.getId(), sceneTag, STREAM_CHUNK_SIZE, writer::writeAll);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
      * 增加播放次数
+     * 只累加计数不查库，不存在的卡片在写回时被忽略
      */
     @PostMapping("/play/{id}")
-    public BaseResponse<Boolean> increasePlayCount(@PathVariable Long id, HttpServletRequest request) {
+    public BaseResponse<Boolean> increasePlayCount(@PathVariable Long id) {
         if (id == null || id <= 0) {
             throw new BusinessException(ResultCode.PARAMS_ERROR);
         }
-        
-        VoiceCard voiceCard = voiceCardService.getById(id);
-        ThrowUtils.throwIf(voiceCard == null, ResultCode.NOT_FOUND);
-        
-        boolean result = voiceCardService.increasePlayCount(id);
-        return BaseResponse.success(result);
+        return BaseResponse.success(voiceCardService.increasePlayCount(id));
+    }
+
+    /**
+     * 增加分享次数
+     */
+    @PostMapping("/share/{id}")
+    public BaseResponse<Boolean> increaseShareCount(@PathVariable Long id) {
+        if (id == null || id <= 0) {
+            throw new BusinessException(ResultCode.PARAMS_ERROR);
+        }
+        return BaseResponse.success(voiceCardService.increaseShareCount(id));
     }
 
     // endregion
@@ -272,26 +327,4 @@ public class VoiceCardController {
         
         return wrapper;
     }
-
-    /**
-     * 将实体转换为VO
-     */
-    private VoiceCardVO getVoiceCardVO(VoiceCard voiceCard) {
-        if (voiceCard == null) {
-            return null;
-        }
-        VoiceCardVO voiceCardVO = new VoiceCardVO();
-        BeanUtils.copyProperties(voiceCard, voiceCardVO);
-        
-        // 关联查询声音模型名称
-        if (voiceCard.getVoiceModelId() != null) {
-            VoiceModel voiceModel = voiceModelService.getById(voiceCard.getVoiceModelId());
-            if (voiceModel != null) {
-                voiceCardVO.setVoiceModelName(voiceModel.getModelName());
-            }
-        }
-        
-        return voiceCardVO;
-    }
 }
-
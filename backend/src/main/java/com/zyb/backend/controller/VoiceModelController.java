@@ -2,6 +2,8 @@ package com.zyb.backend.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zyb.backend.common.CursorPage;
 import com.zyb.backend.common.DeleteRequest;
 import com.zyb.backend.common.exception.BusinessException;
 import com.zyb.backend.common.response.BaseResponse;
@@ -14,6 +16,7 @@ import com.zyb.backend.model.entity.VoiceModel;
 import com.zyb.backend.model.vo.VoiceModelVO;
 import com.zyb.backend.service.UserService;
 import com.zyb.backend.service.VoiceModelService;
+import com.zyb.backend.utils.NdjsonWriter;
 import com.zyb.backend.utils.ThrowUtils;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,7 +24,10 @@ import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -34,12 +40,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class VoiceModelController {
 
+    /**
+     * 游标分页的最大页大小
+     */
+    private static final int CURSOR_PAGE_MAX_SIZE = 100;
+
     @Resource
     private VoiceModelService voiceModelService;
 
     @Resource
     private UserService userService;
 
+    @Resource
+    private ObjectMapper objectMapper;
+
     // region 增删改查
 
     /**
@@ -186,6 +200,35 @@ public class VoiceModelController {
         return BaseResponse.success(voiceModelVOList);
     }
 
+    /**
+     * 按游标分页获取当前用户的声音模型（按创建时间倒序）
+     */
+    @GetMapping("/my/list/cursor")
+    public BaseResponse<CursorPage<VoiceModelVO>> listMyVoiceModelsByCursor(HttpServletRequest request,
+                                                                            @RequestParam(required = false) String cursor,
+                                                                            @RequestParam(defaultValue = "20") int size) {
+        ThrowUtils.throwIf(size <= 0 || size > CURSOR_PAGE_MAX_SIZE, ResultCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        CursorPage<VoiceModel> page = voiceModelService.listByUserIdByCursor(loginUser.getId(), cursor, size);
+        return BaseResponse.success(page.convert(models -> models.stream()
+                .map(this::getVoiceModelVO)
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * 流式获取当前用户的全部声音模型（NDJSON，每行一个模型）
+     */
+    @GetMapping(value = "/my/list/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMyVoiceModels(HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(outputStream, objectMapper);
+            voiceModelService.streamByUserId(loginUser.getId(), model -> writer.write(getVoiceModelVO(model)));
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     // endregion
 
     /**
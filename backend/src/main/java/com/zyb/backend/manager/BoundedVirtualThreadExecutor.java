@@ -0,0 +1,237 @@
+package com.zyb.backend.manager;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 有界虚拟线程执行器
+ * 工作原理：
+ * 1. 每个任务运行在独立的具名虚拟线程上，阻塞在 LLM / TTS / OSS 调用时不占用平台线程
+ * 2. 同时运行的任务数受信号量限制，超出的任务排队等待许可
+ * 3. 排队数超过上限时直接拒绝，避免无限堆积
+ * 4. 关闭时中断排队中的任务（不再执行），在超时时间内等待运行中的任务结束，超时后中断
+ * 注意：不实现 Executor 接口，否则会让 Spring Boot 默认的 applicationTaskExecutor 失效
+ */
+@Slf4j
+public class BoundedVirtualThreadExecutor implements AutoCloseable {
+
+    /**
+     * 执行器名称（同时作为线程名前缀）
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 最大并发数
+     */
+    @Getter
+    private final int maxConcurrency;
+
+    /**
+     * 最大排队数
+     */
+    @Getter
+    private final int maxQueueSize;
+
+    /**
+     * 关闭时等待运行中任务结束的最长时间
+     */
+    private final Duration shutdownTimeout;
+
+    private final Semaphore permits;
+
+    private final ThreadFactory threadFactory;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * 排队等待许可的线程
+     */
+    private final Set<Thread> waitingThreads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 正在执行任务的线程
+     */
+    private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean shutdown = false;
+
+    public BoundedVirtualThreadExecutor(String name, int maxConcurrency, int maxQueueSize, Duration shutdownTimeout) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueueSize = maxQueueSize;
+        this.shutdownTimeout = shutdownTimeout;
+        this.permits = new Semaphore(maxConcurrency);
+        this.threadFactory = Thread.ofVirtual().name(name + "-", 0).factory();
+
+        log.info("初始化虚拟线程执行器: 名称={}, 最大并发={}, 最大排队={}", name, maxConcurrency, maxQueueSize);
+    }
+
+    /**
+     * 异步执行任务
+     *
+     * @throws RejectedExecutionException 执行器已关闭或队列已满
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        submit(() -> {
+            try {
+                task.run();
+                future.complete(null);
+            } catch (Throwable e) {
+                // 异常交给调用方通过 future 处理
+                future.completeExceptionally(e);
+            }
+        }, future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * 执行任务
+     *
+     * @throws RejectedExecutionException 执行器已关闭或队列已满
+     */
+    public void execute(Runnable command) {
+        submit(command, e -> log.warn("执行器 {} 丢弃排队中的任务: {}", name, e.getMessage()));
+    }
+
+    /**
+     * @param onRejected 已提交但尚未开始的任务因执行器关闭而被放弃时回调
+     */
+    private void submit(Runnable command, Consumer<RejectedExecutionException> onRejected) {
+        if (shutdown) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("执行器 " + name + " 已关闭");
+        }
+        if (!permits.tryAcquire()) {
+            // 没有空闲许可，进入排队
+            if (queued.incrementAndGet() > maxQueueSize) {
+                queued.decrementAndGet();
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("执行器 " + name + " 队列已满: " + maxQueueSize);
+            }
+            threadFactory.newThread(() -> {
+                Thread current = Thread.currentThread();
+                waitingThreads.add(current);
+                try {
+                    if (shutdown) {
+                        // 登记前执行器已关闭，close() 可能没有中断到本线程
+                        throw new InterruptedException();
+                    }
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    queued.decrementAndGet();
+                    rejected.incrementAndGet();
+                    onRejected.accept(new RejectedExecutionException("执行器 " + name + " 已关闭，排队任务未执行"));
+                    return;
+                } finally {
+                    waitingThreads.remove(current);
+                }
+                queued.decrementAndGet();
+                run(command, onRejected);
+            }).start();
+            return;
+        }
+        threadFactory.newThread(() -> run(command, onRejected)).start();
+    }
+
+    /**
+     * 已持有许可，执行任务
+     */
+    private void run(Runnable command, Consumer<RejectedExecutionException> onRejected) {
+        Thread current = Thread.currentThread();
+        // 先登记再检查关闭标记：close() 先置标记再等待登记的线程，两者之一必然能看到对方
+        runningThreads.add(current);
+        if (shutdown) {
+            // 开始执行前执行器已关闭：依赖的资源可能已销毁，不再执行
+            runningThreads.remove(current);
+            permits.release();
+            rejected.incrementAndGet();
+            onRejected.accept(new RejectedExecutionException("执行器 " + name + " 已关闭，任务未执行"));
+            return;
+        }
+        active.incrementAndGet();
+        try {
+            command.run();
+        } catch (Throwable e) {
+            log.error("执行器 {} 任务执行异常", name, e);
+        } finally {
+            active.decrementAndGet();
+            completed.incrementAndGet();
+            runningThreads.remove(current);
+            permits.release();
+        }
+    }
+
+    /**
+     * 当前排队等待的任务数
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * 当前正在运行的任务数
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * 获取执行器统计信息
+     */
+    public String getStats() {
+        return String.format("执行器[%s] - 运行中: %d/%d, 排队: %d/%d, 已完成: %d, 已拒绝: %d",
+                name,
+                active.get(), maxConcurrency,
+                queued.get(), maxQueueSize,
+                completed.get(),
+                rejected.get());
+    }
+
+    /**
+     * 关闭执行器：拒绝新任务，中断排队中的任务，等待运行中的任务结束，超时后中断
+     */
+    @Override
+    public void close() {
+        shutdown = true;
+        waitingThreads.forEach(Thread::interrupt);
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        try {
+            while (!runningThreads.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                Thread thread = runningThreads.iterator().next();
+                thread.join(Duration.ofNanos(remaining));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Thread> unfinished = List.copyOf(runningThreads);
+        if (!unfinished.isEmpty()) {
+            log.warn("执行器 {} 关闭超时，中断 {} 个运行中的任务", name, unfinished.size());
+            unfinished.forEach(Thread::interrupt);
+        }
+        log.info("关闭虚拟线程执行器: {}", getStats());
+    }
+}
@@ -0,0 +1,197 @@
+package com.zyb.backend.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zyb.backend.model.enums.DashScopeApiEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.ByteBuffer;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 查询向量缓存装饰器
+ * 工作原理：
+ * 1. 只缓存查询文本的向量（VectorStore 检索时调用 {@link #embed(String)}），文档索引直接透传，避免重建索引冲掉热点查询
+ * 2. 本地 Caffeine 为一级缓存，向量以 float16 存储，内存占用减半
+ * 3. Redis 为可选的二级缓存，多实例共享
+ * 4. 所有模型调用经由 DashScope 网关限流；同一查询的并发未命中只调用一次模型
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final String REDIS_KEY_PREFIX = "voiceKeeper:embedding:";
+
+    /**
+     * Redis 缓存有效期（天）
+     */
+    private static final long REDIS_TTL_DAYS = 7;
+
+    private final EmbeddingModel delegate;
+
+    private final DashScopeGateway dashScopeGateway;
+
+    /**
+     * 为 null 时不使用 Redis 二级缓存
+     */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 模型名称，参与 Redis 键的计算，切换模型后旧向量自然失效
+     */
+    private final String modelName;
+
+    private final Cache<String, short[]> localCache;
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder redisHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 未命中时调用模型的累计耗时（纳秒）
+     */
+    private final LongAdder missNanos = new LongAdder();
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, DashScopeGateway dashScopeGateway,
+                                 RedisTemplate<String, Object> redisTemplate,
+                                 String modelName, long maxSize, long expireMinutes) {
+        this.delegate = delegate;
+        this.dashScopeGateway = dashScopeGateway;
+        this.redisTemplate = redisTemplate;
+        this.modelName = modelName;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+                .build();
+        log.info("初始化查询向量缓存: model={}, maxSize={}, redis={}", modelName, maxSize, redisTemplate != null);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        String key = normalizeText(text);
+
+        short[] cached = localCache.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return toFloat32(cached);
+        }
+
+        String redisKey = redisTemplate != null ? REDIS_KEY_PREFIX + DigestUtil.sha256Hex(modelName + "\n" + key) : null;
+        if (redisKey != null) {
+            try {
+                Object value = redisTemplate.opsForValue().get(redisKey);
+                if (value instanceof byte[] bytes) {
+                    short[] halfs = fromBytes(bytes);
+                    redisHits.increment();
+                    localCache.put(key, halfs);
+                    return toFloat32(halfs);
+                }
+            } catch (Exception e) {
+                // Redis 不可用时退化为仅本地缓存
+                log.warn("读取查询向量缓存失败: {}", e.getMessage());
+            }
+        }
+
+        misses.increment();
+        long start = System.nanoTime();
+        float[] vector = dashScopeGateway.execute(DashScopeApiEnum.EMBEDDING, key, () -> delegate.embed(text));
+        missNanos.add(System.nanoTime() - start);
+
+        short[] halfs = toFloat16(vector);
+        localCache.put(key, halfs);
+        if (redisKey != null) {
+            try {
+                redisTemplate.opsForValue().set(redisKey, toBytes(halfs), REDIS_TTL_DAYS, TimeUnit.DAYS);
+            } catch (Exception e) {
+                log.warn("写入查询向量缓存失败: {}", e.getMessage());
+            }
+        }
+        return vector;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return dashScopeGateway.execute(DashScopeApiEnum.EMBEDDING, () -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return dashScopeGateway.execute(DashScopeApiEnum.EMBEDDING, () -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public String getCacheStats() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long miss = misses.sum();
+        long total = local + redis + miss;
+        double avgMissMillis = miss == 0 ? 0.0 : missNanos.sum() / 1_000_000.0 / miss;
+        return String.format("查询向量缓存统计 - 命中率: %.2f%%, 本地命中: %d, Redis命中: %d, 未命中: %d, " +
+                        "单次向量化平均耗时: %.1fms, 累计节省: %.1fs, 本地缓存数: %d",
+                total == 0 ? 0.0 : (local + redis) * 100.0 / total,
+                local,
+                redis,
+                miss,
+                avgMissMillis,
+                (local + redis) * avgMissMillis / 1000,
+                localCache.estimatedSize());
+    }
+
+    /**
+     * 规范化查询文本：全角转半角、合并空白、忽略大小写
+     */
+    private static String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static short[] toFloat16(float[] vector) {
+        short[] halfs = new short[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            halfs[i] = Float.floatToFloat16(vector[i]);
+        }
+        return halfs;
+    }
+
+    private static float[] toFloat32(short[] halfs) {
+        float[] vector = new float[halfs.length];
+        for (int i = 0; i < halfs.length; i++) {
+            vector[i] = Float.float16ToFloat(halfs[i]);
+        }
+        return vector;
+    }
+
+    private static byte[] toBytes(short[] halfs) {
+        ByteBuffer buffer = ByteBuffer.allocate(halfs.length * Short.BYTES);
+        buffer.asShortBuffer().put(halfs);
+        return buffer.array();
+    }
+
+    private static short[] fromBytes(byte[] bytes) {
+        short[] halfs = new short[bytes.length / Short.BYTES];
+        ByteBuffer.wrap(bytes).asShortBuffer().get(halfs);
+        return halfs;
+    }
+}
@@ -0,0 +1,417 @@
+package com.zyb.backend.manager;
+
+import com.zyb.backend.common.exception.BusinessException;
+import com.zyb.backend.common.response.ResultCode;
+import com.zyb.backend.model.enums.DashScopeApiEnum;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DashScope 调用网关
+ * 大模型、向量化、语音合成、声音复刻共用同一个账号，所有调用经由这里统一限流和重试：
+ * 1. 每类接口一个令牌桶限制请求速率，一个信号量限制同时在途的请求数
+ * 2. 限流（429）或临时故障时按带抖动的指数退避重试，收到限流时清空令牌桶，让同类请求一起放慢；
+ *    非幂等调用（如创建音色，每次调用都会新建并计费）只在限流时重试，超时等临时故障可能已在服务端生效，不重试
+ * 3. 带 key 的调用会合并相同的在途请求，只真正调用一次，结果共享给所有等待方
+ * 4. 按接口类别记录排队等待和调用耗时直方图
+ */
+@Slf4j
+@Component
+public class DashScopeGateway {
+
+    private static final String CONFIG_PREFIX = "voiceKeeper.dashscope.";
+
+    @Resource
+    private Environment environment;
+
+    /**
+     * 最大尝试次数（含首次调用）
+     */
+    @Value("${voiceKeeper.dashscope.max-attempts:4}")
+    private int maxAttempts;
+
+    /**
+     * 退避基础间隔（毫秒），第 n 次重试的间隔上限为 base * 2^(n-1)
+     */
+    @Value("${voiceKeeper.dashscope.backoff-base-ms:500}")
+    private long backoffBaseMillis;
+
+    /**
+     * 退避最大间隔（毫秒）
+     */
+    @Value("${voiceKeeper.dashscope.backoff-max-ms:10000}")
+    private long backoffMaxMillis;
+
+    /**
+     * 单次尝试排队等待的最长时间（毫秒），超时视为网关繁忙
+     */
+    @Value("${voiceKeeper.dashscope.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMillis;
+
+    private final Map<DashScopeApiEnum, ApiLimiter> limiters = new EnumMap<>(DashScopeApiEnum.class);
+
+    /**
+     * 在途的可合并请求
+     */
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 不应重试的异常，调用方用它包装已产生副作用的失败（如流式输出已推送部分内容）
+     */
+    public static class NonRetryableException extends RuntimeException {
+
+        public NonRetryableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        limiters.put(DashScopeApiEnum.LLM, createLimiter(DashScopeApiEnum.LLM, 5, 10, 20));
+        limiters.put(DashScopeApiEnum.EMBEDDING, createLimiter(DashScopeApiEnum.EMBEDDING, 20, 40, 10));
+        limiters.put(DashScopeApiEnum.TTS, createLimiter(DashScopeApiEnum.TTS, 3, 5, 10));
+        limiters.put(DashScopeApiEnum.ENROLLMENT, createLimiter(DashScopeApiEnum.ENROLLMENT, 2, 5, 4));
+    }
+
+    /**
+     * 执行调用（不合并）
+     */
+    public <T> T execute(DashScopeApiEnum api, Callable<T> call) {
+        return execute(api, null, call);
+    }
+
+    /**
+     * 执行非幂等调用（不合并）
+     * 只在限流（429，请求未被受理）时重试；超时、网络错误等临时故障可能是响应丢失而服务端已执行，直接失败
+     */
+    public <T> T executeNonIdempotent(DashScopeApiEnum api, Callable<T> call) {
+        ApiLimiter limiter = limiters.get(api);
+        limiter.requests.increment();
+        return executeWithRetry(limiter, call, false);
+    }
+
+    /**
+     * 执行调用
+     *
+     * @param api  接口类别
+     * @param key  合并键，相同类别、相同键的在途请求只调用一次；为 null 时不合并
+     * @param call 实际调用，失败时按异常类型决定是否重试
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(DashScopeApiEnum api, String key, Callable<T> call) {
+        ApiLimiter limiter = limiters.get(api);
+        limiter.requests.increment();
+        if (key == null) {
+            return executeWithRetry(limiter, call, true);
+        }
+
+        String inFlightKey = api.getValue() + ":" + key;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(inFlightKey, future);
+        if (existing != null) {
+            limiter.coalesced.increment();
+            return (T) await(existing);
+        }
+        try {
+            T result = executeWithRetry(limiter, call, true);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Error 也要通知合并等待方，否则它们会一直阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(inFlightKey, future);
+        }
+    }
+
+    /**
+     * 获取网关统计信息：每类接口的并发、排队、重试计数，以及排队等待和调用耗时直方图
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        limiters.forEach((api, limiter) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ratePerSecond", limiter.ratePerSecond);
+            stats.put("active", limiter.maxConcurrency - limiter.permits.availablePermits());
+            stats.put("maxConcurrency", limiter.maxConcurrency);
+            stats.put("waiting", limiter.waiting.get());
+            stats.put("requests", limiter.requests.sum());
+            stats.put("coalesced", limiter.coalesced.sum());
+            stats.put("retries", limiter.retries.sum());
+            stats.put("throttled", limiter.throttled.sum());
+            stats.put("failures", limiter.failures.sum());
+            stats.put("queueWait", limiter.queueWait.snapshot());
+            stats.put("latency", limiter.latency.snapshot());
+            result.put(api.getValue(), stats);
+        });
+        return result;
+    }
+
+    /**
+     * @param idempotent 是否幂等，非幂等调用只在限流时重试
+     */
+    private <T> T executeWithRetry(ApiLimiter limiter, Callable<T> call, boolean idempotent) {
+        for (int attempt = 1; ; attempt++) {
+            acquire(limiter);
+            long start = System.nanoTime();
+            long delay;
+            try {
+                return call.call();
+            } catch (Exception e) {
+                FailureType type = classify(e);
+                if (type == FailureType.THROTTLED) {
+                    limiter.throttled.increment();
+                    limiter.bucket.drain();
+                }
+                if (type == FailureType.FATAL || (type == FailureType.TRANSIENT && !idempotent)
+                        || attempt >= maxAttempts) {
+                    limiter.failures.increment();
+                    throw e instanceof RuntimeException runtimeException
+                            ? runtimeException
+                            : new IllegalStateException(e.getMessage(), e);
+                }
+                limiter.retries.increment();
+                delay = backoffMillis(attempt);
+                log.warn("DashScope {} 调用失败，{}ms 后重试 (第 {}/{} 次): {}",
+                        limiter.api.getText(), delay, attempt, maxAttempts - 1, e.getMessage());
+            } finally {
+                limiter.latency.record(System.nanoTime() - start);
+                limiter.permits.release();
+            }
+            // 退避等待前已归还许可，等待期间不占用并发额度，也不计入调用耗时
+            sleep(delay);
+        }
+    }
+
+    /**
+     * 获取并发许可和速率令牌，排队时间计入等待直方图
+     * 先拿许可再拿令牌，避免令牌被尚在排队的请求提前消耗
+     */
+    private void acquire(ApiLimiter limiter) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        limiter.waiting.incrementAndGet();
+        try {
+            if (!limiter.permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw busy(limiter);
+            }
+            long waitNanos = limiter.bucket.tryReserve(deadline - System.nanoTime());
+            if (waitNanos < 0) {
+                limiter.permits.release();
+                throw busy(limiter);
+            }
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    limiter.permits.release();
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "DashScope 调用等待被中断");
+        } finally {
+            limiter.waiting.decrementAndGet();
+            limiter.queueWait.record(System.nanoTime() - start);
+        }
+    }
+
+    private BusinessException busy(ApiLimiter limiter) {
+        limiter.failures.increment();
+        return new BusinessException(ResultCode.SYSTEM_ERROR, limiter.api.getText() + "服务繁忙，请稍后重试");
+    }
+
+    /**
+     * 带抖动的指数退避：在 [上限/2, 上限] 之间随机，避免同时失败的请求同时重试
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(attempt - 1, 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "DashScope 重试等待被中断");
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "DashScope 调用等待被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private enum FailureType {
+        THROTTLED, TRANSIENT, FATAL
+    }
+
+    /**
+     * 判断失败类型：沿异常链查找限流、5xx、超时和网络错误，其余视为不可重试
+     */
+    private static FailureType classify(Throwable error) {
+        FailureType type = FailureType.FATAL;
+        for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof NonRetryableException || e instanceof BusinessException) {
+                return FailureType.FATAL;
+            }
+            if (e instanceof RestClientResponseException responseException) {
+                int status = responseException.getStatusCode().value();
+                if (status == 429) {
+                    return FailureType.THROTTLED;
+                }
+                if (status >= 500) {
+                    type = FailureType.TRANSIENT;
+                }
+            }
+            String message = e.getMessage() == null ? "" : e.getMessage().toLowerCase(Locale.ROOT);
+            if (message.contains("429") || message.contains("throttl") || message.contains("ratequota")
+                    || message.contains("rate limit")) {
+                return FailureType.THROTTLED;
+            }
+            if (e instanceof TransientAiException || e instanceof IOException || e instanceof TimeoutException
+                    || message.contains("timeout") || message.contains("timed out")
+                    || message.contains("502") || message.contains("503") || message.contains("504")) {
+                type = FailureType.TRANSIENT;
+            }
+        }
+        return type;
+    }
+
+    private ApiLimiter createLimiter(DashScopeApiEnum api, double defaultRate, int defaultBurst, int defaultConcurrency) {
+        String prefix = CONFIG_PREFIX + api.getValue() + ".";
+        double rate = environment.getProperty(prefix + "rate-per-second", Double.class, defaultRate);
+        int burst = environment.getProperty(prefix + "burst", Integer.class, defaultBurst);
+        int concurrency = environment.getProperty(prefix + "max-concurrency", Integer.class, defaultConcurrency);
+        log.info("初始化 DashScope 限流: 接口={}, 速率={}/s, 突发={}, 最大并发={}", api.getValue(), rate, burst, concurrency);
+        return new ApiLimiter(api, rate, burst, concurrency);
+    }
+
+    /**
+     * 单类接口的限流状态
+     */
+    private static final class ApiLimiter {
+
+        private final DashScopeApiEnum api;
+
+        private final double ratePerSecond;
+
+        private final int maxConcurrency;
+
+        private final TokenBucket bucket;
+
+        private final Semaphore permits;
+
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder coalesced = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+
+        private final LongAdder throttled = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private ApiLimiter(DashScopeApiEnum api, double ratePerSecond, int burst, int maxConcurrency) {
+            this.api = api;
+            this.ratePerSecond = ratePerSecond;
+            this.maxConcurrency = maxConcurrency;
+            this.bucket = new TokenBucket(ratePerSecond, burst);
+            this.permits = new Semaphore(maxConcurrency, true);
+        }
+    }
+
+    /**
+     * 令牌桶
+     * 令牌不足时预支（令牌数记为负），返回需要等待的时间，调用方在桶外休眠
+     */
+    static final class TokenBucket {
+
+        private final double tokensPerNano;
+
+        private final double capacity;
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond, int capacity) {
+            this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * 预支一个令牌
+         *
+         * @return 需要等待的纳秒数；等待时间超过 maxWaitNanos 时不预支并返回 -1
+         */
+        synchronized long tryReserve(long maxWaitNanos) {
+            refill();
+            double remaining = tokens - 1;
+            long waitNanos = remaining >= 0 ? 0 : (long) Math.ceil(-remaining / tokensPerNano);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+            tokens = remaining;
+            return waitNanos;
+        }
+
+        /**
+         * 清空剩余令牌（已预支的不受影响）
+         */
+        synchronized void drain() {
+            refill();
+            tokens = Math.min(tokens, 0);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.zyb.backend.manager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定分桶的耗时直方图
+ * 分桶上界按毫秒划分，记录只做一次数组下标定位和 LongAdder 累加，适合高并发下的热路径
+ * 分位数取所在分桶的上界（不超过观测到的最大值），是偏保守的估计值
+ */
+public class LatencyHistogram {
+
+    /**
+     * 分桶上界（毫秒），最后一个分桶收纳所有更大的值
+     */
+    private static final long[] BOUNDS_MILLIS = {
+            1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MILLIS.length + 1];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int index = 0;
+        while (index < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 估算分位数（毫秒）
+     *
+     * @param quantile 0-1 之间，如 0.95
+     */
+    public long percentileMillis(double quantile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MILLIS[i], maxNanos.get() / 1_000_000 + 1);
+            }
+        }
+        return maxNanos.get() / 1_000_000;
+    }
+
+    /**
+     * 导出统计快照：次数、平均值、分位数和各分桶计数
+     */
+    public Map<String, Object> snapshot() {
+        long total = count.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", total);
+        result.put("avgMillis", total == 0 ? 0.0 : Math.round(totalNanos.sum() / 1_000.0 / total) / 1_000.0);
+        result.put("p50Millis", percentileMillis(0.50));
+        result.put("p95Millis", percentileMillis(0.95));
+        result.put("p99Millis", percentileMillis(0.99));
+        result.put("maxMillis", maxNanos.get() / 1_000_000);
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            histogram.put("<=" + BOUNDS_MILLIS[i] + "ms", buckets[i].sum());
+        }
+        histogram.put(">" + BOUNDS_MILLIS[BOUNDS_MILLIS.length - 1] + "ms", buckets[BOUNDS_MILLIS.length].sum());
+        result.put("buckets", histogram);
+        return result;
+    }
+}
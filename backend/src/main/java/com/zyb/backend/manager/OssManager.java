@@ -1,13 +1,17 @@
 package com.zyb.backend.manager;
 
 import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.ObjectMetadata;
 import com.aliyun.oss.model.PutObjectRequest;
 import com.aliyun.oss.model.PutObjectResult;
 import jakarta.annotation.Resource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * 阿里云 OSS 操作
@@ -28,4 +32,42 @@ public class OssManager {
         PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, file);
         return ossClient.putObject(putObjectRequest);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 上传对象（输入流）
+     * 长度未知时以分块传输编码边读边传，不需要先写临时文件
+     *
+     * @param contentType 内容类型，可为 null
+     */
+    public PutObjectResult putObject(String key, InputStream inputStream, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+        PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, inputStream, metadata);
+        return ossClient.putObject(putObjectRequest);
+    }
+
+    /**
+     * 上传对象（内存缓冲区）
+     *
+     * @param contentType 内容类型，可为 null
+     */
+    public PutObjectResult putObject(String key, ByteBuffer buffer, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(buffer.remaining());
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+        InputStream inputStream;
+        if (buffer.hasArray()) {
+            inputStream = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            inputStream = new ByteArrayInputStream(bytes);
+        }
+        PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, inputStream, metadata);
+        return ossClient.putObject(putObjectRequest);
+    }
+}
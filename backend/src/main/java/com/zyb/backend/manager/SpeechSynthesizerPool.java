@@ -0,0 +1,174 @@
+package com.zyb.backend.manager;
+
+import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 语音合成器对象池
+ * 工作原理：
+ * 1. SpeechSynthesizer 持有一条 WebSocket 连接，归还后连接保持打开，下次借出直接复用，省去握手
+ * 2. 按模型分组，音色、情感等参数在每次借出后通过 updateParamAndCallback 重新设置，
+ *    不按音色分组，避免音色多时空闲连接成倍增加
+ * 3. 调用失败的合成器直接销毁（关闭连接），不放回池中；空闲过久的连接由后台驱逐
+ */
+@Slf4j
+@Component
+public class SpeechSynthesizerPool {
+
+    @Value("${voiceKeeper.voice.cosy-voice.model:cosyvoice-v3}")
+    private String defaultModel;
+
+    /**
+     * 每个模型的最大连接数
+     */
+    @Value("${voiceKeeper.voice.synthesizer-pool.max-per-model:10}")
+    private int maxPerModel;
+
+    /**
+     * 每个模型保持的最少空闲连接数
+     */
+    @Value("${voiceKeeper.voice.synthesizer-pool.min-idle-per-model:2}")
+    private int minIdlePerModel;
+
+    /**
+     * 连接耗尽时借出的最长等待时间（毫秒）
+     */
+    @Value("${voiceKeeper.voice.synthesizer-pool.max-wait-ms:10000}")
+    private long maxWaitMillis;
+
+    /**
+     * 空闲超过该时长的连接会被驱逐（秒）
+     */
+    @Value("${voiceKeeper.voice.synthesizer-pool.idle-timeout-seconds:60}")
+    private long idleTimeoutSeconds;
+
+    private GenericKeyedObjectPool<String, SpeechSynthesizer> pool;
+
+    /**
+     * 借出的合成器，归还或销毁只生效一次
+     */
+    public final class Lease {
+
+        private final String model;
+
+        private final SpeechSynthesizer synthesizer;
+
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+
+        private Lease(String model, SpeechSynthesizer synthesizer) {
+            this.model = model;
+            this.synthesizer = synthesizer;
+        }
+
+        public SpeechSynthesizer getSynthesizer() {
+            return synthesizer;
+        }
+
+        /**
+         * 调用成功后归还，连接留给下次复用
+         */
+        public void release() {
+            if (returned.compareAndSet(false, true)) {
+                try {
+                    pool.returnObject(model, synthesizer);
+                } catch (Exception e) {
+                    log.warn("归还语音合成器失败: {}", e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * 调用失败或被中途取消时销毁，关闭连接
+         */
+        public void invalidate() {
+            if (returned.compareAndSet(false, true)) {
+                try {
+                    pool.invalidateObject(model, synthesizer);
+                } catch (Exception e) {
+                    log.warn("销毁语音合成器失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        GenericKeyedObjectPoolConfig<SpeechSynthesizer> config = new GenericKeyedObjectPoolConfig<>();
+        config.setMaxTotalPerKey(maxPerModel);
+        config.setMaxIdlePerKey(maxPerModel);
+        config.setMinIdlePerKey(minIdlePerModel);
+        config.setMaxWait(Duration.ofMillis(maxWaitMillis));
+        config.setMinEvictableIdleDuration(Duration.ofSeconds(idleTimeoutSeconds));
+        config.setTimeBetweenEvictionRuns(Duration.ofSeconds(Math.max(1, idleTimeoutSeconds / 2)));
+        config.setJmxEnabled(false);
+        pool = new GenericKeyedObjectPool<>(new SynthesizerFactory(), config);
+        try {
+            pool.preparePool(defaultModel);
+        } catch (Exception e) {
+            log.warn("预热语音合成器失败: {}", e.getMessage());
+        }
+        log.info("初始化语音合成器对象池: 模型={}, 每模型最大={}, 最少空闲={}", defaultModel, maxPerModel, minIdlePerModel);
+    }
+
+    /**
+     * 借出合成器，池满时等待
+     */
+    public Lease borrow(String model) throws Exception {
+        return new Lease(model, pool.borrowObject(model));
+    }
+
+    /**
+     * 获取对象池统计信息
+     */
+    public String getStats() {
+        return String.format("语音合成器对象池 - 借出中: %d, 空闲: %d, 已创建: %d, 已销毁: %d, 平均借出等待: %dms",
+                pool.getNumActive(),
+                pool.getNumIdle(),
+                pool.getCreatedCount(),
+                pool.getDestroyedCount(),
+                pool.getMeanBorrowWaitDuration().toMillis());
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.close();
+    }
+
+    private static class SynthesizerFactory extends BaseKeyedPooledObjectFactory<String, SpeechSynthesizer> {
+
+        @Override
+        public SpeechSynthesizer create(String model) {
+            // 连接在首次调用时建立，之后随对象复用
+            return new SpeechSynthesizer();
+        }
+
+        @Override
+        public PooledObject<SpeechSynthesizer> wrap(SpeechSynthesizer synthesizer) {
+            return new DefaultPooledObject<>(synthesizer);
+        }
+
+        @Override
+        public void destroyObject(String model, PooledObject<SpeechSynthesizer> pooled) {
+            SpeechSynthesizer synthesizer = pooled.getObject();
+            try {
+                if (synthesizer.getDuplexApi() != null) {
+                    synthesizer.getDuplexApi().close(1000, "bye");
+                }
+            } catch (Exception e) {
+                log.debug("关闭语音合成连接失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.zyb.backend.manager;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语音合成结果缓存
+ * 工作原理：
+ * 1. 以（音色ID、规范化文本、情感、语速、音调）的哈希作为键，值为已上传音频的 OSS 地址
+ * 2. 本地 Caffeine 为一级缓存，Redis 为多实例共享的二级缓存
+ * 3. 命中时直接复用已有音频，省去一次付费合成和一次 OSS 上传
+ */
+@Slf4j
+@Component
+public class SynthesisCacheManager {
+
+    private static final String REDIS_KEY_PREFIX = "voiceKeeper:synthesis:";
+
+    /**
+     * Redis 缓存有效期（天）
+     */
+    private static final long REDIS_TTL_DAYS = 7;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final Cache<String, String> localCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(1, TimeUnit.DAYS)
+            .build();
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder redisHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 计算缓存键
+     */
+    public String buildKey(String voiceId, String text, String emotion, Float speechRate, Float pitchRate) {
+        String raw = String.join("\n",
+                voiceId,
+                normalizeText(text),
+                emotion == null ? "" : emotion,
+                speechRate == null ? "" : speechRate.toString(),
+                pitchRate == null ? "" : pitchRate.toString());
+        return DigestUtil.sha256Hex(raw);
+    }
+
+    /**
+     * 查询已合成的音频地址
+     *
+     * @return 未命中时返回 null
+     */
+    public String get(String key) {
+        String url = localCache.getIfPresent(key);
+        if (url != null) {
+            localHits.increment();
+            return url;
+        }
+        try {
+            Object cached = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key);
+            if (cached instanceof String redisUrl) {
+                redisHits.increment();
+                localCache.put(key, redisUrl);
+                return redisUrl;
+            }
+        } catch (Exception e) {
+            // Redis 不可用时退化为仅本地缓存
+            log.warn("读取合成缓存失败: {}", e.getMessage());
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 记录合成结果
+     */
+    public void put(String key, String url) {
+        localCache.put(key, url);
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, url, REDIS_TTL_DAYS, TimeUnit.DAYS);
+        } catch (Exception e) {
+            log.warn("写入合成缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public String getCacheStats() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long miss = misses.sum();
+        long total = local + redis + miss;
+        return String.format("合成缓存统计 - 命中率: %.2f%%, 本地命中: %d, Redis命中: %d, 未命中: %d, 本地缓存数: %d",
+                total == 0 ? 0.0 : (local + redis) * 100.0 / total,
+                local,
+                redis,
+                miss,
+                localCache.estimatedSize());
+    }
+
+    /**
+     * 规范化文本：全角转半角、合并空白，避免仅空白差异导致缓存未命中
+     */
+    private static String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,67 @@
+package com.zyb.backend.manager;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 向量索引一致性标记
+ * 全量索引成功后写入，表示此后的卡片变更都由事件流增量同步，启动时可以跳过全量索引；
+ * 任何可能丢失变更事件的情况（发布失败、事件被裁剪、消息进入死信）都要清除，下次启动重新全量索引
+ */
+@Slf4j
+@Component
+public class VectorIndexConsistencyManager {
+
+    private static final String CONSISTENT_KEY_PREFIX = "voiceKeeper:vector:consistent:";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${spring.ai.vectorstore.elasticsearch.index-name}")
+    private String indexName;
+
+    /**
+     * 索引是否已与数据库一致
+     */
+    public boolean isConsistent() {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(consistentKey()));
+        } catch (Exception e) {
+            log.warn("读取索引一致性标记失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 标记索引已与数据库一致
+     */
+    public void markConsistent() {
+        try {
+            stringRedisTemplate.opsForValue().set(consistentKey(), String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("写入索引一致性标记失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清除索引一致性标记
+     *
+     * @param reason 清除原因，记录日志
+     */
+    public void clear(String reason) {
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.delete(consistentKey()))) {
+                log.warn("已清除索引一致性标记，下次启动将全量索引: reason={}", reason);
+            }
+        } catch (Exception e) {
+            log.warn("清除索引一致性标记失败: reason={}, error={}", reason, e.getMessage());
+        }
+    }
+
+    private String consistentKey() {
+        return CONSISTENT_KEY_PREFIX + indexName;
+    }
+}
@@ -0,0 +1,125 @@
+package com.zyb.backend.manager;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 声音卡片变更事件发布
+ * 卡片新增、修改、删除后写入 Redis Stream，由 VoiceCardIndexSyncService 消费并同步到向量索引
+ * 事件发布失败或被裁剪掉时索引会缺失这次变更，此时清除索引一致性标记，下次启动全量索引修正
+ */
+@Slf4j
+@Component
+public class VoiceCardChangePublisher {
+
+    public static final String STREAM_KEY = "voiceKeeper:stream:card-changes";
+
+    public static final String FIELD_OP = "op";
+
+    public static final String FIELD_CARD_ID = "cardId";
+
+    public static final String OP_UPSERT = "upsert";
+
+    public static final String OP_DELETE = "delete";
+
+    /**
+     * 消费者组名称
+     */
+    public static final String GROUP = "vector-index";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private VectorIndexConsistencyManager vectorIndexConsistencyManager;
+
+    /**
+     * Stream 最大长度（近似裁剪），防止消费者长期停摆时无限增长
+     */
+    @Value("${voiceKeeper.vector.sync.stream-max-length:100000}")
+    private long streamMaxLength;
+
+    /**
+     * 卡片新增或修改
+     */
+    public void publishUpsert(Long cardId) {
+        publish(OP_UPSERT, cardId);
+    }
+
+    /**
+     * 卡片删除
+     */
+    public void publishDelete(Long cardId) {
+        publish(OP_DELETE, cardId);
+    }
+
+    private void publish(String op, Long cardId) {
+        if (cardId == null) {
+            return;
+        }
+        try {
+            MapRecord<String, String, String> record = StreamRecords.newRecord()
+                    .in(STREAM_KEY)
+                    .ofMap(Map.of(FIELD_OP, op, FIELD_CARD_ID, cardId.toString()));
+            StreamOperations<String, String, String> ops = stringRedisTemplate.opsForStream();
+            ops.add(record);
+            Long trimmed = ops.trim(STREAM_KEY, streamMaxLength, true);
+            if (trimmed != null && trimmed > 0 && trimmedUnconsumed(ops)) {
+                vectorIndexConsistencyManager.clear("变更事件未消费即被裁剪");
+            }
+        } catch (Exception e) {
+            // 发布失败不影响主流程，清除一致性标记，下次启动全量索引修正
+            log.error("发布卡片变更事件失败: op={}, cardId={}, error={}", op, cardId, e.getMessage());
+            vectorIndexConsistencyManager.clear("发布卡片变更事件失败");
+        }
+    }
+
+    /**
+     * 裁剪是否可能丢掉了未消费的事件
+     * 裁剪掉的都是比剩余第一条更早的事件，只要消费者组还有更早的待确认事件，或者还没有读到剩余第一条之前，
+     * 就可能有事件没被处理。消费者恰好读到被裁剪的最后一条时也会判定为丢失，宁可多一次全量索引
+     */
+    private boolean trimmedUnconsumed(StreamOperations<String, String, String> ops) {
+        List<MapRecord<String, String, String>> first = ops.range(STREAM_KEY, Range.unbounded(), Limit.limit().count(1));
+        if (first == null || first.isEmpty()) {
+            return false;
+        }
+        String firstId = first.get(0).getId().getValue();
+        StreamInfo.XInfoGroup group = ops.groups(STREAM_KEY).stream()
+                .filter(g -> GROUP.equals(g.groupName()))
+                .findFirst()
+                .orElse(null);
+        if (group == null || compareIds(group.lastDeliveredId(), firstId) < 0) {
+            return true;
+        }
+        PendingMessagesSummary pending = ops.pending(STREAM_KEY, GROUP);
+        return pending != null && pending.getTotalPendingMessages() > 0
+                && compareIds(pending.minMessageId(), firstId) < 0;
+    }
+
+    /**
+     * 比较两个 Stream 事件ID（毫秒时间戳-序号）
+     */
+    static int compareIds(String left, String right) {
+        String[] l = left.split("-");
+        String[] r = right.split("-");
+        int result = Long.compare(Long.parseLong(l[0]), Long.parseLong(r[0]));
+        if (result != 0) {
+            return result;
+        }
+        return Long.compare(l.length > 1 ? Long.parseLong(l[1]) : 0, r.length > 1 ? Long.parseLong(r[1]) : 0);
+    }
+}
@@ -0,0 +1,406 @@
+package com.zyb.backend.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zyb.backend.model.entity.VoiceModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 声音模型读穿透缓存
+ * 工作原理：
+ * 1. 本地 Caffeine 为一级缓存，Redis 为可选的多实例共享二级缓存，两级都未命中才查库
+ * 2. 按模型ID缓存实体，（用户ID、模型名称）只索引到模型ID，命中后再按ID取实体并校验名称，
+ *    改名或删除后残留的名称索引会被识别为未命中，不会返回错误的模型
+ * 3. 训练中的模型状态很快会变，不进缓存；写操作后由调用方显式失效
+ * 4. 本实例的失效立即生效，其他实例的一级缓存依赖较短的过期时间收敛
+ * 5. 失效时留下短期墓碑：失效前开始查库的读请求拿到的可能是旧数据，墓碑存在期间回填一律跳过，
+ *    Redis 中的回填与墓碑检查在同一个脚本里原子执行，避免旧数据在失效之后重新写回缓存
+ * 返回的是缓存实体的副本，调用方修改不会污染缓存
+ */
+@Slf4j
+@Component
+public class VoiceModelCacheManager {
+
+    private static final String REDIS_ID_KEY_PREFIX = "voiceKeeper:voiceModel:id:";
+
+    private static final String REDIS_NAME_KEY_PREFIX = "voiceKeeper:voiceModel:name:";
+
+    private static final String REDIS_TOMBSTONE_KEY_PREFIX = "voiceKeeper:voiceModel:evicted:";
+
+    /**
+     * 回填脚本：墓碑不存在时才写入实体和名称索引
+     * KEYS[1] 墓碑，KEYS[2] 实体，KEYS[3] 名称索引（可选）；ARGV[1] 实体，ARGV[2] 模型ID，ARGV[3] 过期秒数
+     */
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            redis.call('SET', KEYS[2], ARGV[1], 'EX', tonumber(ARGV[3]))
+            if #KEYS > 2 then
+                redis.call('SET', KEYS[3], ARGV[2], 'EX', tonumber(ARGV[3]))
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * 失效脚本：先写墓碑再删除实体
+     * KEYS[1..n] 墓碑，KEYS[n+1..2n] 实体；ARGV[1] 墓碑过期秒数
+     */
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>("""
+            local n = #KEYS / 2
+            for i = 1, n do
+                redis.call('SET', KEYS[i], '1', 'EX', tonumber(ARGV[1]))
+                redis.call('DEL', KEYS[n + i])
+            end
+            return n
+            """, Long.class);
+
+    /**
+     * 训练状态：1-训练中
+     */
+    private static final int STATUS_TRAINING = 1;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${voiceKeeper.voice.model-cache.max-size:10000}")
+    private long maxSize;
+
+    /**
+     * 一级缓存过期时间（秒），决定其他实例修改后本实例最长的不一致时间
+     */
+    @Value("${voiceKeeper.voice.model-cache.expire-seconds:60}")
+    private long expireSeconds;
+
+    @Value("${voiceKeeper.voice.model-cache.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${voiceKeeper.voice.model-cache.redis-ttl-minutes:30}")
+    private long redisTtlMinutes;
+
+    /**
+     * 失效墓碑保留时间（秒），需大于一次查库的最长耗时
+     */
+    @Value("${voiceKeeper.voice.model-cache.tombstone-seconds:10}")
+    private long tombstoneSeconds;
+
+    private Cache<Long, VoiceModel> byId;
+
+    /**
+     * 最近失效的模型ID
+     */
+    private Cache<Long, Boolean> tombstones;
+
+    /**
+     * 用户ID:模型名称 -> 模型ID
+     */
+    private Cache<String, Long> byName;
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder redisHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder skippedPuts = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+        byName = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+        tombstones = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(tombstoneSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 按ID查询
+     *
+     * @param loader 未命中时的查库逻辑
+     */
+    public VoiceModel getById(Long id, Function<Long, VoiceModel> loader) {
+        if (id == null) {
+            return null;
+        }
+        VoiceModel cached = getCached(id);
+        if (cached != null) {
+            return copy(cached);
+        }
+        misses.increment();
+        VoiceModel model = loader.apply(id);
+        put(model);
+        return copy(model);
+    }
+
+    /**
+     * 按（用户ID、模型名称）查询
+     *
+     * @param loader 未命中时的查库逻辑
+     */
+    public VoiceModel getByUserIdAndName(Long userId, String modelName, Supplier<VoiceModel> loader) {
+        if (userId == null || modelName == null) {
+            return null;
+        }
+        String nameKey = nameKey(userId, modelName);
+        Long id = byName.getIfPresent(nameKey);
+        if (id == null) {
+            id = redisGet(REDIS_NAME_KEY_PREFIX + nameKey, Long.class);
+        }
+        if (id != null) {
+            VoiceModel cached = getCached(id);
+            if (cached != null && userId.equals(cached.getUserId()) && modelName.equals(cached.getModelName())) {
+                return copy(cached);
+            }
+            // 名称索引已过时（改名、删除或实体已过期），按未命中处理
+            byName.invalidate(nameKey);
+        }
+        misses.increment();
+        VoiceModel model = loader.get();
+        put(model);
+        return copy(model);
+    }
+
+    /**
+     * 批量按ID查询，未命中的ID合并为一次查库
+     *
+     * @param loader 未命中ID的批量查库逻辑
+     * @return 模型ID -> 模型，不存在的ID不出现在结果中
+     */
+    public Map<Long, VoiceModel> getByIds(Collection<Long> ids, Function<Collection<Long>, List<VoiceModel>> loader) {
+        Map<Long, VoiceModel> result = new LinkedHashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            VoiceModel cached = byId.getIfPresent(id);
+            if (cached != null) {
+                localHits.increment();
+                result.put(id, copy(cached));
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty() && redisEnabled) {
+            List<Long> missingIds = new ArrayList<>(missing);
+            try {
+                List<Object> values = redisTemplate.opsForValue()
+                        .multiGet(missingIds.stream().map(id -> REDIS_ID_KEY_PREFIX + id).toList());
+                for (int i = 0; values != null && i < missingIds.size(); i++) {
+                    if (values.get(i) instanceof VoiceModel model) {
+                        redisHits.increment();
+                        putLocal(model.getId(), model);
+                        result.put(model.getId(), copy(model));
+                        missing.remove(model.getId());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("批量读取声音模型缓存失败: {}", e.getMessage());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            for (VoiceModel model : loader.apply(missing)) {
+                put(model);
+                result.put(model.getId(), copy(model));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 回填缓存，训练中的模型不缓存；模型刚被失效（墓碑存在）时跳过，查到的可能是失效前的旧数据
+     */
+    public void put(VoiceModel model) {
+        if (model == null || model.getId() == null || Objects.equals(model.getTrainingStatus(), STATUS_TRAINING)) {
+            return;
+        }
+        VoiceModel snapshot = copy(model);
+        if (!putLocal(snapshot.getId(), snapshot)) {
+            return;
+        }
+        String nameKey = snapshot.getUserId() != null && snapshot.getModelName() != null
+                ? nameKey(snapshot.getUserId(), snapshot.getModelName())
+                : null;
+        if (nameKey != null) {
+            byName.put(nameKey, snapshot.getId());
+        }
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>(3);
+            keys.add(REDIS_TOMBSTONE_KEY_PREFIX + snapshot.getId());
+            keys.add(REDIS_ID_KEY_PREFIX + snapshot.getId());
+            if (nameKey != null) {
+                keys.add(REDIS_NAME_KEY_PREFIX + nameKey);
+            }
+            Long written = redisTemplate.execute(PUT_SCRIPT, RedisSerializer.byteArray(), null, keys,
+                    valueSerializer().serialize(snapshot),
+                    valueSerializer().serialize(snapshot.getId()),
+                    toBytes(TimeUnit.MINUTES.toSeconds(redisTtlMinutes)));
+            if (written != null && written == 0) {
+                // 其他实例刚失效了该模型
+                skippedPuts.increment();
+                byId.invalidate(snapshot.getId());
+            }
+        } catch (Exception e) {
+            log.warn("写入声音模型缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 失效指定模型，名称索引在下次命中时校验后清除
+     */
+    public void evict(Long id) {
+        if (id != null) {
+            evict(List.of(id));
+        }
+    }
+
+    /**
+     * 批量失效
+     */
+    public void evict(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        // 先写墓碑再删除，并发回填要么在删除之前完成，要么能看到墓碑
+        ids.forEach(id -> tombstones.put(id, Boolean.TRUE));
+        byId.invalidateAll(ids);
+        evictions.add(ids.size());
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>(ids.size() * 2);
+            ids.forEach(id -> keys.add(REDIS_TOMBSTONE_KEY_PREFIX + id));
+            ids.forEach(id -> keys.add(REDIS_ID_KEY_PREFIX + id));
+            redisTemplate.execute(EVICT_SCRIPT, RedisSerializer.byteArray(), null, keys, toBytes(tombstoneSeconds));
+        } catch (Exception e) {
+            log.warn("删除声音模型缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public String getCacheStats() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long miss = misses.sum();
+        long total = local + redis + miss;
+        return String.format("声音模型缓存统计 - 命中率: %.2f%%, 本地命中: %d, Redis命中: %d, 查库: %d, 失效: %d, 跳过回填: %d, 本地缓存数: %d",
+                total == 0 ? 0.0 : (local + redis) * 100.0 / total,
+                local,
+                redis,
+                miss,
+                evictions.sum(),
+                skippedPuts.sum(),
+                byId.estimatedSize());
+    }
+
+    private VoiceModel getCached(Long id) {
+        VoiceModel cached = byId.getIfPresent(id);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        cached = redisGet(REDIS_ID_KEY_PREFIX + id, VoiceModel.class);
+        if (cached != null) {
+            redisHits.increment();
+            putLocal(id, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * 写入一级缓存，墓碑存在时跳过
+     * 写入后再检查一次墓碑：与失效并发时，要么失效在写入之后执行，要么这里能看到墓碑
+     *
+     * @return 是否写入
+     */
+    private boolean putLocal(Long id, VoiceModel model) {
+        if (tombstones.getIfPresent(id) != null) {
+            skippedPuts.increment();
+            return false;
+        }
+        byId.put(id, model);
+        if (tombstones.getIfPresent(id) != null) {
+            byId.invalidate(id);
+            skippedPuts.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private <T> T redisGet(String key, Class<T> type) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            Object value = redisTemplate.opsForValue().get(key);
+            return type.isInstance(value) ? type.cast(value) : null;
+        } catch (Exception e) {
+            // Redis 不可用时退化为仅本地缓存
+            log.warn("读取声音模型缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+
+    private static byte[] toBytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String nameKey(Long userId, String modelName) {
+        return userId + ":" + modelName;
+    }
+
+    private static VoiceModel copy(VoiceModel model) {
+        if (model == null) {
+            return null;
+        }
+        VoiceModel copy = new VoiceModel();
+        BeanUtils.copyProperties(model, copy);
+        return copy;
+    }
+}
@@ -0,0 +1,297 @@
+package com.zyb.backend.manager;
+
+import cn.hutool.core.util.IdUtil;
+import com.zyb.backend.mapper.CounterFlushBatchMapper;
+import com.zyb.backend.mapper.VoiceCardMapper;
+import com.zyb.backend.mapper.VoiceModelMapper;
+import com.zyb.backend.model.enums.CounterTypeEnum;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 播放、分享、使用次数的写回计数器
+ * 工作原理：
+ * 1. 计数时只对 Redis Hash 做一次 HINCRBY，不读库、不整行更新，并发计数不会丢失
+ * 2. 最后播放时间记在本地内存，同一卡片只保留最新的时间
+ * 3. 定时任务把增量按列批量写回：每批一条 UPDATE ... SET playCount = playCount + CASE id ... END
+ * 4. 写回前把计数 Hash 原子改名为待写回 Hash，改名后的新计数写入新的 Hash，互不干扰；
+ *    写库失败时待写回 Hash 保留，下一轮优先重试，不会丢计数
+ * 5. 待写回 Hash 带一个批次ID，批次ID与增量在同一事务中写入 counter_flush_batch；
+ *    写库成功但删除待写回 Hash 失败（或进程在两步之间退出）时，下一轮发现批次已写回，直接删除，不会重复累加
+ * 6. 多实例部署时通过 Redis 锁保证同一时刻只有一个实例写回计数
+ * Redis 不可用时退化为直接写库。数据库中的计数最多滞后一个写回周期
+ */
+@Slf4j
+@Component
+public class WriteBehindCounterManager {
+
+    private static final String COUNTER_KEY_PREFIX = "voiceKeeper:counter:";
+
+    private static final String FLUSHING_SUFFIX = ":flushing";
+
+    /**
+     * 待写回 Hash 中保存批次ID的字段，不会与卡片ID冲突
+     */
+    private static final String BATCH_ID_FIELD = "batchId";
+
+    private static final String LOCK_KEY = "voiceKeeper:counter:flush-lock";
+
+    private static final Duration LOCK_TTL = Duration.ofSeconds(60);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private VoiceCardMapper voiceCardMapper;
+
+    @Resource
+    private VoiceModelMapper voiceModelMapper;
+
+    @Resource
+    private CounterFlushBatchMapper counterFlushBatchMapper;
+
+    @Resource
+    private VoiceModelCacheManager voiceModelCacheManager;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 每条 UPDATE 最多包含的行数
+     */
+    @Value("${voiceKeeper.counter.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 已写回批次记录的保留天数
+     */
+    @Value("${voiceKeeper.counter.batch-retention-days:7}")
+    private int batchRetentionDays;
+
+    /**
+     * 卡片ID -> 最后播放时间（毫秒）
+     */
+    private final Map<Long, Long> lastPlayTimes = new ConcurrentHashMap<>();
+
+    /**
+     * 本实例的锁标识
+     */
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private final LongAdder buffered = new LongAdder();
+
+    private final LongAdder flushed = new LongAdder();
+
+    private final LongAdder directWrites = new LongAdder();
+
+    private final LongAdder flushFailures = new LongAdder();
+
+    private final LongAdder duplicateBatches = new LongAdder();
+
+    /**
+     * 计数加一
+     */
+    public void increment(CounterTypeEnum type, Long id) {
+        if (id == null) {
+            return;
+        }
+        if (type == CounterTypeEnum.PLAY) {
+            lastPlayTimes.merge(id, System.currentTimeMillis(), Math::max);
+        }
+        try {
+            stringRedisTemplate.opsForHash().increment(counterKey(type), id.toString(), 1);
+            buffered.increment();
+        } catch (Exception e) {
+            // Redis 不可用时直接写库，不丢计数
+            log.warn("计数写入 Redis 失败，直接写库: type={}, id={}, error={}", type.getValue(), id, e.getMessage());
+            directWrites.increment();
+            Map<Long, Long> deltas = Map.of(id, 1L);
+            applyDeltas(type, deltas);
+            evictCaches(type, deltas);
+        }
+    }
+
+    /**
+     * 定时写回
+     */
+    @Scheduled(fixedDelayString = "${voiceKeeper.counter.flush-interval-ms:5000}")
+    public void flush() {
+        flushLastPlayTimes();
+
+        Boolean locked;
+        try {
+            locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, instanceId, LOCK_TTL);
+        } catch (Exception e) {
+            log.warn("获取计数写回锁失败: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            for (CounterTypeEnum type : CounterTypeEnum.values()) {
+                flushCounter(type);
+            }
+        } finally {
+            if (instanceId.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                stringRedisTemplate.delete(LOCK_KEY);
+            }
+        }
+    }
+
+    /**
+     * 清理过期的写回批次记录
+     */
+    @Scheduled(cron = "${voiceKeeper.counter.batch-cleanup-cron:0 30 3 * * ?}")
+    public void cleanupFlushBatches() {
+        try {
+            Date before = new Date(System.currentTimeMillis() - Duration.ofDays(batchRetentionDays).toMillis());
+            int deleted = counterFlushBatchMapper.deleteBefore(before);
+            log.info("清理写回批次记录: deleted={}", deleted);
+        } catch (Exception e) {
+            log.warn("清理写回批次记录失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 停机前写回剩余计数
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("停机写回计数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取计数器统计信息
+     */
+    public String getStats() {
+        return String.format("写回计数器统计 - 累计计数: %d, 已写回: %d, 直接写库: %d, 写回失败: %d, 重复批次: %d, 待写回播放时间: %d",
+                buffered.sum(), flushed.sum(), directWrites.sum(), flushFailures.sum(), duplicateBatches.sum(),
+                lastPlayTimes.size());
+    }
+
+    private void flushCounter(CounterTypeEnum type) {
+        String key = counterKey(type);
+        String flushingKey = key + FLUSHING_SUFFIX;
+        try {
+            // 上一轮写库失败留下的待写回数据优先处理，处理完之前不改名，避免覆盖
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(flushingKey))) {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+                    return;
+                }
+                stringRedisTemplate.rename(key, flushingKey);
+            }
+            // 改名后与计数 Hash 隔离，不会再有 HINCRBY 写入；进程在改名后退出时由下一轮补上批次ID
+            stringRedisTemplate.opsForHash().putIfAbsent(flushingKey, BATCH_ID_FIELD, IdUtil.fastSimpleUUID());
+
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(flushingKey);
+            String batchId = String.valueOf(entries.remove(BATCH_ID_FIELD));
+            Map<Long, Long> deltas = new HashMap<>(entries.size());
+            long total = 0;
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                long delta = Long.parseLong(entry.getValue().toString());
+                if (delta != 0) {
+                    deltas.put(Long.valueOf(entry.getKey().toString()), delta);
+                    total += delta;
+                }
+            }
+            // 批次ID与所有增量在一个事务里提交：事务失败时整体重试；已提交的批次再次写回时跳过
+            Boolean applied = transactionTemplate.execute(status -> {
+                if (counterFlushBatchMapper.insertIgnore(batchId) == 0) {
+                    return false;
+                }
+                applyDeltas(type, deltas);
+                return true;
+            });
+            stringRedisTemplate.delete(flushingKey);
+            if (!Boolean.TRUE.equals(applied)) {
+                duplicateBatches.increment();
+                log.warn("计数批次已写回过，跳过: type={}, batchId={}", type.getValue(), batchId);
+                return;
+            }
+            evictCaches(type, deltas);
+            flushed.add(total);
+            if (!deltas.isEmpty()) {
+                log.debug("计数写回完成: type={}, batchId={}, rows={}, total={}",
+                        type.getValue(), batchId, deltas.size(), total);
+            }
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.error("计数写回失败，下一轮重试: type={}", type.getValue(), e);
+        }
+    }
+
+    private void flushLastPlayTimes() {
+        if (lastPlayTimes.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> snapshot = new HashMap<>(lastPlayTimes);
+        try {
+            forEachChunk(snapshot, chunk -> {
+                Map<Long, Date> stamps = new LinkedHashMap<>(chunk.size());
+                chunk.forEach((id, millis) -> stamps.put(id, new Date(millis)));
+                voiceCardMapper.updateLastPlayTime(stamps);
+            });
+            // 只移除写回期间没有再次播放的卡片
+            snapshot.forEach(lastPlayTimes::remove);
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.error("写回最后播放时间失败，下一轮重试", e);
+        }
+    }
+
+    private void applyDeltas(CounterTypeEnum type, Map<Long, Long> deltas) {
+        forEachChunk(deltas, chunk -> {
+            if (type == CounterTypeEnum.USE) {
+                voiceModelMapper.incrementCounter(type.getColumn(), chunk);
+            } else {
+                voiceCardMapper.incrementCounter(type.getColumn(), chunk);
+            }
+        });
+    }
+
+    /**
+     * 提交后再失效缓存，避免失效与提交之间读到旧值重新缓存
+     */
+    private void evictCaches(CounterTypeEnum type, Map<Long, Long> deltas) {
+        if (type == CounterTypeEnum.USE && !deltas.isEmpty()) {
+            voiceModelCacheManager.evict(deltas.keySet());
+        }
+    }
+
+    private <V> void forEachChunk(Map<Long, V> values, Consumer<Map<Long, V>> consumer) {
+        List<Map.Entry<Long, V>> entries = new ArrayList<>(values.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            Map<Long, V> chunk = new LinkedHashMap<>();
+            for (Map.Entry<Long, V> entry : entries.subList(from, Math.min(from + batchSize, entries.size()))) {
+                chunk.put(entry.getKey(), entry.getValue());
+            }
+            consumer.accept(chunk);
+        }
+    }
+
+    private static String counterKey(CounterTypeEnum type) {
+        return COUNTER_KEY_PREFIX + type.getValue();
+    }
+}
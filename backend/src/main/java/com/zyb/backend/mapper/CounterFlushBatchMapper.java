@@ -0,0 +1,23 @@
+package com.zyb.backend.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+
+/**
+ * 针对表【counter_flush_batch(计数写回批次表)】的数据库操作Mapper
+ */
+public interface CounterFlushBatchMapper {
+
+    /**
+     * 记录写回批次，批次已存在时忽略
+     *
+     * @return 1 表示首次写回，0 表示该批次已经写回过
+     */
+    int insertIgnore(@Param("batchId") String batchId);
+
+    /**
+     * 删除早于指定时间的批次记录
+     */
+    int deleteBefore(@Param("before") Date before);
+}
@@ -2,6 +2,11 @@ package com.zyb.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zyb.backend.model.entity.VoiceCard;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 /**
 * @author 张云博
@@ -11,8 +16,30 @@ import com.zyb.backend.model.entity.VoiceCard;
 */
 public interface VoiceCardMapper extends BaseMapper<VoiceCard> {
 
-}
-
-
+    /**
+     * 批量累加计数列
+     *
+     * @param column 计数列名，只能来自 CounterTypeEnum
+     * @param deltas ID -> 增量
+     * @return 实际更新的行数
+     */
+    int incrementCounter(@Param("column") String column, @Param("deltas") Map<Long, Long> deltas);
 
+    /**
+     * 批量写入最后播放时间，只会把时间往后推
+     *
+     * @param stamps 卡片ID -> 最后播放时间
+     */
+    int updateLastPlayTime(@Param("stamps") Map<Long, Date> stamps);
 
+    /**
+     * 查询用户的卡片摘要（场景、声音模型可选），按创建时间倒序，最多返回 limit 条
+     * 只返回 id、voiceModelId、cardTitle、audioUrl、sceneTag、playCount、createTime，
+     * textContent 只包含前 previewLength 个字符
+     */
+    List<VoiceCard> listSummaryByUserId(@Param("userId") Long userId,
+                                        @Param("sceneTag") String sceneTag,
+                                        @Param("voiceModelId") Long voiceModelId,
+                                        @Param("previewLength") int previewLength,
+                                        @Param("limit") int limit);
+}
@@ -2,6 +2,9 @@ package com.zyb.backend.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zyb.backend.model.entity.VoiceModel;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Map;
 
 /**
 * @author 张云博
@@ -11,8 +14,12 @@ import com.zyb.backend.model.entity.VoiceModel;
 */
 public interface VoiceModelMapper extends BaseMapper<VoiceModel> {
 
+    /**
+     * 批量累加计数列
+     *
+     * @param column 计数列名，只能来自 CounterTypeEnum
+     * @param deltas ID -> 增量
+     * @return 实际更新的行数
+     */
+    int incrementCounter(@Param("column") String column, @Param("deltas") Map<Long, Long> deltas);
 }
-
-
-
-
@@ -0,0 +1,40 @@
+package com.zyb.backend.model.enums;
+
+import lombok.Getter;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 卡片检索模式枚举
+ */
+@Getter
+public enum CardSearchModeEnum {
+
+    VECTOR("向量检索", "vector"),
+
+    HYBRID("关键词 + 向量混合检索", "hybrid");
+
+    private final String text;
+
+    private final String value;
+
+    CardSearchModeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static CardSearchModeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (CardSearchModeEnum anEnum : CardSearchModeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.zyb.backend.model.enums;
+
+import lombok.Getter;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 写回计数器类型枚举
+ * column 为对应的数据库列名，只在这里定义，写回 SQL 直接拼接该列名
+ */
+@Getter
+public enum CounterTypeEnum {
+
+    PLAY("卡片播放次数", "play", "playCount"),
+
+    SHARE("卡片分享次数", "share", "shareCount"),
+
+    USE("声音模型使用次数", "use", "useCount");
+
+    private final String text;
+
+    private final String value;
+
+    private final String column;
+
+    CounterTypeEnum(String text, String value, String column) {
+        this.text = text;
+        this.value = value;
+        this.column = column;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static CounterTypeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (CounterTypeEnum anEnum : CounterTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.zyb.backend.model.enums;
+
+import lombok.Getter;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * DashScope 接口类别枚举
+ * 同一账号下各类接口的限流和并发配额相互独立，网关按类别分别限流
+ */
+@Getter
+public enum DashScopeApiEnum {
+
+    LLM("大模型对话", "llm"),
+
+    EMBEDDING("文本向量化", "embedding"),
+
+    TTS("语音合成", "tts"),
+
+    ENROLLMENT("声音复刻", "enrollment");
+
+    private final String text;
+
+    private final String value;
+
+    DashScopeApiEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static DashScopeApiEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (DashScopeApiEnum anEnum : DashScopeApiEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,217 @@
+package com.zyb.backend.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.zyb.backend.model.entity.User;
+import com.zyb.backend.model.entity.VoiceCard;
+import com.zyb.backend.model.entity.VoiceModel;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.Media;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kryo 类型注册表
+ * 注册ID一旦发布不可修改或复用，新增类型只能追加新的ID
+ */
+public final class KryoMessageSerializers {
+
+    private KryoMessageSerializers() {
+    }
+
+    /**
+     * 注册常用类型及消息类型的自定义序列化器
+     */
+    public static void register(Kryo kryo) {
+        // 通用类型
+        kryo.register(ArrayList.class, 100);
+        kryo.register(HashMap.class, 101);
+        kryo.register(LinkedHashMap.class, 102);
+        kryo.register(Date.class, 103);
+        kryo.register(BigDecimal.class, 104);
+        kryo.register(MessageType.class, 105);
+
+        // Spring AI 消息类型
+        kryo.register(UserMessage.class, new UserMessageSerializer(), 110);
+        kryo.register(AssistantMessage.class, new AssistantMessageSerializer(), 111);
+        kryo.register(SystemMessage.class, new SystemMessageSerializer(), 112);
+        kryo.register(ToolResponseMessage.class, new ToolResponseMessageSerializer(), 113);
+        kryo.register(AssistantMessage.ToolCall.class, new ToolCallSerializer(), 114);
+        kryo.register(ToolResponseMessage.ToolResponse.class, new ToolResponseSerializer(), 115);
+
+        // 业务实体
+        kryo.register(User.class, 120);
+        kryo.register(VoiceCard.class, 121);
+        kryo.register(VoiceModel.class, 122);
+    }
+
+    /**
+     * 写入消息元数据，值类型不固定，逐个写入类信息
+     */
+    private static void writeMetadata(Kryo kryo, Output output, Map<String, Object> metadata) {
+        if (metadata == null) {
+            output.writeVarInt(0, true);
+            return;
+        }
+        output.writeVarInt(metadata.size(), true);
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            output.writeString(entry.getKey());
+            kryo.writeClassAndObject(output, entry.getValue());
+        }
+    }
+
+    private static Map<String, Object> readMetadata(Kryo kryo, Input input) {
+        int size = input.readVarInt(true);
+        Map<String, Object> metadata = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            metadata.put(input.readString(), kryo.readClassAndObject(input));
+        }
+        return metadata;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Media> readMedia(Kryo kryo, Input input) {
+        Object media = kryo.readClassAndObject(input);
+        return media != null ? (List<Media>) media : List.of();
+    }
+
+    private static void writeMedia(Kryo kryo, Output output, List<Media> media) {
+        kryo.writeClassAndObject(output, media == null || media.isEmpty() ? null : new ArrayList<>(media));
+    }
+
+    static class UserMessageSerializer extends Serializer<UserMessage> {
+
+        @Override
+        public void write(Kryo kryo, Output output, UserMessage message) {
+            output.writeString(message.getText());
+            writeMetadata(kryo, output, message.getMetadata());
+            writeMedia(kryo, output, message.getMedia());
+        }
+
+        @Override
+        public UserMessage read(Kryo kryo, Input input, Class<? extends UserMessage> type) {
+            String text = input.readString();
+            Map<String, Object> metadata = readMetadata(kryo, input);
+            List<Media> media = readMedia(kryo, input);
+            return UserMessage.builder().text(text).metadata(metadata).media(media).build();
+        }
+    }
+
+    static class AssistantMessageSerializer extends Serializer<AssistantMessage> {
+
+        @Override
+        public void write(Kryo kryo, Output output, AssistantMessage message) {
+            output.writeString(message.getText());
+            writeMetadata(kryo, output, message.getMetadata());
+            List<AssistantMessage.ToolCall> toolCalls = message.getToolCalls();
+            output.writeVarInt(toolCalls.size(), true);
+            for (AssistantMessage.ToolCall toolCall : toolCalls) {
+                kryo.writeObject(output, toolCall);
+            }
+            writeMedia(kryo, output, message.getMedia());
+        }
+
+        @Override
+        public AssistantMessage read(Kryo kryo, Input input, Class<? extends AssistantMessage> type) {
+            String text = input.readString();
+            Map<String, Object> metadata = readMetadata(kryo, input);
+            int size = input.readVarInt(true);
+            List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                toolCalls.add(kryo.readObject(input, AssistantMessage.ToolCall.class));
+            }
+            List<Media> media = readMedia(kryo, input);
+            return new AssistantMessage(text, metadata, toolCalls, media);
+        }
+    }
+
+    static class SystemMessageSerializer extends Serializer<SystemMessage> {
+
+        @Override
+        public void write(Kryo kryo, Output output, SystemMessage message) {
+            output.writeString(message.getText());
+            writeMetadata(kryo, output, message.getMetadata());
+        }
+
+        @Override
+        public SystemMessage read(Kryo kryo, Input input, Class<? extends SystemMessage> type) {
+            String text = input.readString();
+            Map<String, Object> metadata = readMetadata(kryo, input);
+            return SystemMessage.builder().text(text).metadata(metadata).build();
+        }
+    }
+
+    static class ToolResponseMessageSerializer extends Serializer<ToolResponseMessage> {
+
+        @Override
+        public void write(Kryo kryo, Output output, ToolResponseMessage message) {
+            List<ToolResponseMessage.ToolResponse> responses = message.getResponses();
+            output.writeVarInt(responses.size(), true);
+            for (ToolResponseMessage.ToolResponse response : responses) {
+                kryo.writeObject(output, response);
+            }
+            writeMetadata(kryo, output, message.getMetadata());
+        }
+
+        @Override
+        public ToolResponseMessage read(Kryo kryo, Input input, Class<? extends ToolResponseMessage> type) {
+            int size = input.readVarInt(true);
+            List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                responses.add(kryo.readObject(input, ToolResponseMessage.ToolResponse.class));
+            }
+            return new ToolResponseMessage(responses, readMetadata(kryo, input));
+        }
+    }
+
+    static class ToolCallSerializer extends Serializer<AssistantMessage.ToolCall> {
+
+        ToolCallSerializer() {
+            setImmutable(true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, AssistantMessage.ToolCall toolCall) {
+            output.writeString(toolCall.id());
+            output.writeString(toolCall.type());
+            output.writeString(toolCall.name());
+            output.writeString(toolCall.arguments());
+        }
+
+        @Override
+        public AssistantMessage.ToolCall read(Kryo kryo, Input input, Class<? extends AssistantMessage.ToolCall> type) {
+            return new AssistantMessage.ToolCall(input.readString(), input.readString(), input.readString(), input.readString());
+        }
+    }
+
+    static class ToolResponseSerializer extends Serializer<ToolResponseMessage.ToolResponse> {
+
+        ToolResponseSerializer() {
+            setImmutable(true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, ToolResponseMessage.ToolResponse response) {
+            output.writeString(response.id());
+            output.writeString(response.name());
+            output.writeString(response.responseData());
+        }
+
+        @Override
+        public ToolResponseMessage.ToolResponse read(Kryo kryo, Input input, Class<? extends ToolResponseMessage.ToolResponse> type) {
+            return new ToolResponseMessage.ToolResponse(input.readString(), input.readString(), input.readString());
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
 import lombok.extern.slf4j.Slf4j;
 import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Component;
@@ -15,11 +18,77 @@ import java.io.ByteArrayOutputStream;
 
 /**
  * Kryo Redis序列化器
+ * 支持两种写入模式：
+ * 1. legacy：不注册类型、开启引用跟踪，每个值都携带完整类名
+ * 2. registered：使用固定注册ID和消息类型专用序列化器，关闭引用跟踪，缓冲区池化复用，
+ *    数据带 [MAGIC, VERSION] 头部
+ * 读取时根据头部自动识别格式，两种模式都能读取 Redis 中已有的旧数据
  */
 @Component
 @Slf4j
 public class KryoRedisSerializer implements RedisSerializer<Object> {
 
+    /**
+     * registered 格式头部；旧格式首字节是很小的类ID变长整数，不会出现 0xCA
+     */
+    static final byte MAGIC = (byte) 0xCA;
+    static final byte VERSION_REGISTERED = 2;
+    private static final int HEADER_LENGTH = 2;
+
+    /**
+     * 序列化模式
+     */
+    public enum Mode {
+        LEGACY, REGISTERED
+    }
+
+    private final Mode mode;
+
+    /**
+     * registered 模式使用的 Kryo 池（线程安全，虚拟线程下不会像 ThreadLocal 那样无限增长）
+     */
+    private final Pool<Kryo> kryoPool = new Pool<>(true, false, 64) {
+        @Override
+        protected Kryo create() {
+            Kryo kryo = new Kryo();
+            // 未注册的类型仍允许写入类名，保证任意值都能存
+            kryo.setRegistrationRequired(false);
+            kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+            // 缓存的值都是无环的数据对象，关闭引用跟踪
+            kryo.setReferences(false);
+            KryoMessageSerializers.register(kryo);
+            return kryo;
+        }
+    };
+
+    private final Pool<Output> outputPool = new Pool<>(true, false, 64) {
+        @Override
+        protected Output create() {
+            return new Output(4096, -1);
+        }
+    };
+
+    private final Pool<Input> inputPool = new Pool<>(true, false, 64) {
+        @Override
+        protected Input create() {
+            return new Input();
+        }
+    };
+
+    public KryoRedisSerializer() {
+        this(Mode.LEGACY);
+    }
+
+    @Autowired
+    public KryoRedisSerializer(@Value("${voiceKeeper.redis.kryo.mode:legacy}") String mode) {
+        this(Mode.valueOf(mode.trim().toUpperCase()));
+    }
+
+    public KryoRedisSerializer(Mode mode) {
+        this.mode = mode;
+        log.info("初始化Kryo序列化器: 模式={}", mode);
+    }
+
     /**
      * Kryo不是线程安全的，每个线程需要独立的实例
      */
@@ -44,6 +113,9 @@ public class KryoRedisSerializer implements RedisSerializer<Object> {
         if (obj == null) {
             return null;
         }
+        if (mode == Mode.REGISTERED) {
+            return serializeRegistered(obj);
+        }
 
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
              Output output = new Output(baos)) {
@@ -68,6 +140,9 @@ public class KryoRedisSerializer implements RedisSerializer<Object> {
         if (bytes == null || bytes.length == 0) {
             return null;
         }
+        if (bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC && bytes[1] == VERSION_REGISTERED) {
+            return deserializeRegistered(bytes);
+        }
 
         try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
              Input input = new Input(bais)) {
@@ -85,6 +160,41 @@ public class KryoRedisSerializer implements RedisSerializer<Object> {
         }
     }
 
+    private byte[] serializeRegistered(Object obj) {
+        Kryo kryo = kryoPool.obtain();
+        Output output = outputPool.obtain();
+        try {
+            output.reset();
+            output.writeByte(MAGIC);
+            output.writeByte(VERSION_REGISTERED);
+            kryo.writeClassAndObject(output, obj);
+            return output.toBytes();
+        } catch (Exception e) {
+            log.error("Kryo序列化失败: {}", e.getMessage());
+            throw new SerializationException("Kryo序列化失败: " + e.getMessage(), e);
+        } finally {
+            outputPool.free(output);
+            kryoPool.free(kryo);
+        }
+    }
+
+    private Object deserializeRegistered(byte[] bytes) {
+        Kryo kryo = kryoPool.obtain();
+        Input input = inputPool.obtain();
+        try {
+            input.setBuffer(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            return kryo.readClassAndObject(input);
+        } catch (Exception e) {
+            log.error("Kryo反序列化失败: {}", e.getMessage());
+            throw new SerializationException("Kryo反序列化失败: " + e.getMessage(), e);
+        } finally {
+            // 释放对调用方字节数组的引用
+            input.setBuffer(new byte[0]);
+            inputPool.free(input);
+            kryoPool.free(kryo);
+        }
+    }
+
     /**
      * 清理ThreadLocal资源，防止内存泄漏
      */
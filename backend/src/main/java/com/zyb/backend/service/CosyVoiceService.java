@@ -1,50 +1,74 @@
 package com.zyb.backend.service;
 
+import com.alibaba.dashscope.audio.tts.SpeechSynthesisResult;
 import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisAudioFormat;
 import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam;
 import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam.SpeechSynthesisParamBuilder;
 import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesizer;
 import com.alibaba.dashscope.audio.ttsv2.enrollment.Voice;
 import com.alibaba.dashscope.audio.ttsv2.enrollment.VoiceEnrollmentService;
-import com.alibaba.dashscope.exception.InputRequiredException;
-import com.alibaba.dashscope.exception.NoApiKeyException;
+import com.alibaba.dashscope.common.ResultCallback;
+import com.zyb.backend.manager.DashScopeGateway;
+import com.zyb.backend.manager.SpeechSynthesizerPool;
+import com.zyb.backend.model.enums.DashScopeApiEnum;
+import com.zyb.backend.utils.ChunkedAudioInputStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
 public class CosyVoiceService {
 
+    @Resource
+    private DashScopeGateway dashScopeGateway;
+
+    @Resource
+    private SpeechSynthesizerPool synthesizerPool;
+
     @Value("${voiceKeeper.voice.cosy-voice.api-key}")
     private String apiKey;
 
     @Value("${voiceKeeper.voice.cosy-voice.model:cosyvoice-v3}")
     private String model;
 
+    /**
+     * 流式合成时等待下一块音频的超时时间（毫秒）
+     */
+    @Value("${voiceKeeper.voice.cosy-voice.stream-timeout-ms:60000}")
+    private long streamTimeoutMillis;
+
+    /**
+     * 声音复刻客户端，无状态，全局复用一个实例
+     */
+    private VoiceEnrollmentService enrollmentService;
+
+    @PostConstruct
+    public void init() {
+        enrollmentService = new VoiceEnrollmentService(apiKey);
+    }
+
     /**
      * 创建音色（声音克隆）
+     * 每次调用都会新建并计费一个音色，只在限流时重试，超时等失败直接抛出，避免产生无人管理的重复音色
      */
-    public String createVoice(String audioUrl) throws NoApiKeyException, InputRequiredException {
-        try {
-            VoiceEnrollmentService service = new VoiceEnrollmentService(apiKey);
-            Voice voice = service.createVoice(model, "voice", audioUrl);
-            
-            return voice.getVoiceId();
-        } catch (Exception e) {
-            log.error("创建音色失败", e);
-            return "创建音色失败，请重试";
-        }
+    public String createVoice(String audioUrl) {
+        Voice voice = dashScopeGateway.executeNonIdempotent(DashScopeApiEnum.ENROLLMENT, () ->
+                enrollmentService.createVoice(model, "voice", audioUrl));
+        return voice.getVoiceId();
     }
 
     /**
      * 查询音色状态
      */
     public String queryVoiceStatus(String voiceId) throws Exception {
-        VoiceEnrollmentService service = new VoiceEnrollmentService(apiKey);
-        Voice result = service.queryVoice(voiceId);
+        Voice result = dashScopeGateway.execute(DashScopeApiEnum.ENROLLMENT, voiceId, () ->
+                enrollmentService.queryVoice(voiceId));
         String status = result.getStatus();
         log.info("查询音色状态: voiceId={}, status={}", voiceId, status);
 
@@ -53,10 +77,13 @@ public class CosyVoiceService {
 
     /**
      * 删除音色
+     * 响应丢失后重试会因音色已删除而报错，同样只在限流时重试
      */
     public void deleteVoice(String voiceId) throws Exception {
-        VoiceEnrollmentService service = new VoiceEnrollmentService(apiKey);
-        service.deleteVoice(voiceId);
+        dashScopeGateway.executeNonIdempotent(DashScopeApiEnum.ENROLLMENT, () -> {
+            enrollmentService.deleteVoice(voiceId);
+            return null;
+        });
         log.info("音色已删除: voiceId={}", voiceId);
     }
 
@@ -80,6 +107,96 @@ public class CosyVoiceService {
         log.info("开始语音合成: voiceId={}, 文字长度={}, 情感={}", voiceId, text.length(), emotion);
 
         // 1. 构建合成参数
+        SpeechSynthesisParam param = buildParam(voiceId, emotion, speechRate, pitchRate);
+
+        // 2. 从对象池借出合成器调用合成，经由网关限流和重试
+        ByteBuffer audioBuffer = dashScopeGateway.execute(DashScopeApiEnum.TTS, () -> {
+            SpeechSynthesizerPool.Lease lease = synthesizerPool.borrow(model);
+            try {
+                SpeechSynthesizer synthesizer = lease.getSynthesizer();
+                synthesizer.updateParamAndCallback(param, null);
+                ByteBuffer buffer = synthesizer.call(text);
+                log.info("语音合成成功: requestId={}, 大小={}KB",
+                        synthesizer.getLastRequestId(),
+                        buffer.remaining() / 1024);
+                lease.release();
+                return buffer;
+            } catch (Exception e) {
+                lease.invalidate();
+                throw e;
+            }
+        });
+
+        // 3. 转换为字节数组
+        byte[] audioData = new byte[audioBuffer.remaining()];
+        audioBuffer.get(audioData);
+
+        return audioData;
+    }
+
+    /**
+     * 语音合成（流式回调，带情感控制）
+     * 立即返回输入流，音频帧在合成过程中陆续写入，调用方可以边读边上传
+     * 合成失败时读取方会收到 IOException，使用完毕后需关闭流
+     */
+    public ChunkedAudioInputStream streamSynthesizeSpeech(String voiceId, String text, String emotion,
+                                                          Float speechRate, Float pitchRate) throws Exception {
+        log.info("开始流式语音合成: voiceId={}, 文字长度={}, 情感={}", voiceId, text.length(), emotion);
+
+        SpeechSynthesisParam param = buildParam(voiceId, emotion, speechRate, pitchRate);
+        AtomicReference<SpeechSynthesizerPool.Lease> leaseHolder = new AtomicReference<>();
+        // 读取方提前关闭（合成未完成）时销毁连接；正常完成时已归还，这里不再生效
+        ChunkedAudioInputStream audioStream = new ChunkedAudioInputStream(streamTimeoutMillis, () -> {
+            SpeechSynthesizerPool.Lease lease = leaseHolder.get();
+            if (lease != null) {
+                lease.invalidate();
+            }
+        });
+
+        ResultCallback<SpeechSynthesisResult> callback = new ResultCallback<>() {
+            @Override
+            public void onEvent(SpeechSynthesisResult result) {
+                if (result.getAudioFrame() != null) {
+                    audioStream.offer(result.getAudioFrame());
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                SpeechSynthesizerPool.Lease lease = leaseHolder.get();
+                log.info("流式语音合成完成: requestId={}", lease.getSynthesizer().getLastRequestId());
+                lease.release();
+                audioStream.complete();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                log.error("流式语音合成失败: voiceId={}", voiceId, e);
+                leaseHolder.get().invalidate();
+                audioStream.fail(e);
+            }
+        };
+
+        // 传入回调时 call 不阻塞，音频通过 onEvent 推送；网关只约束发起合成这一步
+        dashScopeGateway.execute(DashScopeApiEnum.TTS, () -> {
+            SpeechSynthesizerPool.Lease lease = synthesizerPool.borrow(model);
+            leaseHolder.set(lease);
+            try {
+                lease.getSynthesizer().updateParamAndCallback(param, callback);
+                lease.getSynthesizer().call(text);
+            } catch (Exception e) {
+                lease.invalidate();
+                throw e;
+            }
+            return null;
+        });
+        return audioStream;
+    }
+
+    /**
+     * 构建合成参数
+     */
+    private SpeechSynthesisParam buildParam(String voiceId, String emotion, Float speechRate, Float pitchRate) {
         SpeechSynthesisParamBuilder<?, ?> builder = SpeechSynthesisParam.builder()
                 .model(model)
                 .voice(voiceId)
@@ -101,23 +218,7 @@ public class CosyVoiceService {
             builder.instruction("你说话的情感是" + emotion + "。");
         }
 
-        SpeechSynthesisParam param = builder.build();
-
-        // 2. 创建合成器（传入参数）
-        SpeechSynthesizer synthesizer = new SpeechSynthesizer(param, null);
-
-        // 3. 调用合成（传入文字文本）
-        ByteBuffer audioBuffer = synthesizer.call(text);
-
-        log.info("语音合成成功: requestId={}, 大小={}KB",
-                synthesizer.getLastRequestId(),
-                audioBuffer.remaining() / 1024);
-
-        // 4. 转换为字节数组
-        byte[] audioData = new byte[audioBuffer.remaining()];
-        audioBuffer.get(audioData);
-
-        return audioData;
+        return builder.build();
     }
 }
 
@@ -5,9 +5,11 @@ import co.elastic.clients.elasticsearch._types.mapping.Property;
 import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
 import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
 import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import com.zyb.backend.vectorstore.LocalHnswVectorStore;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -34,11 +36,25 @@ public class VectorStoreManagementService {
     @Value("${spring.ai.vectorstore.elasticsearch.initialize-schema}")
     private boolean initializeSchema;
 
+    @Resource
+    private VectorStore vectorStore;
+
+    @Value("${voiceKeeper.vector.sync.enabled:true}")
+    private boolean syncEnabled;
+
     /**
      * 应用启动时检查并创建索引，然后自动批量索引所有卡片
      */
     @PostConstruct
     public void initIndex() {
+        if (vectorStore instanceof LocalHnswVectorStore localVectorStore) {
+            // 本地向量存储从快照恢复，只有首次启动（为空）时需要全量索引
+            log.info("使用本地向量存储，跳过 Elasticsearch 索引初始化");
+            if (localVectorStore.size() == 0) {
+                reindexAllCards();
+            }
+            return;
+        }
         if (!initializeSchema) {
             log.info("跳过索引初始化（initialize-schema=false）");
             return;
@@ -52,6 +68,11 @@ public class VectorStoreManagementService {
                 log.info("索引 {} 创建成功", indexName);
             } else {
                 log.info("索引 {} 已存在", indexName);
+                // 索引已与数据库一致时，后续变更由事件流增量同步，无需全量索引
+                if (syncEnabled && voiceCardVectorService.isIndexConsistent()) {
+                    log.info("索引 {} 已与数据库一致，跳过启动时全量索引", indexName);
+                    return;
+                }
             }
             
             // 启动时自动批量索引所有历史卡片
@@ -100,11 +121,14 @@ public class VectorStoreManagementService {
                                     .properties("sceneTag", Property.of(mp -> mp.keyword(k -> k)))
                                     .properties("emotionTag", Property.of(mp -> mp.keyword(k -> k)))
                                     .properties("createTime", Property.of(mp -> mp.long_(l -> l)))
+                                    .properties("fingerprint", Property.of(mp -> mp.keyword(k -> k)))
+                                    .properties("embeddingModel", Property.of(mp -> mp.keyword(k -> k)))
                             )))
                     ))
             );
 
             elasticsearchClient.indices().create(request);
+            voiceCardVectorService.clearIndexConsistent();
             log.info("成功创建索引: {}", indexName);
         } catch (Exception e) {
             log.error("创建索引失败: {}", e.getMessage(), e);
@@ -121,6 +145,7 @@ public class VectorStoreManagementService {
             if (exists) {
                 log.info("开始删除索引: {}...", indexName);
                 elasticsearchClient.indices().delete(d -> d.index(indexName));
+                voiceCardVectorService.clearIndexConsistent();
                 log.info("索引 {} 删除成功", indexName);
             } else {
                 log.info("索引 {} 不存在，无需删除", indexName);
@@ -0,0 +1,372 @@
+package com.zyb.backend.service;
+
+import com.zyb.backend.manager.VectorIndexConsistencyManager;
+import com.zyb.backend.manager.VoiceCardChangePublisher;
+import com.zyb.backend.model.entity.VoiceCard;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 向量索引增量同步服务
+ * 工作原理：
+ * 1. 以消费者组读取卡片变更事件流，每批内同一卡片只保留最后一次操作
+ * 2. 新增/修改的卡片批量回查数据库后写入向量存储，已删除的卡片批量删除索引
+ * 3. 处理成功才 ACK；失败的消息留在待确认列表中，下一轮从待确认列表逐条重试，一条坏消息不会阻塞其它消息
+ * 4. 投递次数超过上限的消息转入死信流并 ACK，同时清除索引一致性标记，下次启动全量索引修正
+ * 5. 启动时和定期认领其它消费者空闲过久的待确认消息（实例重新部署后消费者名称会变化），避免消息无人处理
+ */
+@Slf4j
+@Service
+public class VoiceCardIndexSyncService {
+
+    /**
+     * 死信流
+     */
+    public static final String DEAD_LETTER_KEY = VoiceCardChangePublisher.STREAM_KEY + ":dead-letter";
+
+    private static final String GROUP = VoiceCardChangePublisher.GROUP;
+
+    /**
+     * 失败后的重试间隔（指数退避的初始值和上限）
+     */
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(5);
+
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(60);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private VoiceCardService voiceCardService;
+
+    @Resource
+    private VoiceCardVectorService voiceCardVectorService;
+
+    @Resource
+    private VectorIndexConsistencyManager vectorIndexConsistencyManager;
+
+    @Value("${voiceKeeper.vector.sync.enabled:true}")
+    private boolean enabled;
+
+    @Value("${voiceKeeper.vector.sync.batch-size:100}")
+    private int batchSize;
+
+    @Value("${voiceKeeper.vector.sync.consumer-name:}")
+    private String consumerName;
+
+    /**
+     * 单条消息最多投递次数，超过后转入死信流
+     */
+    @Value("${voiceKeeper.vector.sync.max-deliveries:5}")
+    private int maxDeliveries;
+
+    /**
+     * 其它消费者的待确认消息空闲超过该时长后被认领
+     */
+    @Value("${voiceKeeper.vector.sync.claim-min-idle-ms:60000}")
+    private long claimMinIdleMs;
+
+    /**
+     * 认领检查间隔
+     */
+    @Value("${voiceKeeper.vector.sync.claim-interval-ms:60000}")
+    private long claimIntervalMs;
+
+    private final LongAdder upserted = new LongAdder();
+
+    private final LongAdder deleted = new LongAdder();
+
+    private final LongAdder failedBatches = new LongAdder();
+
+    private final LongAdder claimed = new LongAdder();
+
+    private final LongAdder deadLettered = new LongAdder();
+
+    private volatile boolean running = false;
+
+    private Thread worker;
+
+    /**
+     * 应用启动完成后开始消费
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("向量索引增量同步未启用");
+            return;
+        }
+        if (consumerName == null || consumerName.isBlank()) {
+            consumerName = resolveHostName();
+        }
+        running = true;
+        worker = Thread.ofVirtual().name("index-sync").start(this::consumeLoop);
+        log.info("向量索引增量同步已启动: stream={}, group={}, consumer={}",
+                VoiceCardChangePublisher.STREAM_KEY, GROUP, consumerName);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 获取同步统计信息
+     */
+    public String getStats() {
+        return String.format("向量索引同步统计 - 运行中: %s, 已写入: %d, 已删除: %d, 失败批次: %d, 认领: %d, 死信: %d",
+                running, upserted.sum(), deleted.sum(), failedBatches.sum(), claimed.sum(), deadLettered.sum());
+    }
+
+    private void consumeLoop() {
+        StreamOperations<String, String, String> ops = stringRedisTemplate.opsForStream();
+        createGroupIfAbsent(ops);
+
+        // 启动时先认领其它消费者遗留的消息，再处理本消费者的待确认消息
+        boolean readPending = true;
+        int consecutiveFailures = 0;
+        long nextClaimAt = 0;
+        while (running) {
+            try {
+                if (System.currentTimeMillis() >= nextClaimAt) {
+                    nextClaimAt = System.currentTimeMillis() + claimIntervalMs;
+                    readPending |= claimIdlePending(ops) > 0;
+                }
+                ReadOffset offset = readPending ? ReadOffset.from("0") : ReadOffset.lastConsumed();
+                // read 的 StreamOffset 参数是泛型可变参数，这里只传一个且不会被修改，没有堆污染
+                @SuppressWarnings("unchecked")
+                List<MapRecord<String, String, String>> records = ops.read(
+                        Consumer.from(GROUP, consumerName),
+                        StreamReadOptions.empty().count(batchSize).block(Duration.ofSeconds(2)),
+                        StreamOffset.create(VoiceCardChangePublisher.STREAM_KEY, offset));
+                if (records == null || records.isEmpty()) {
+                    readPending = false;
+                    continue;
+                }
+                if (readPending) {
+                    records = deadLetterExhausted(ops, records);
+                }
+                if (readPending && consecutiveFailures > 0) {
+                    // 上一轮失败：逐条处理，成功的先 ACK，只把失败的留在待确认列表
+                    if (applyEach(ops, records)) {
+                        consecutiveFailures = 0;
+                    } else {
+                        consecutiveFailures++;
+                        backoff(consecutiveFailures);
+                    }
+                    continue;
+                }
+                apply(records);
+                acknowledge(ops, records);
+                consecutiveFailures = 0;
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                failedBatches.increment();
+                log.error("向量索引同步失败，稍后重试: {}", e.getMessage(), e);
+                readPending = true;
+                consecutiveFailures++;
+                if (!backoff(consecutiveFailures)) {
+                    break;
+                }
+            }
+        }
+        log.info("向量索引增量同步已停止");
+    }
+
+    /**
+     * 逐条处理并 ACK
+     *
+     * @return 是否全部成功
+     */
+    private boolean applyEach(StreamOperations<String, String, String> ops,
+                              List<MapRecord<String, String, String>> records) {
+        boolean allSucceeded = true;
+        for (MapRecord<String, String, String> record : records) {
+            try {
+                apply(List.of(record));
+                acknowledge(ops, List.of(record));
+            } catch (Exception e) {
+                allSucceeded = false;
+                failedBatches.increment();
+                log.error("向量索引同步单条失败: id={}, value={}, error={}", record.getId(), record.getValue(), e.getMessage());
+            }
+        }
+        return allSucceeded;
+    }
+
+    /**
+     * 投递次数超过上限的消息转入死信流并 ACK，返回其余消息
+     */
+    private List<MapRecord<String, String, String>> deadLetterExhausted(StreamOperations<String, String, String> ops,
+                                                                       List<MapRecord<String, String, String>> records) {
+        PendingMessages pending = ops.pending(VoiceCardChangePublisher.STREAM_KEY, Consumer.from(GROUP, consumerName),
+                Range.closed(records.get(0).getId().getValue(), records.get(records.size() - 1).getId().getValue()),
+                records.size());
+        Map<RecordId, Long> deliveries = new HashMap<>();
+        for (PendingMessage message : pending) {
+            deliveries.put(message.getId(), message.getTotalDeliveryCount());
+        }
+
+        List<MapRecord<String, String, String>> remaining = new ArrayList<>(records.size());
+        List<MapRecord<String, String, String>> exhausted = new ArrayList<>();
+        for (MapRecord<String, String, String> record : records) {
+            if (deliveries.getOrDefault(record.getId(), 0L) > maxDeliveries) {
+                exhausted.add(record);
+            } else {
+                remaining.add(record);
+            }
+        }
+        if (exhausted.isEmpty()) {
+            return records;
+        }
+        for (MapRecord<String, String, String> record : exhausted) {
+            Map<String, String> value = new LinkedHashMap<>(record.getValue());
+            value.put("sourceId", record.getId().getValue());
+            value.put("deliveries", String.valueOf(deliveries.get(record.getId())));
+            ops.add(StreamRecords.newRecord().in(DEAD_LETTER_KEY).ofMap(value));
+            log.error("卡片变更事件投递次数超过上限，转入死信流: id={}, value={}", record.getId(), record.getValue());
+        }
+        acknowledge(ops, exhausted);
+        deadLettered.add(exhausted.size());
+        // 死信中的变更没有同步到索引
+        vectorIndexConsistencyManager.clear("卡片变更事件进入死信流");
+        return remaining;
+    }
+
+    /**
+     * 认领其它消费者空闲过久的待确认消息
+     *
+     * @return 认领的消息数
+     */
+    private int claimIdlePending(StreamOperations<String, String, String> ops) {
+        Duration minIdle = Duration.ofMillis(claimMinIdleMs);
+        PendingMessages pending = ops.pending(VoiceCardChangePublisher.STREAM_KEY, GROUP, Range.unbounded(), batchSize);
+        RecordId[] ids = pending.stream()
+                .filter(message -> !consumerName.equals(message.getConsumerName()))
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+        if (ids.length == 0) {
+            return 0;
+        }
+        // 认领时再次校验空闲时长，其它实例刚处理过的消息不会被抢走
+        int count = ops.claim(VoiceCardChangePublisher.STREAM_KEY, GROUP, consumerName, minIdle, ids).size();
+        claimed.add(count);
+        log.info("认领其它消费者的待确认消息: count={}", count);
+        return count;
+    }
+
+    /**
+     * 应用一批变更事件
+     */
+    private void apply(List<MapRecord<String, String, String>> records) {
+        // 1. 合并：同一卡片只保留最后一次操作
+        Map<Long, String> latestOps = new LinkedHashMap<>();
+        for (MapRecord<String, String, String> record : records) {
+            String cardId = record.getValue().get(VoiceCardChangePublisher.FIELD_CARD_ID);
+            String op = record.getValue().get(VoiceCardChangePublisher.FIELD_OP);
+            if (cardId == null || op == null) {
+                log.warn("忽略无效的卡片变更事件: id={}, value={}", record.getId(), record.getValue());
+                continue;
+            }
+            latestOps.remove(Long.valueOf(cardId));
+            latestOps.put(Long.valueOf(cardId), op);
+        }
+
+        List<Long> upsertIds = new ArrayList<>();
+        List<Long> deleteIds = new ArrayList<>();
+        latestOps.forEach((cardId, op) -> {
+            if (VoiceCardChangePublisher.OP_DELETE.equals(op)) {
+                deleteIds.add(cardId);
+            } else {
+                upsertIds.add(cardId);
+            }
+        });
+
+        // 2. 批量回查最新数据；查不到的（已被删除）转为删除索引
+        List<VoiceCard> cards = upsertIds.isEmpty() ? List.of() : voiceCardService.listByIds(upsertIds);
+        Set<Long> foundIds = cards.stream().map(VoiceCard::getId).collect(Collectors.toSet());
+        upsertIds.stream().filter(id -> !foundIds.contains(id)).forEach(deleteIds::add);
+
+        // 3. 批量写入向量存储
+        voiceCardVectorService.upsertCards(cards);
+        voiceCardVectorService.deleteCardIndexes(deleteIds);
+        upserted.add(cards.size());
+        deleted.add(deleteIds.size());
+        log.info("向量索引增量同步: 事件数={}, 写入={}, 删除={}", records.size(), cards.size(), deleteIds.size());
+    }
+
+    private void acknowledge(StreamOperations<String, String, String> ops,
+                             List<MapRecord<String, String, String>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        ops.acknowledge(VoiceCardChangePublisher.STREAM_KEY, GROUP,
+                records.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+    }
+
+    /**
+     * 指数退避等待
+     *
+     * @return 是否继续运行
+     */
+    private boolean backoff(int failures) {
+        long delay = Math.min(RETRY_BACKOFF.toMillis() << Math.min(failures - 1, 10), MAX_RETRY_BACKOFF.toMillis());
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void createGroupIfAbsent(StreamOperations<String, String, String> ops) {
+        try {
+            ops.createGroup(VoiceCardChangePublisher.STREAM_KEY, ReadOffset.from("0"), GROUP);
+        } catch (Exception e) {
+            // BUSYGROUP：消费者组已存在
+            log.debug("消费者组已存在: {}", e.getMessage());
+        }
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "voicekeeper";
+        }
+    }
+}
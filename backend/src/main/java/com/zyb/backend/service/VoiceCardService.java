@@ -1,9 +1,12 @@
 package com.zyb.backend.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zyb.backend.common.CursorPage;
 import com.zyb.backend.model.entity.VoiceCard;
+import com.zyb.backend.model.vo.VoiceCardVO;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 声音卡片服务
@@ -21,13 +24,56 @@ public interface VoiceCardService extends IService<VoiceCard> {
      */
     List<VoiceCard> listByUserIdAndScene(Long userId, String sceneTag);
 
+    /**
+     * 查询用户最近的卡片（场景可选），最多返回 limit 条
+     */
+    List<VoiceCard> listRecentByUserId(Long userId, String sceneTag, int limit);
+
+    /**
+     * 查询用户的卡片摘要（场景、声音模型可选），用于列表展示，最多返回 limit 条
+     * 只包含列表用到的字段，textContent 只包含前 previewLength 个字符
+     */
+    List<VoiceCard> listSummaryByUserId(Long userId, String sceneTag, Long voiceModelId, int previewLength, int limit);
+
+    /**
+     * 统计用户的卡片数（场景、声音模型可选）
+     */
+    long countByUserId(Long userId, String sceneTag, Long voiceModelId);
+
+    /**
+     * 按游标分页查询用户的卡片视图（按创建时间倒序，场景可选）
+     *
+     * @param cursor 上一页返回的游标，为空时查第一页
+     */
+    CursorPage<VoiceCardVO> listVoiceCardVOByCursor(Long userId, String sceneTag, String cursor, int size);
+
+    /**
+     * 按游标逐页读取用户的全部卡片视图，每页 chunkSize 条交给 consumer 一次
+     */
+    void streamVoiceCardVOByUserId(Long userId, String sceneTag, int chunkSize, Consumer<List<VoiceCardVO>> consumer);
+
     /**
      * 根据声音模型ID查询卡片
      */
     List<VoiceCard> listByVoiceModelId(Long voiceModelId);
 
     /**
-     * 增加播放次数
+     * 增加播放次数（写回计数，数据库中的值会有短暂滞后）
      */
     boolean increasePlayCount(Long cardId);
+
+    /**
+     * 增加分享次数（写回计数，数据库中的值会有短暂滞后）
+     */
+    boolean increaseShareCount(Long cardId);
+
+    /**
+     * 获取卡片视图对象
+     */
+    VoiceCardVO getVoiceCardVO(VoiceCard voiceCard);
+
+    /**
+     * 批量获取卡片视图对象，关联的声音模型一次查出
+     */
+    List<VoiceCardVO> getVoiceCardVO(List<VoiceCard> voiceCards);
 }
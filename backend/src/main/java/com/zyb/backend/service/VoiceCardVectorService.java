@@ -1,21 +1,49 @@
 package com.zyb.backend.service;
 
+import cn.hutool.crypto.digest.DigestUtil;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.zyb.backend.common.exception.BusinessException;
 import com.zyb.backend.common.response.ResultCode;
+import com.zyb.backend.manager.BoundedVirtualThreadExecutor;
+import com.zyb.backend.manager.VectorIndexConsistencyManager;
 import com.zyb.backend.model.entity.VoiceCard;
+import com.zyb.backend.model.enums.CardSearchModeEnum;
+import com.zyb.backend.vectorstore.LocalHnswVectorStore;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -25,12 +53,69 @@ import java.util.stream.Collectors;
 @Slf4j
 public class VoiceCardVectorService {
 
+    /**
+     * 相似度阈值（ES 余弦评分）
+     */
+    private static final double SIMILARITY_THRESHOLD = 0.5;
+
+    /**
+     * RRF 常数，抑制单路结果中靠前排名的权重
+     */
+    private static final int RRF_K = 60;
+
+    /**
+     * 混合检索每一路的候选数下限
+     */
+    private static final int HYBRID_RANK_WINDOW = 20;
+
     @Resource
     private VectorStore vectorStore;
 
     @Resource
     private VoiceCardService voiceCardService;
 
+    @Resource
+    private BoundedVirtualThreadExecutor indexExecutor;
+
+    @Resource
+    private EmbeddingModel embeddingModel;
+
+    @Resource
+    private ElasticsearchClient elasticsearchClient;
+
+    @Resource
+    private VectorIndexConsistencyManager vectorIndexConsistencyManager;
+
+    @Value("${spring.ai.vectorstore.elasticsearch.index-name}")
+    private String indexName;
+
+    @Value("${spring.ai.dashscope.embedding.model:text-embedding-v3}")
+    private String embeddingModelName;
+
+    /**
+     * 默认检索模式：vector / hybrid
+     */
+    @Value("${voiceKeeper.vector.search.mode:vector}")
+    private String defaultSearchMode;
+
+    /**
+     * 重建索引时每页读取的卡片数
+     */
+    @Value("${voiceKeeper.vector.reindex.page-size:500}")
+    private int reindexPageSize;
+
+    /**
+     * 每次写入向量存储的文档数（一次 ES 批量请求）
+     */
+    @Value("${voiceKeeper.vector.reindex.bulk-size:100}")
+    private int reindexBulkSize;
+
+    /**
+     * 同时进行的写入批次数
+     */
+    @Value("${voiceKeeper.vector.reindex.concurrency:4}")
+    private int reindexConcurrency;
+
     /**
      * 创建卡片成功后索引单张卡片
      */
@@ -43,24 +128,11 @@ public class VoiceCardVectorService {
                 return;
             }
 
-            // 2. 组装文本
-            String indexText = buildIndexText(card);
-            log.info("索引文本: cardId={}, text={}", cardId, indexText);
-
-            // 3. 准备 metadata
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("cardId", card.getId());
-            metadata.put("userId", card.getUserId());
-            metadata.put("voiceModelId", card.getVoiceModelId());
-            metadata.put("cardTitle", card.getCardTitle());
-            metadata.put("sceneTag", card.getSceneTag() != null ? card.getSceneTag() : "custom");
-            metadata.put("emotionTag", card.getEmotionTag() != null ? card.getEmotionTag() : "");
-            metadata.put("createTime", card.getCreateTime().getTime());
-            
-            // 4. 创建 Document 对象
-            Document document = new Document(cardId.toString(), indexText, metadata);
+            // 2. 组装文档
+            Document document = buildDocument(card);
+            log.info("索引文本: cardId={}, text={}", cardId, document.getText());
 
-            // 5. 添加到向量存储
+            // 3. 添加到向量存储
             vectorStore.add(List.of(document));
 
             log.info("卡片索引成功: cardId={}, title={}", cardId, card.getCardTitle());
@@ -72,82 +144,46 @@ public class VoiceCardVectorService {
     }
 
     /**
-     * 语义搜索卡片
+     * 语义搜索卡片（使用配置的默认检索模式）
      */
     public List<VoiceCard> semanticSearch(Long userId, String query, String sceneFilter, int topK) {
+        CardSearchModeEnum mode = CardSearchModeEnum.getEnumByValue(defaultSearchMode);
+        return semanticSearch(userId, query, sceneFilter, topK, mode != null ? mode : CardSearchModeEnum.VECTOR);
+    }
+
+    /**
+     * 语义搜索卡片
+     *
+     * @param mode 检索模式，本地向量存储不支持关键词检索，混合模式会退化为向量检索
+     */
+    public List<VoiceCard> semanticSearch(Long userId, String query, String sceneFilter, int topK,
+                                          CardSearchModeEnum mode) {
         try {
-            log.info("语义搜索: userId={}, query={}, scene={}, topK={}", 
-                    userId, query, sceneFilter, topK);
-
-            // 1. 构建搜索请求
-            SearchRequest searchRequest = SearchRequest.builder()
-                    .query(query)
-                    .topK(topK * 2)
-                    .similarityThreshold(0.5)
-                    .build();
-
-            // 2. 执行向量检索
-            List<Document> results = vectorStore.similaritySearch(searchRequest);
-            log.info("向量检索完成，找到 {} 个匹配结果", results.size());
-
-            // 3. 应用层过滤
-            List<Document> filteredResults = results.stream()
-                    .filter(doc -> {
-                        // 过滤 userId
-                        Object userIdObj = doc.getMetadata().get("userId");
-                        if (userIdObj == null) return false;
-                        
-                        Long docUserId;
-                        if (userIdObj instanceof Integer) {
-                            docUserId = ((Integer) userIdObj).longValue();
-                        } else if (userIdObj instanceof Long) {
-                            docUserId = (Long) userIdObj;
-                        } else {
-                            return false;
-                        }
-                        
-                        if (!docUserId.equals(userId)) {
-                            return false;
-                        }
-                        
-                        // 过滤 sceneTag
-                        if (sceneFilter != null && !sceneFilter.isEmpty()) {
-                            Object sceneObj = doc.getMetadata().get("sceneTag");
-                            return sceneFilter.equals(sceneObj);
-                        }
-                        
-                        return true;
-                    })
-                    .limit(topK)
-                    .toList();
-            
-            log.info("过滤后剩余 {} 个结果", filteredResults.size());
-
-            // 4. 提取卡片ID
-            List<Long> cardIds = filteredResults.stream()
-                    .map(doc -> {
-                        Object cardIdObj = doc.getMetadata().get("cardId");
-                        if (cardIdObj == null) return null;
-                        
-                        if (cardIdObj instanceof Integer) {
-                            return ((Integer) cardIdObj).longValue();
-                        } else if (cardIdObj instanceof Long) {
-                            return (Long) cardIdObj;
-                        }
-                        return null;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+            log.info("语义搜索: userId={}, query={}, scene={}, topK={}, mode={}",
+                    userId, query, sceneFilter, topK, mode.getValue());
+
+            if (userId == null) {
+                log.warn("语义搜索缺少 userId，直接返回空结果");
+                return List.of();
+            }
+
+            // 1. 检索卡片ID（按相关度排序）
+            List<Long> cardIds;
+            if (mode == CardSearchModeEnum.HYBRID && !(vectorStore instanceof LocalHnswVectorStore)) {
+                cardIds = hybridSearchCardIds(userId, query, sceneFilter, topK);
+            } else {
+                cardIds = vectorSearchCardIds(userId, query, sceneFilter, topK);
+            }
 
             if (cardIds.isEmpty()) {
                 log.info("未找到匹配的卡片");
                 return List.of();
             }
 
-            // 5. 查询 MySQL 补充完整信息
+            // 2. 查询 MySQL 补充完整信息
             List<VoiceCard> cards = voiceCardService.listByIds(cardIds);
             
-            // 6. 按原始相似度顺序排序
+            // 3. 按检索结果顺序排序
             Map<Long, VoiceCard> cardMap = cards.stream()
                     .collect(Collectors.toMap(VoiceCard::getId, card -> card));
             
@@ -165,6 +201,127 @@ public class VoiceCardVectorService {
         }
     }
 
+    /**
+     * 向量检索：userId / sceneTag 过滤下推到 kNN 查询，只在当前用户的卡片中检索
+     */
+    private List<Long> vectorSearchCardIds(Long userId, String query, String sceneFilter, int topK) {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        FilterExpressionBuilder.Op filter = b.eq("userId", userId);
+        if (sceneFilter != null && !sceneFilter.isEmpty()) {
+            filter = b.and(filter, b.eq("sceneTag", sceneFilter));
+        }
+        SearchRequest searchRequest = SearchRequest.builder()
+                .query(query)
+                .topK(topK)
+                .similarityThreshold(SIMILARITY_THRESHOLD)
+                .filterExpression(filter.build())
+                .build();
+
+        List<Document> results = vectorStore.similaritySearch(searchRequest);
+        log.info("向量检索完成，找到 {} 个匹配结果", results.size());
+
+        return results.stream()
+                .map(doc -> toLong(doc.getMetadata().get("cardId")))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 混合检索：关键词（BM25）与向量检索放在同一个 msearch 请求中由 ES 并行执行，
+     * 再用倒数排名融合（RRF）合并两路结果
+     * 没有使用 ES 原生的 rrf 检索器，它对集群版本和许可证有要求
+     */
+    @SuppressWarnings("rawtypes")
+    private List<Long> hybridSearchCardIds(Long userId, String query, String sceneFilter, int topK) throws IOException {
+        int window = Math.max(topK * 2, HYBRID_RANK_WINDOW);
+
+        // 1. 查询向量（命中查询向量缓存时不调用模型）
+        float[] embedding = embeddingModel.embed(query);
+        List<Float> queryVector = new ArrayList<>(embedding.length);
+        for (float v : embedding) {
+            queryVector.add(v);
+        }
+
+        // 2. 两路检索共用的过滤条件
+        List<Query> filters = new ArrayList<>();
+        filters.add(Query.of(q -> q.term(t -> t.field("metadata.userId").value(userId))));
+        if (sceneFilter != null && !sceneFilter.isEmpty()) {
+            filters.add(Query.of(q -> q.term(t -> t.field("metadata.sceneTag").value(sceneFilter))));
+        }
+
+        // 3. 一次请求执行关键词检索和 kNN 检索
+        MsearchResponse<Map> response = elasticsearchClient.msearch(m -> m
+                        .index(indexName)
+                        .searches(s -> s
+                                .header(h -> h)
+                                .body(body -> body
+                                        .size(window)
+                                        .source(src -> src.filter(f -> f.includes("metadata.cardId")))
+                                        .query(q -> q.bool(bq -> bq
+                                                .must(mq -> mq.multiMatch(mm -> mm
+                                                        .query(query)
+                                                        .fields("metadata.cardTitle^2", "content")))
+                                                .filter(filters)))))
+                        .searches(s -> s
+                                .header(h -> h)
+                                .body(body -> body
+                                        .size(window)
+                                        .source(src -> src.filter(f -> f.includes("metadata.cardId")))
+                                        .knn(k -> k
+                                                .field("embedding")
+                                                .queryVector(queryVector)
+                                                .k(window)
+                                                .numCandidates(window * 4)
+                                                // ES 余弦相似度评分为 (1 + cos) / 2，阈值换算为原始余弦值
+                                                .similarity((float) (2 * SIMILARITY_THRESHOLD - 1))
+                                                .filter(filters)))),
+                Map.class);
+
+        List<Long> keywordIds = extractCardIds(response.responses().get(0));
+        List<Long> vectorIds = extractCardIds(response.responses().get(1));
+        log.info("混合检索完成: 关键词命中={}, 向量命中={}", keywordIds.size(), vectorIds.size());
+
+        // 4. 倒数排名融合
+        return reciprocalRankFusion(List.of(keywordIds, vectorIds), topK);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private List<Long> extractCardIds(MultiSearchResponseItem<Map> item) {
+        if (item.isFailure()) {
+            log.warn("混合检索子查询失败: {}", item.failure().error().reason());
+            return List.of();
+        }
+        return item.result().hits().hits().stream()
+                .map(Hit::source)
+                .filter(Objects::nonNull)
+                .map(source -> source.get("metadata"))
+                .filter(metadata -> metadata instanceof Map)
+                .map(metadata -> toLong(((Map) metadata).get("cardId")))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * 倒数排名融合：score = Σ 1 / (k + rank)，只看排名不看原始分数，不需要对两路分数做归一化
+     */
+    private static List<Long> reciprocalRankFusion(List<List<Long>> rankings, int topK) {
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (List<Long> ranking : rankings) {
+            for (int i = 0; i < ranking.size(); i++) {
+                scores.merge(ranking.get(i), 1.0 / (RRF_K + i + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(topK)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
     /**
      * 删除卡片索引
      */
@@ -178,57 +335,260 @@ public class VoiceCardVectorService {
         }
     }
 
+    /**
+     * 批量写入（覆盖）卡片索引
+     */
+    public void upsertCards(List<VoiceCard> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        vectorStore.add(cards.stream().map(this::buildDocument).toList());
+    }
+
+    /**
+     * 批量删除卡片索引
+     */
+    public void deleteCardIndexes(List<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return;
+        }
+        vectorStore.delete(cardIds.stream().map(String::valueOf).toList());
+    }
+
+    /**
+     * 索引是否已与数据库一致（全量索引成功过，此后的变更由事件流增量同步）
+     */
+    public boolean isIndexConsistent() {
+        return vectorIndexConsistencyManager.isConsistent();
+    }
+
+    /**
+     * 清除索引一致性标记（索引被删除或重建时调用）
+     */
+    public void clearIndexConsistent() {
+        vectorIndexConsistencyManager.clear("索引被删除或重建");
+    }
+
     /**
      * 批量索引所有卡片
      * 异步执行，用于初始化或重建索引
-     * 
+     * 流水线：按主键游标分页读取 -> 分批构建 Document -> 按指纹过滤未变化的卡片
+     * -> 并发写入向量存储（向量化按 BatchingStrategy 分批，ES 批量写入）-> 清理已删除卡片的索引
+     * 写入并发数有上限，写入跟不上时分页读取会阻塞等待，内存中最多只保留有限批次
+     *
      * @param userId 用户ID，为null时索引所有用户的卡片
      */
     public void indexAllCards(Long userId) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                log.info("开始批量索引卡片: userId={}", userId);
-                
-                // 1. 查询所有需要索引的卡片
-                List<VoiceCard> cards;
-                if (userId != null) {
-                    cards = voiceCardService.list(new LambdaQueryWrapper<VoiceCard>()
-                            .eq(VoiceCard::getUserId, userId)
-                            .eq(VoiceCard::getIsDelete, 0));
-                } else {
-                    cards = voiceCardService.list(new LambdaQueryWrapper<VoiceCard>()
-                            .eq(VoiceCard::getIsDelete, 0));
-                }
-                
-                log.info("共需索引 {} 张卡片", cards.size());
-                
-                // 2. 批量索引
-                int successCount = 0;
-                int failCount = 0;
-                
-                for (VoiceCard card : cards) {
-                    try {
-                        indexCard(card.getId());
-                        successCount++;
-                        
-                        // 每10张卡片输出一次进度
-                        if (successCount % 10 == 0) {
-                            log.info("批量索引进度: {}/{}", successCount, cards.size());
-                        }
-                    } catch (Exception e) {
-                        log.error("索引卡片失败: cardId={}, error={}", card.getId(), e.getMessage());
-                        failCount++;
+        indexExecutor.runAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            AtomicInteger successCount = new AtomicInteger();
+            AtomicInteger failCount = new AtomicInteger();
+            AtomicInteger skipCount = new AtomicInteger();
+            int deleteCount = 0;
+            Semaphore permits = new Semaphore(reindexConcurrency);
+            boolean completed = false;
+
+            log.info("开始批量索引卡片: userId={}", userId);
+            try (ExecutorService writer = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("reindex-", 0).factory())) {
+                long lastId = 0L;
+                while (true) {
+                    long pageStartId = lastId;
+                    // 1. 游标分页：id > lastId，避免深分页和一次性加载全部卡片
+                    List<VoiceCard> page = voiceCardService.list(new LambdaQueryWrapper<VoiceCard>()
+                            .gt(VoiceCard::getId, lastId)
+                            .eq(userId != null, VoiceCard::getUserId, userId)
+                            .eq(VoiceCard::getIsDelete, 0)
+                            .orderByAsc(VoiceCard::getId)
+                            .last("limit " + reindexPageSize));
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    lastId = page.get(page.size() - 1).getId();
+
+                    // 2. 构建 Document，按指纹跳过内容和模型都没有变化的卡片（不需要重新向量化）
+                    List<Document> documents = page.stream().map(this::buildDocument).toList();
+                    Map<String, String> indexed = fetchFingerprints(documents.stream().map(Document::getId).toList());
+                    List<Document> changed = documents.stream()
+                            .filter(doc -> !doc.getMetadata().get("fingerprint").equals(indexed.get(doc.getId())))
+                            .toList();
+                    skipCount.addAndGet(documents.size() - changed.size());
+
+                    // 3. 变化的卡片按批提交写入
+                    for (int i = 0; i < changed.size(); i += reindexBulkSize) {
+                        List<Document> batch = changed.subList(i, Math.min(i + reindexBulkSize, changed.size()));
+                        // 背压：写入并发已满时在这里等待
+                        permits.acquire();
+                        writer.execute(() -> {
+                            try {
+                                vectorStore.add(batch);
+                                successCount.addAndGet(batch.size());
+                            } catch (Exception e) {
+                                log.error("批量写入索引失败: cardIds={}~{}, error={}",
+                                        batch.get(0).getId(), batch.get(batch.size() - 1).getId(), e.getMessage());
+                                failCount.addAndGet(batch.size());
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    }
+                    // 4. 清理本页 cardId 区间内数据库中已删除卡片的索引，只需要本页的有效ID
+                    Set<Long> pageIds = page.stream().map(VoiceCard::getId).collect(Collectors.toSet());
+                    deleteCount += deleteStaleIndexes(userId, pageStartId, lastId, null, pageIds);
+                    log.info("批量索引进度: 已处理至 cardId={}, 跳过={}, 更新={}, 删除={}, 失败={}",
+                            lastId, skipCount.get(), successCount.get(), deleteCount, failCount.get());
+
+                    if (page.size() < reindexPageSize) {
+                        break;
                     }
                 }
-                
-                log.info("批量索引完成: 成功={}, 失败={}", successCount, failCount);
-                
+                // 5. 最后一张有效卡片之后（或没有任何有效卡片时全部）的索引都已失效；
+                // 索引期间新建的卡片由事件流同步，按创建时间排除
+                deleteCount += deleteStaleIndexes(userId, lastId, Long.MAX_VALUE, startTime, Set.of());
+                completed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("批量索引被中断");
             } catch (Exception e) {
                 log.error("批量索引失败: {}", e.getMessage(), e);
             }
+            // try-with-resources 关闭执行器时会等待所有写入完成
+            log.info("批量索引完成: 跳过={}, 更新={}, 删除={}, 失败={}, 耗时={}ms",
+                    skipCount.get(), successCount.get(), deleteCount, failCount.get(),
+                    System.currentTimeMillis() - startTime);
+
+            // 全量索引无失败时标记为一致，下次启动可跳过全量索引
+            if (userId == null && completed && failCount.get() == 0) {
+                vectorIndexConsistencyManager.markConsistent();
+            }
         });
     }
 
+    /**
+     * 构建卡片对应的向量文档
+     */
+    private Document buildDocument(VoiceCard card) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("cardId", card.getId());
+        metadata.put("userId", card.getUserId());
+        metadata.put("voiceModelId", card.getVoiceModelId());
+        metadata.put("cardTitle", card.getCardTitle());
+        metadata.put("sceneTag", card.getSceneTag() != null ? card.getSceneTag() : "custom");
+        metadata.put("emotionTag", card.getEmotionTag() != null ? card.getEmotionTag() : "");
+        metadata.put("createTime", card.getCreateTime().getTime());
+        String indexText = buildIndexText(card);
+        // 指纹覆盖文本、元数据和向量模型，任一变化都需要重新写入
+        metadata.put("fingerprint", DigestUtil.sha256Hex(
+                embeddingModelName + "\n" + indexText + "\n" + new TreeMap<>(metadata)));
+        metadata.put("embeddingModel", embeddingModelName);
+        return new Document(card.getId().toString(), indexText, metadata);
+    }
+
+    /**
+     * 批量查询已索引文档的指纹
+     *
+     * @return 文档ID -> 指纹，未索引的文档不在结果中
+     */
+    @SuppressWarnings("rawtypes")
+    private Map<String, String> fetchFingerprints(List<String> ids) throws IOException {
+        Map<String, String> fingerprints = new HashMap<>();
+        if (vectorStore instanceof LocalHnswVectorStore localVectorStore) {
+            localVectorStore.getMetadata(ids).forEach((id, metadata) -> {
+                if (metadata.get("fingerprint") instanceof String fingerprint) {
+                    fingerprints.put(id, fingerprint);
+                }
+            });
+            return fingerprints;
+        }
+        MgetResponse<Map> response = elasticsearchClient.mget(m -> m
+                        .index(indexName)
+                        .ids(ids)
+                        .sourceIncludes("metadata.fingerprint"),
+                Map.class);
+        for (MultiGetResponseItem<Map> item : response.docs()) {
+            if (!item.isResult() || !item.result().found() || item.result().source() == null) {
+                continue;
+            }
+            if (item.result().source().get("metadata") instanceof Map metadata
+                    && metadata.get("fingerprint") instanceof String fingerprint) {
+                fingerprints.put(item.result().id(), fingerprint);
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * 删除 cardId 区间 (fromId, toId] 内数据库中已不存在（或已删除）的卡片索引
+     * 按分页区间逐段清理，内存中只保留一页的ID
+     *
+     * @param createdBefore 只清理该时间之前创建的卡片索引，为 null 时不限制
+     * @param liveIds       区间内数据库中有效的卡片ID
+     * @return 删除的索引数
+     */
+    @SuppressWarnings("rawtypes")
+    private int deleteStaleIndexes(Long userId, long fromId, long toId, Long createdBefore,
+                                   Set<Long> liveIds) throws IOException {
+        List<String> staleIds = new ArrayList<>();
+        if (vectorStore instanceof LocalHnswVectorStore localVectorStore) {
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            Filter.Expression filter = createdBefore != null ? b.lt("createTime", createdBefore).build() : null;
+            localVectorStore.findIdsInRange(userId, fromId, toId, filter).stream()
+                    .filter(id -> !liveIds.contains(Long.valueOf(id)))
+                    .forEach(staleIds::add);
+        } else {
+            // 区间内按 cardId 游标遍历索引文档，数量与页大小相当
+            Long lastCardId = null;
+            while (true) {
+                Long after = lastCardId;
+                SearchResponse<Map> response = elasticsearchClient.search(s -> {
+                    s.index(indexName)
+                            .size(reindexPageSize)
+                            .source(src -> src.filter(f -> f.includes("metadata.cardId")))
+                            .sort(so -> so.field(f -> f.field("metadata.cardId").order(SortOrder.Asc)))
+                            .query(q -> q.bool(bq -> {
+                                bq.filter(f -> f.range(r -> {
+                                    r.field("metadata.cardId").gt(JsonData.of(fromId));
+                                    if (toId < Long.MAX_VALUE) {
+                                        r.lte(JsonData.of(toId));
+                                    }
+                                    return r;
+                                }));
+                                if (createdBefore != null) {
+                                    bq.filter(f -> f.range(r -> r.field("metadata.createTime")
+                                            .lt(JsonData.of(createdBefore))));
+                                }
+                                if (userId != null) {
+                                    bq.filter(f -> f.term(t -> t.field("metadata.userId").value(userId)));
+                                }
+                                return bq;
+                            }));
+                    if (after != null) {
+                        s.searchAfter(FieldValue.of(after));
+                    }
+                    return s;
+                }, Map.class);
+                List<Hit<Map>> hits = response.hits().hits();
+                for (Hit<Map> hit : hits) {
+                    Long cardId = hit.source() != null && hit.source().get("metadata") instanceof Map metadata
+                            ? toLong(metadata.get("cardId")) : null;
+                    if (cardId != null && !liveIds.contains(cardId)) {
+                        staleIds.add(hit.id());
+                    }
+                    if (cardId != null) {
+                        lastCardId = cardId;
+                    }
+                }
+                if (hits.size() < reindexPageSize || lastCardId == null) {
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < staleIds.size(); i += reindexBulkSize) {
+            vectorStore.delete(staleIds.subList(i, Math.min(i + reindexBulkSize, staleIds.size())));
+        }
+        return staleIds.size();
+    }
+
     /**
      * 构建索引文本
      */
@@ -0,0 +1,216 @@
+package com.zyb.backend.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zyb.backend.model.entity.VoiceModel;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 声音复刻状态轮询服务
+ * 工作原理：
+ * 1. 所有训练中的音色登记在同一张待查表里，由一个定时任务统一轮询，不再为每次克隆单独起线程
+ * 2. 启动时从数据库加载 trainingStatus=1 的模型，进程重启后继续跟踪
+ * 3. 每轮只查询到期的音色，查询并发执行（限流由 DashScope 网关负责）；查询间隔随轮询次数逐步拉长
+ * 4. 状态变化按结果分组批量写回数据库
+ * 多实例部署时各实例会重复查询同一批音色，状态更新带 trainingStatus=1 条件，结果幂等
+ */
+@Slf4j
+@Service
+public class VoiceEnrollmentPoller {
+
+    /**
+     * 训练状态：1-训练中 2-成功 3-失败
+     */
+    private static final int STATUS_TRAINING = 1;
+
+    private static final int STATUS_SUCCESS = 2;
+
+    private static final int STATUS_FAILED = 3;
+
+    @Resource
+    private VoiceModelService voiceModelService;
+
+    @Resource
+    private CosyVoiceService cosyVoiceService;
+
+    /**
+     * 登记后首次查询的延迟（毫秒），音色通常需要一分钟以上才能就绪
+     */
+    @Value("${voiceKeeper.voice.enrollment.initial-delay-ms:10000}")
+    private long initialDelayMillis;
+
+    /**
+     * 查询间隔上限（毫秒）
+     */
+    @Value("${voiceKeeper.voice.enrollment.max-interval-ms:60000}")
+    private long maxIntervalMillis;
+
+    /**
+     * 从创建起超过该时长仍未就绪视为超时（分钟）
+     */
+    @Value("${voiceKeeper.voice.enrollment.timeout-minutes:10}")
+    private long timeoutMinutes;
+
+    /**
+     * 每轮最多查询的音色数
+     */
+    @Value("${voiceKeeper.voice.enrollment.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * 待查询的音色，key 为模型ID
+     */
+    private final Map<Long, PendingVoice> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder queries = new LongAdder();
+
+    private final LongAdder succeeded = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private static final class PendingVoice {
+
+        private final Long modelId;
+
+        private final String voiceId;
+
+        private final long createdAtMillis;
+
+        private int polls;
+
+        private long nextPollAtMillis;
+
+        private PendingVoice(Long modelId, String voiceId, long createdAtMillis, long nextPollAtMillis) {
+            this.modelId = modelId;
+            this.voiceId = voiceId;
+            this.createdAtMillis = createdAtMillis;
+            this.nextPollAtMillis = nextPollAtMillis;
+        }
+    }
+
+    /**
+     * 启动时加载训练中的模型
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        List<VoiceModel> models = voiceModelService.list(new LambdaQueryWrapper<VoiceModel>()
+                .select(VoiceModel::getId, VoiceModel::getAiModelId, VoiceModel::getCreateTime)
+                .eq(VoiceModel::getTrainingStatus, STATUS_TRAINING)
+                .isNotNull(VoiceModel::getAiModelId));
+        long now = System.currentTimeMillis();
+        for (VoiceModel model : models) {
+            long createdAt = model.getCreateTime() != null ? model.getCreateTime().getTime() : now;
+            // 重启后立即查询一次
+            pending.putIfAbsent(model.getId(), new PendingVoice(model.getId(), model.getAiModelId(), createdAt, now));
+        }
+        log.info("声音复刻轮询已加载训练中的模型: {} 个", models.size());
+    }
+
+    /**
+     * 登记新提交的音色
+     */
+    public void register(Long modelId, String voiceId) {
+        long now = System.currentTimeMillis();
+        pending.put(modelId, new PendingVoice(modelId, voiceId, now, now + initialDelayMillis));
+        log.info("登记待查询音色: modelId={}, voiceId={}", modelId, voiceId);
+    }
+
+    /**
+     * 定时轮询到期的音色
+     */
+    @Scheduled(fixedDelayString = "${voiceKeeper.voice.enrollment.tick-ms:2000}")
+    public void poll() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<PendingVoice> due = pending.values().stream()
+                .filter(voice -> voice.nextPollAtMillis <= now)
+                .sorted(Comparator.comparingLong(voice -> voice.nextPollAtMillis))
+                .limit(batchSize)
+                .toList();
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // 1. 并发查询状态
+        Map<PendingVoice, Future<String>> results = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PendingVoice voice : due) {
+                results.put(voice, executor.submit(() -> cosyVoiceService.queryVoiceStatus(voice.voiceId)));
+            }
+        }
+        queries.add(due.size());
+
+        // 2. 按结果分组
+        List<Long> succeededIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        List<Long> timeoutIds = new ArrayList<>();
+        long timeoutMillis = timeoutMinutes * 60_000;
+        results.forEach((voice, future) -> {
+            String status = null;
+            try {
+                status = future.get();
+            } catch (Exception e) {
+                log.warn("查询音色状态失败: modelId={}, voiceId={}, error={}", voice.modelId, voice.voiceId, e.getMessage());
+            }
+            if ("OK".equals(status)) {
+                succeededIds.add(voice.modelId);
+            } else if ("UNDEPLOYED".equals(status)) {
+                failedIds.add(voice.modelId);
+            } else if (now - voice.createdAtMillis > timeoutMillis) {
+                timeoutIds.add(voice.modelId);
+            } else {
+                // 仍在处理中（或查询失败），间隔逐步拉长
+                voice.polls++;
+                long interval = Math.min(maxIntervalMillis, (long) (initialDelayMillis * Math.pow(1.5, voice.polls - 1)));
+                voice.nextPollAtMillis = System.currentTimeMillis() + interval;
+            }
+        });
+
+        // 3. 批量写回状态
+        complete(succeededIds, STATUS_SUCCESS, "声音克隆成功");
+        complete(failedIds, STATUS_FAILED, "声音克隆失败");
+        complete(timeoutIds, STATUS_FAILED, "声音克隆超时，请重试");
+        succeeded.add(succeededIds.size());
+        failed.add(failedIds.size() + timeoutIds.size());
+    }
+
+    /**
+     * 获取轮询统计信息
+     */
+    public String getStats() {
+        return String.format("声音复刻轮询统计 - 待查询: %d, 累计查询: %d, 成功: %d, 失败/超时: %d",
+                pending.size(), queries.sum(), succeeded.sum(), failed.sum());
+    }
+
+    private void complete(List<Long> modelIds, int status, String message) {
+        if (modelIds.isEmpty()) {
+            return;
+        }
+        try {
+            voiceModelService.updateTrainingStatusBatch(modelIds, STATUS_TRAINING, status, message);
+            modelIds.forEach(pending::remove);
+            log.info("音色状态更新: status={}, modelIds={}", status, modelIds);
+        } catch (Exception e) {
+            // 写库失败时保留在待查表里，下一轮重新查询并写入
+            log.error("批量更新音色状态失败: status={}, modelIds={}", status, modelIds, e);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.zyb.backend.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zyb.backend.common.CursorPage;
 import com.zyb.backend.model.entity.VoiceModel;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
 * @author 张云博
@@ -17,6 +20,18 @@ public interface VoiceModelService extends IService<VoiceModel> {
      */
     List<VoiceModel> listByUserId(Long userId);
 
+    /**
+     * 按游标分页查询用户的声音模型（按创建时间倒序）
+     *
+     * @param cursor 上一页返回的游标，为空时查第一页
+     */
+    CursorPage<VoiceModel> listByUserIdByCursor(Long userId, String cursor, int size);
+
+    /**
+     * 按游标逐页读取用户的全部声音模型，逐条交给 consumer
+     */
+    void streamByUserId(Long userId, Consumer<VoiceModel> consumer);
+
     /**
      * 根据用户ID和模型名称查询
      */
@@ -28,7 +43,14 @@ public interface VoiceModelService extends IService<VoiceModel> {
     boolean updateTrainingStatus(Long modelId, Integer status, String message);
 
     /**
-     * 增加使用次数
+     * 批量更新训练状态，只更新当前仍处于 fromStatus 的模型
+     *
+     * @return 实际更新的行数
+     */
+    int updateTrainingStatusBatch(Collection<Long> modelIds, Integer fromStatus, Integer status, String message);
+
+    /**
+     * 增加使用次数（写回计数，数据库中的值会有短暂滞后）
      */
     boolean increaseUseCount(Long modelId);
 }
@@ -2,13 +2,29 @@ package com.zyb.backend.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zyb.backend.common.CursorPage;
+import com.zyb.backend.manager.VoiceCardChangePublisher;
+import com.zyb.backend.manager.WriteBehindCounterManager;
 import com.zyb.backend.mapper.VoiceCardMapper;
 import com.zyb.backend.model.entity.VoiceCard;
+import com.zyb.backend.model.entity.VoiceModel;
+import com.zyb.backend.model.enums.CounterTypeEnum;
+import com.zyb.backend.model.vo.VoiceCardVO;
 import com.zyb.backend.service.VoiceCardService;
+import com.zyb.backend.service.VoiceModelService;
+import jakarta.annotation.Resource;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 声音卡片服务实现
@@ -18,6 +34,51 @@ import java.util.List;
 public class VoiceCardServiceImpl extends ServiceImpl<VoiceCardMapper, VoiceCard>
         implements VoiceCardService {
 
+    @Resource
+    private VoiceCardChangePublisher voiceCardChangePublisher;
+
+    @Resource
+    private VoiceModelService voiceModelService;
+
+    @Resource
+    private WriteBehindCounterManager writeBehindCounterManager;
+
+    /**
+     * 新增卡片，成功后发布变更事件
+     */
+    @Override
+    public boolean save(VoiceCard entity) {
+        boolean result = super.save(entity);
+        if (result) {
+            voiceCardChangePublisher.publishUpsert(entity.getId());
+        }
+        return result;
+    }
+
+    /**
+     * 修改卡片，成功后发布变更事件
+     */
+    @Override
+    public boolean updateById(VoiceCard entity) {
+        boolean result = super.updateById(entity);
+        if (result) {
+            voiceCardChangePublisher.publishUpsert(entity.getId());
+        }
+        return result;
+    }
+
+    /**
+     * 删除卡片（逻辑删除），成功后发布变更事件
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            voiceCardChangePublisher.publishDelete(Long.valueOf(id.toString()));
+        }
+        return result;
+    }
+
     @Override
     public List<VoiceCard> listByUserId(Long userId) {
         LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
@@ -37,6 +98,64 @@ public class VoiceCardServiceImpl extends ServiceImpl<VoiceCardMapper, VoiceCard
         return list(wrapper);
     }
 
+    @Override
+    public List<VoiceCard> listRecentByUserId(Long userId, String sceneTag, int limit) {
+        LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(VoiceCard::getUserId, userId)
+                .eq(StringUtils.isNotBlank(sceneTag), VoiceCard::getSceneTag, sceneTag)
+                .eq(VoiceCard::getIsDelete, 0)
+                .orderByDesc(VoiceCard::getCreateTime)
+                .last("limit " + limit);
+        return list(wrapper);
+    }
+
+    @Override
+    public List<VoiceCard> listSummaryByUserId(Long userId, String sceneTag, Long voiceModelId, int previewLength, int limit) {
+        return baseMapper.listSummaryByUserId(userId, sceneTag, voiceModelId, previewLength, limit);
+    }
+
+    @Override
+    public long countByUserId(Long userId, String sceneTag, Long voiceModelId) {
+        LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(VoiceCard::getUserId, userId)
+                .eq(StringUtils.isNotBlank(sceneTag), VoiceCard::getSceneTag, sceneTag)
+                .eq(voiceModelId != null, VoiceCard::getVoiceModelId, voiceModelId)
+                .eq(VoiceCard::getIsDelete, 0);
+        return count(wrapper);
+    }
+
+    @Override
+    public CursorPage<VoiceCardVO> listVoiceCardVOByCursor(Long userId, String sceneTag, String cursor, int size) {
+        CursorPage.Cursor after = CursorPage.decode(cursor);
+        LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(VoiceCard::getUserId, userId)
+                .eq(StringUtils.isNotBlank(sceneTag), VoiceCard::getSceneTag, sceneTag)
+                .eq(VoiceCard::getIsDelete, 0);
+        if (after != null) {
+            // (createTime, id) < (游标时间, 游标ID)
+            wrapper.and(w -> w.lt(VoiceCard::getCreateTime, after.createTime())
+                    .or(o -> o.eq(VoiceCard::getCreateTime, after.createTime()).lt(VoiceCard::getId, after.id())));
+        }
+        wrapper.orderByDesc(VoiceCard::getCreateTime)
+                .orderByDesc(VoiceCard::getId)
+                .last("limit " + (size + 1));
+        return CursorPage.of(list(wrapper), size, VoiceCard::getCreateTime, VoiceCard::getId)
+                .convert(this::getVoiceCardVO);
+    }
+
+    @Override
+    public void streamVoiceCardVOByUserId(Long userId, String sceneTag, int chunkSize, Consumer<List<VoiceCardVO>> consumer) {
+        // 逐页走游标查询，每页查完即归还连接，写给慢客户端时不占用数据库连接
+        String cursor = null;
+        do {
+            CursorPage<VoiceCardVO> page = listVoiceCardVOByCursor(userId, sceneTag, cursor, chunkSize);
+            if (!page.getRecords().isEmpty()) {
+                consumer.accept(page.getRecords());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
     @Override
     public List<VoiceCard> listByVoiceModelId(Long voiceModelId) {
         LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
@@ -48,17 +167,49 @@ public class VoiceCardServiceImpl extends ServiceImpl<VoiceCardMapper, VoiceCard
 
     @Override
     public boolean increasePlayCount(Long cardId) {
-        VoiceCard card = getById(cardId);
-        if (card == null) {
-            return false;
-        }
-        card.setPlayCount(card.getPlayCount() == null ? 1 : card.getPlayCount() + 1);
-        card.setLastPlayTime(new Date());
-        return updateById(card);
+        // 播放次数不参与向量索引，不发布变更事件
+        writeBehindCounterManager.increment(CounterTypeEnum.PLAY, cardId);
+        return true;
     }
-}
-
 
+    @Override
+    public boolean increaseShareCount(Long cardId) {
+        writeBehindCounterManager.increment(CounterTypeEnum.SHARE, cardId);
+        return true;
+    }
 
+    @Override
+    public VoiceCardVO getVoiceCardVO(VoiceCard voiceCard) {
+        if (voiceCard == null) {
+            return null;
+        }
+        return getVoiceCardVO(List.of(voiceCard)).get(0);
+    }
 
+    @Override
+    public List<VoiceCardVO> getVoiceCardVO(List<VoiceCard> voiceCards) {
+        if (voiceCards == null || voiceCards.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // 1. 收集去重后的声音模型ID，一次查出
+        Set<Long> voiceModelIds = voiceCards.stream()
+                .map(VoiceCard::getVoiceModelId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> modelNames = voiceModelIds.isEmpty()
+                ? Map.of()
+                : voiceModelService.listByIds(voiceModelIds).stream()
+                        .filter(voiceModel -> voiceModel.getModelName() != null)
+                        .collect(Collectors.toMap(VoiceModel::getId, VoiceModel::getModelName, (a, b) -> a));
 
+        // 2. 内存中关联
+        return voiceCards.stream().map(voiceCard -> {
+            VoiceCardVO voiceCardVO = new VoiceCardVO();
+            BeanUtils.copyProperties(voiceCard, voiceCardVO);
+            if (voiceCard.getVoiceModelId() != null) {
+                voiceCardVO.setVoiceModelName(modelNames.get(voiceCard.getVoiceModelId()));
+            }
+            return voiceCardVO;
+        }).collect(Collectors.toList());
+    }
+}
@@ -3,12 +3,22 @@ package com.zyb.backend.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zyb.backend.common.CursorPage;
+import com.zyb.backend.manager.VoiceModelCacheManager;
+import com.zyb.backend.manager.WriteBehindCounterManager;
 import com.zyb.backend.mapper.VoiceModelMapper;
 import com.zyb.backend.model.entity.VoiceModel;
+import com.zyb.backend.model.enums.CounterTypeEnum;
 import com.zyb.backend.service.VoiceModelService;
+import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
 * @author 张云博
@@ -19,6 +29,60 @@ import java.util.List;
 public class VoiceModelServiceImpl extends ServiceImpl<VoiceModelMapper, VoiceModel>
         implements VoiceModelService {
 
+    /**
+     * 流式读取时每页的模型数
+     */
+    private static final int STREAM_PAGE_SIZE = 100;
+
+    @Resource
+    private VoiceModelCacheManager voiceModelCacheManager;
+
+    @Resource
+    private WriteBehindCounterManager writeBehindCounterManager;
+
+    /**
+     * 按ID查询走缓存
+     */
+    @Override
+    public VoiceModel getById(Serializable id) {
+        if (!(id instanceof Long modelId)) {
+            return super.getById(id);
+        }
+        return voiceModelCacheManager.getById(modelId, super::getById);
+    }
+
+    /**
+     * 批量按ID查询走缓存，只对未命中的ID查库
+     */
+    @Override
+    public List<VoiceModel> listByIds(Collection<? extends Serializable> idList) {
+        if (idList == null || idList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!idList.stream().allMatch(Long.class::isInstance)) {
+            return super.listByIds(idList);
+        }
+        List<Long> ids = idList.stream().map(Long.class::cast).toList();
+        Map<Long, VoiceModel> models = voiceModelCacheManager.getByIds(ids, super::listByIds);
+        return new ArrayList<>(models.values());
+    }
+
+    @Override
+    public boolean updateById(VoiceModel entity) {
+        boolean result = super.updateById(entity);
+        voiceModelCacheManager.evict(entity.getId());
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (id instanceof Long modelId) {
+            voiceModelCacheManager.evict(modelId);
+        }
+        return result;
+    }
+
     @Override
     public List<VoiceModel> listByUserId(Long userId) {
         LambdaQueryWrapper<VoiceModel> wrapper = new LambdaQueryWrapper<>();
@@ -28,11 +92,40 @@ public class VoiceModelServiceImpl extends ServiceImpl<VoiceModelMapper, VoiceMo
     }
 
     @Override
-    public VoiceModel getByUserIdAndName(Long userId, String modelName) {
+    public CursorPage<VoiceModel> listByUserIdByCursor(Long userId, String cursor, int size) {
+        CursorPage.Cursor after = CursorPage.decode(cursor);
         LambdaQueryWrapper<VoiceModel> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(VoiceModel::getUserId, userId)
-                .eq(VoiceModel::getModelName, modelName);
-        return getOne(wrapper);
+        wrapper.eq(VoiceModel::getUserId, userId);
+        if (after != null) {
+            // (createTime, id) < (游标时间, 游标ID)
+            wrapper.and(w -> w.lt(VoiceModel::getCreateTime, after.createTime())
+                    .or(o -> o.eq(VoiceModel::getCreateTime, after.createTime()).lt(VoiceModel::getId, after.id())));
+        }
+        wrapper.orderByDesc(VoiceModel::getCreateTime)
+                .orderByDesc(VoiceModel::getId)
+                .last("limit " + (size + 1));
+        return CursorPage.of(list(wrapper), size, VoiceModel::getCreateTime, VoiceModel::getId);
+    }
+
+    @Override
+    public void streamByUserId(Long userId, Consumer<VoiceModel> consumer) {
+        // 逐页走游标查询，每页查完即归还连接，写给慢客户端时不占用数据库连接
+        String cursor = null;
+        do {
+            CursorPage<VoiceModel> page = listByUserIdByCursor(userId, cursor, STREAM_PAGE_SIZE);
+            page.getRecords().forEach(consumer);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Override
+    public VoiceModel getByUserIdAndName(Long userId, String modelName) {
+        return voiceModelCacheManager.getByUserIdAndName(userId, modelName, () -> {
+            LambdaQueryWrapper<VoiceModel> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(VoiceModel::getUserId, userId)
+                    .eq(VoiceModel::getModelName, modelName);
+            return getOne(wrapper);
+        });
     }
 
     @Override
@@ -41,21 +134,30 @@ public class VoiceModelServiceImpl extends ServiceImpl<VoiceModelMapper, VoiceMo
         wrapper.eq(VoiceModel::getId, modelId)
                 .set(VoiceModel::getTrainingStatus, status)
                 .set(VoiceModel::getTrainingMessage, message);
-        return update(wrapper);
+        boolean result = update(wrapper);
+        voiceModelCacheManager.evict(modelId);
+        return result;
     }
 
     @Override
-    public boolean increaseUseCount(Long modelId) {
-        VoiceModel model = getById(modelId);
-        if (model == null) {
-            return false;
+    public int updateTrainingStatusBatch(Collection<Long> modelIds, Integer fromStatus, Integer status, String message) {
+        if (modelIds == null || modelIds.isEmpty()) {
+            return 0;
         }
-        model.setUseCount(model.getUseCount() == null ? 1 : model.getUseCount() + 1);
-        return updateById(model);
+        LambdaUpdateWrapper<VoiceModel> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.in(VoiceModel::getId, modelIds)
+                .eq(VoiceModel::getTrainingStatus, fromStatus)
+                .set(VoiceModel::getTrainingStatus, status)
+                .set(VoiceModel::getTrainingMessage, message);
+        int rows = baseMapper.update(null, wrapper);
+        voiceModelCacheManager.evict(modelIds);
+        return rows;
     }
-}
-
-
-
-
 
+    @Override
+    public boolean increaseUseCount(Long modelId) {
+        // 缓存在写回时失效
+        writeBehindCounterManager.increment(CounterTypeEnum.USE, modelId);
+        return true;
+    }
+}
@@ -1,9 +1,8 @@
 package com.zyb.backend.tools;
 
 import cn.hutool.core.io.FileUtil;
+import com.zyb.backend.annotation.SideEffect;
 import com.zyb.backend.constant.FileConstant;
-import com.zyb.backend.utils.ToolRetryHelper;
-import jakarta.annotation.Resource;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
@@ -16,9 +15,6 @@ public class FileTool {
 
     private final String FILE_DIR = FileConstant.VOICE_DIR + "file";
 
-    @Resource
-    private ToolRetryHelper retryHelper;
-
     @Tool(description = "读取文件内容")
     public String readFile(@ToolParam(description = "文件名") String fileName) {
         String filePath = FILE_DIR + "/" + fileName;
@@ -30,6 +26,7 @@ public class FileTool {
     }
 
     @Tool(description = "写入文件内容")
+    @SideEffect
     public String writeFile(
             @ToolParam(description = "文件名") String fileName,
             @ToolParam(description = "文件内容") String content) {
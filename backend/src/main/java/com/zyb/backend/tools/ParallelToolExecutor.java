@@ -0,0 +1,154 @@
+package com.zyb.backend.tools;
+
+import com.zyb.backend.annotation.SideEffect;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.support.ToolUtils;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 并行工具执行器
+ * 工作原理：
+ * 1. 同一个助手消息中的多个工具调用按原始顺序扫描
+ * 2. 相邻的无副作用调用（查询类）在虚拟线程上并行执行
+ * 3. 标记了 {@link SideEffect} 的调用作为屏障：等待前面的调用完成后单独执行
+ * 4. 结果按原始调用顺序组装成 ToolResponseMessage
+ */
+@Slf4j
+public class ParallelToolExecutor {
+
+    /**
+     * 工具名称 -> 工具回调
+     */
+    private final Map<String, ToolCallback> toolCallbacks = new HashMap<>();
+
+    /**
+     * 有副作用的工具名称
+     */
+    private final Set<String> sideEffectTools = new HashSet<>();
+
+    private final ToolExecutionExceptionProcessor exceptionProcessor = DefaultToolExecutionExceptionProcessor.builder().build();
+
+    private final ExecutorService executorService = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("tool-", 0).factory());
+
+    /**
+     * @param toolCallbacks 可用的工具回调
+     * @param toolObjects 定义工具方法的对象，用于识别 {@link SideEffect} 注解
+     */
+    public ParallelToolExecutor(ToolCallback[] toolCallbacks, Object... toolObjects) {
+        for (ToolCallback toolCallback : toolCallbacks) {
+            this.toolCallbacks.put(toolCallback.getToolDefinition().name(), toolCallback);
+        }
+        for (Object toolObject : toolObjects) {
+            for (Method method : AopUtils.getTargetClass(toolObject).getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Tool.class) && method.isAnnotationPresent(SideEffect.class)) {
+                    sideEffectTools.add(ToolUtils.getToolName(method));
+                }
+            }
+        }
+        log.info("初始化并行工具执行器: 工具数={}, 有副作用的工具={}", this.toolCallbacks.size(), sideEffectTools);
+    }
+
+    /**
+     * 执行工具调用
+     *
+     * @param prompt 调用模型时的提示（用于构建对话历史）
+     * @param chatResponse 包含工具调用的模型响应
+     * @return 与 ToolCallingManager 相同格式的执行结果
+     */
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("响应中没有工具调用"));
+
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        ToolResponseMessage.ToolResponse[] responses = new ToolResponseMessage.ToolResponse[toolCalls.size()];
+
+        // 当前并行批次
+        List<CompletableFuture<Void>> batch = new ArrayList<>();
+        for (int i = 0; i < toolCalls.size(); i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            int index = i;
+            if (sideEffectTools.contains(toolCall.name())) {
+                // 屏障：先等前面的并行调用完成，再在当前线程执行
+                awaitAll(batch);
+                batch.clear();
+                responses[index] = execute(toolCall);
+            } else if (toolCalls.size() == 1) {
+                responses[index] = execute(toolCall);
+            } else {
+                batch.add(CompletableFuture.runAsync(() -> responses[index] = execute(toolCall), executorService));
+            }
+        }
+        awaitAll(batch);
+
+        if (toolCalls.size() > 1) {
+            log.info("本步骤执行了 {} 个工具调用: {}", toolCalls.size(),
+                    toolCalls.stream().map(AssistantMessage.ToolCall::name).toList());
+        }
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(new ToolResponseMessage(Arrays.asList(responses)));
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(false)
+                .build();
+    }
+
+    private ToolResponseMessage.ToolResponse execute(AssistantMessage.ToolCall toolCall) {
+        ToolCallback toolCallback = toolCallbacks.get(toolCall.name());
+        if (toolCallback == null) {
+            throw new IllegalStateException("未找到工具: " + toolCall.name());
+        }
+        String arguments = toolCall.arguments() == null || toolCall.arguments().isBlank() ? "{}" : toolCall.arguments();
+        String result;
+        try {
+            result = toolCallback.call(arguments);
+        } catch (ToolExecutionException e) {
+            result = exceptionProcessor.process(e);
+        }
+        return new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), result != null ? result : "");
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
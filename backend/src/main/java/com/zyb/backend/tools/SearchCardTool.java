@@ -6,6 +6,7 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -14,9 +15,26 @@ import java.util.List;
 @Slf4j
 public class SearchCardTool {
 
+    /**
+     * 卡片内容预览长度
+     */
+    private static final int CONTENT_PREVIEW_LENGTH = 50;
+
     @Resource
     private VoiceCardService voiceCardService;
 
+    /**
+     * 单次结果最多列出的卡片数
+     */
+    @Value("${voiceKeeper.agent.tool.max-rendered-items:20}")
+    private int maxRenderedItems;
+
+    /**
+     * 单次结果列表部分的字符数上限
+     */
+    @Value("${voiceKeeper.agent.tool.max-rendered-chars:4000}")
+    private int maxRenderedChars;
+
     @Tool(description = """
         【精确查询】查询用户的声音卡片列表
         使用时机：
@@ -32,19 +50,9 @@ public class SearchCardTool {
     public String searchUserCards(@ToolParam(description = "用户ID") Long userId,
                                   @ToolParam(description = "场景标签（可选）：morning/night/encourage/miss/custom，不传则查询所有") String sceneTag,
                                   @ToolParam(description = "声音模型ID（可选）：传入后只返回该声音的卡片，用于查询特定声音的卡片") Long voiceModelId) {
-        List<VoiceCard> cards;
-        if (sceneTag != null && !sceneTag.isEmpty()) {
-            cards = voiceCardService.listByUserIdAndScene(userId, sceneTag);
-        } else {
-            cards = voiceCardService.listByUserId(userId);
-        }
-        
-        // 按voiceModelId过滤
-        if (voiceModelId != null) {
-            cards = cards.stream()
-                    .filter(card -> voiceModelId.equals(card.getVoiceModelId()))
-                    .toList();
-        }
+        // 场景、声音过滤都在 SQL 中完成，正文只取预览长度；只多取一条用于判断是否还有未列出的卡片
+        List<VoiceCard> cards = voiceCardService.listSummaryByUserId(
+                userId, sceneTag, voiceModelId, CONTENT_PREVIEW_LENGTH + 1, maxRenderedItems + 1);
 
         if (cards.isEmpty()) {
             if (voiceModelId != null) {
@@ -55,35 +63,29 @@ public class SearchCardTool {
                     "用户还没有'" + getSceneText(sceneTag) + "'场景的卡片。";
         }
 
-        StringBuilder result = new StringBuilder();
-        result.append(sceneTag == null ?
-                "用户的所有声音卡片共" + cards.size() + "张：\n\n" :
-                "用户的" + getSceneText(sceneTag) + "卡片共" + cards.size() + "张：\n\n");
-
-        for (int i = 0; i < cards.size(); i ++) {
-            VoiceCard card = cards.get(i);
-            result.append(String.format(
-                    """
-                    %d. 【%s】
-                       - 卡片ID: %d
-                       - 音频URL: %s
-                       - 场景: %s
-                       - 内容: %s
-                       - 播放次数: %d次
+        // 超出列表上限时才单独统计总数
+        long total = cards.size() > maxRenderedItems
+                ? voiceCardService.countByUserId(userId, sceneTag, voiceModelId)
+                : cards.size();
 
-                    """,
-                    i + 1,
-                    card.getCardTitle(),
-                    card.getId(),
-                    card.getAudioUrl(),
-                    getSceneText(card.getSceneTag()),
-                    card.getTextContent().substring(0, Math.min(50, card.getTextContent().length())) +
-                            (card.getTextContent().length() > 50 ? "..." : ""),
-                    card.getPlayCount() == null ? 0 : card.getPlayCount()
-            ));
+        ToolResultRenderer renderer = ToolResultRenderer.create(cards.size(), maxRenderedItems, maxRenderedChars);
+        if (sceneTag == null) {
+            renderer.append("用户的所有声音卡片共").append(total).append("张：\n\n");
+        } else {
+            renderer.append("用户的").append(getSceneText(sceneTag)).append("卡片共").append(total).append("张：\n\n");
         }
-
-        return result.toString();
+        int rendered = renderer.items(cards, total, "张卡片", (card, index) -> renderer
+                .item(index, card.getCardTitle())
+                .field("卡片ID", card.getId(), null)
+                .field("音频URL", card.getAudioUrl())
+                .field("场景", getSceneText(card.getSceneTag()))
+                .preview("内容", card.getTextContent(), CONTENT_PREVIEW_LENGTH)
+                .field("播放次数", card.getPlayCount() == null ? 0 : card.getPlayCount(), "次")
+                .newLine());
+        if (rendered < total) {
+            renderer.append("可以按场景或声音筛选缩小范围\n");
+        }
+        return renderer.render();
     }
 
     private String getSceneText(String sceneTag) {
@@ -1,14 +1,16 @@
 package com.zyb.backend.tools;
 
 import com.zyb.backend.model.entity.VoiceCard;
+import com.zyb.backend.model.vo.VoiceCardVO;
+import com.zyb.backend.service.VoiceCardService;
 import com.zyb.backend.service.VoiceCardVectorService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.text.SimpleDateFormat;
 import java.util.List;
 
 /**
@@ -19,9 +21,29 @@ import java.util.List;
 @Slf4j
 public class SemanticSearchTool {
 
+    /**
+     * 卡片内容预览长度
+     */
+    private static final int CONTENT_PREVIEW_LENGTH = 50;
+
     @Resource
     private VoiceCardVectorService vectorService;
 
+    @Resource
+    private VoiceCardService voiceCardService;
+
+    /**
+     * 单次结果最多列出的卡片数
+     */
+    @Value("${voiceKeeper.agent.tool.max-rendered-items:20}")
+    private int maxRenderedItems;
+
+    /**
+     * 单次结果列表部分的字符数上限
+     */
+    @Value("${voiceKeeper.agent.tool.max-rendered-chars:4000}")
+    private int maxRenderedChars;
+
     @Tool(description = """
         【语义搜索】模糊查询声音卡片
         使用时机：
@@ -47,15 +69,15 @@ public class SemanticSearchTool {
             log.info("调用语义搜索: userId={}, query={}", userId, query);
 
             // 1. 参数处理
-            int k = (topK != null && topK > 0) ? topK : 5;
+            int k = (topK != null && topK > 0) ? Math.min(topK, maxRenderedItems) : 5;
             
             // 2. 调用向量检索
             List<VoiceCard> cards = vectorService.semanticSearch(
                     userId, query, sceneFilter, k
             );
 
-            // 3. 格式化返回结果
-            return formatSearchResults(cards, query);
+            // 3. 批量关联声音模型后格式化返回结果
+            return formatSearchResults(voiceCardService.getVoiceCardVO(cards), query);
 
         } catch (Exception e) {
             log.error("语义搜索失败: userId={}, query={}, error={}", userId, query, e.getMessage(), e);
@@ -66,48 +88,27 @@ public class SemanticSearchTool {
     /**
      * 格式化搜索结果
      */
-    private String formatSearchResults(List<VoiceCard> cards, String query) {
+    private String formatSearchResults(List<VoiceCardVO> cards, String query) {
         if (cards.isEmpty()) {
             return buildEmptyResult(query);
         }
 
-        StringBuilder result = new StringBuilder();
-        result.append(String.format("找到 %d 张匹配的卡片：\n\n", cards.size()));
-
-        for (int i = 0; i < cards.size(); i ++) {
-            VoiceCard card = cards.get(i);
-            result.append(formatCard(i + 1, card));
-        }
+        ToolResultRenderer renderer = ToolResultRenderer.create(cards.size(), maxRenderedItems, maxRenderedChars);
+        renderer.append("找到 ").append(cards.size()).append(" 张匹配的卡片：\n\n");
+        renderer.items(cards, "张卡片", (card, index) -> renderer
+                .item(index, card.getCardTitle())
+                .field("卡片ID", card.getId(), null)
+                .field("声音", card.getVoiceModelName() != null ? card.getVoiceModelName() : "未知")
+                .field("场景", getSceneText(card.getSceneTag()))
+                .preview("内容", card.getTextContent(), CONTENT_PREVIEW_LENGTH)
+                .field("创建时间", card.getCreateTime()));
 
         // 添加友好提示
-        result.append("\n提示：\n");
-        result.append("- 可以说「播放第1张」来播放卡片\n");
-        result.append("- 想查看更多可以说「再找5张」\n");
+        renderer.append("\n提示：\n")
+                .append("- 可以说「播放第1张」来播放卡片\n")
+                .append("- 想查看更多可以说「再找5张」\n");
 
-        return result.toString();
-    }
-
-    /**
-     * 格式化单张卡片
-     */
-    private String formatCard(int index, VoiceCard card) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-        
-        return String.format(
-                """
-                %d. 【%s】
-                   - 卡片ID: %d
-                   - 场景: %s
-                   - 内容: %s
-                   - 创建时间: %s
-                """,
-                index,
-                card.getCardTitle(),
-                card.getId(),
-                getSceneText(card.getSceneTag()),
-                truncateText(card.getTextContent()),
-                dateFormat.format(card.getCreateTime())
-        );
+        return renderer.render();
     }
 
     /**
@@ -158,18 +159,4 @@ public class SemanticSearchTool {
             default -> "自定义";
         };
     }
-
-    /**
-     * 截断文本
-     */
-    private String truncateText(String text) {
-        if (text == null || text.isEmpty()) {
-            return "";
-        }
-        if (text.length() <= 50) {
-            return text;
-        }
-        return text.substring(0, 50) + "...";
-    }
 }
-
@@ -1,5 +1,6 @@
 package com.zyb.backend.tools;
 
+import com.zyb.backend.annotation.SideEffect;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.stereotype.Component;
 
@@ -16,6 +17,7 @@ public class TerminateTool {
             2. 遇到无法解决的错误
             3. 需要用户提供更多信息才能继续
             """)
+    @SideEffect
     public String doTerminate() {
         return "任务结束";
     }
@@ -54,5 +54,23 @@ public class ToolRegistration {
                 terminateTool
         );
     }
-}
 
+    /**
+     * 并行工具执行器，同一步骤中的无副作用工具调用并行执行
+     */
+    @Bean
+    public ParallelToolExecutor parallelToolExecutor() {
+        return new ParallelToolExecutor(
+                voiceTools(),
+                searchCardTool,
+                searchVoiceModelTool,
+                voiceCloneTool,
+                voiceSynthesisTool,
+                voiceCardCreateTool,
+                semanticSearchTool,
+                fileTool,
+                new DateTimeTool(),
+                new TerminateTool()
+        );
+    }
+}
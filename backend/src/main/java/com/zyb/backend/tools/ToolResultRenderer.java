@@ -0,0 +1,179 @@
+package com.zyb.backend.tools;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 工具结果渲染器
+ * 工具返回的文本会写入对话记忆并随每轮请求发给大模型，需要控制长度：
+ * 1. 列表最多渲染 maxItems 项，且总长度超过 maxChars 后不再追加，剩余项汇总为一行"另有 N 项"
+ * 2. StringBuilder 按预计项数预分配，字段直接追加到同一个缓冲区，不产生中间字符串
+ * 3. 日期使用共享的线程安全 DateTimeFormatter，不再每次新建 SimpleDateFormat
+ * 非线程安全，每次渲染新建一个实例
+ */
+public class ToolResultRenderer {
+
+    /**
+     * 日期时间格式（线程安全，全局共享）
+     */
+    public static final DateTimeFormatter DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+    /**
+     * 每项预估字符数，用于预分配缓冲区
+     */
+    private static final int ESTIMATED_CHARS_PER_ITEM = 160;
+
+    private static final int ESTIMATED_HEADER_CHARS = 64;
+
+    private static final String FIELD_PREFIX = "   - ";
+
+    private static final String ELLIPSIS = "...";
+
+    private final StringBuilder buffer;
+
+    private final int maxItems;
+
+    private final int maxChars;
+
+    private ToolResultRenderer(int expectedItems, int maxItems, int maxChars) {
+        this.maxItems = maxItems;
+        this.maxChars = maxChars;
+        int capacity = ESTIMATED_HEADER_CHARS + Math.min(expectedItems, maxItems) * ESTIMATED_CHARS_PER_ITEM;
+        this.buffer = new StringBuilder(Math.min(capacity, maxChars + ESTIMATED_HEADER_CHARS));
+    }
+
+    /**
+     * @param expectedItems 待渲染的项数，用于预分配
+     * @param maxItems      最多渲染的项数
+     * @param maxChars      列表部分的字符数上限
+     */
+    public static ToolResultRenderer create(int expectedItems, int maxItems, int maxChars) {
+        return new ToolResultRenderer(expectedItems, maxItems, maxChars);
+    }
+
+    /**
+     * 追加文本
+     */
+    public ToolResultRenderer append(String text) {
+        buffer.append(text);
+        return this;
+    }
+
+    /**
+     * 追加整数
+     */
+    public ToolResultRenderer append(long value) {
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * 换行
+     */
+    public ToolResultRenderer newLine() {
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * 列表项标题：序号. 【标题】
+     */
+    public ToolResultRenderer item(int index, String title) {
+        buffer.append(index).append(". 【").append(title).append("】\n");
+        return this;
+    }
+
+    /**
+     * 字段：   - 名称: 值
+     */
+    public ToolResultRenderer field(String name, String value) {
+        buffer.append(FIELD_PREFIX).append(name).append(": ").append(value).append('\n');
+        return this;
+    }
+
+    /**
+     * 数值字段，unit 可为空
+     */
+    public ToolResultRenderer field(String name, long value, String unit) {
+        buffer.append(FIELD_PREFIX).append(name).append(": ").append(value);
+        if (unit != null) {
+            buffer.append(unit);
+        }
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * 日期字段
+     */
+    public ToolResultRenderer field(String name, Date value) {
+        buffer.append(FIELD_PREFIX).append(name).append(": ");
+        if (value != null) {
+            DATE_TIME_FORMATTER.formatTo(value.toInstant(), buffer);
+        }
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * 文本预览字段，超过 maxLength 截断并加省略号
+     */
+    public ToolResultRenderer preview(String name, String text, int maxLength) {
+        buffer.append(FIELD_PREFIX).append(name).append(": ");
+        if (text != null) {
+            if (text.length() <= maxLength) {
+                buffer.append(text);
+            } else {
+                buffer.append(text, 0, maxLength).append(ELLIPSIS);
+            }
+        }
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * 渲染列表，超出上限的项汇总为一行
+     *
+     * @param unit     汇总行的量词，如"张卡片"
+     * @param renderer 渲染单项，参数为（项, 从 1 开始的序号）
+     * @return 实际渲染的项数
+     */
+    public <T> int items(List<T> items, String unit, ObjIntConsumer<T> renderer) {
+        return items(items, items.size(), unit, renderer);
+    }
+
+    /**
+     * 渲染列表，items 只是总数为 total 的结果中的一部分（查询时已限制条数），汇总行按 total 计算
+     *
+     * @param total    结果总数
+     * @param unit     汇总行的量词，如"张卡片"
+     * @param renderer 渲染单项，参数为（项, 从 1 开始的序号）
+     * @return 实际渲染的项数
+     */
+    public <T> int items(List<T> items, long total, String unit, ObjIntConsumer<T> renderer) {
+        int limit = buffer.length() + maxChars;
+        int rendered = 0;
+        for (T item : items) {
+            if (rendered >= maxItems || buffer.length() >= limit) {
+                break;
+            }
+            renderer.accept(item, ++rendered);
+        }
+        long remaining = total - rendered;
+        if (remaining > 0) {
+            buffer.append("……另有 ").append(remaining).append(' ').append(unit).append("未列出\n");
+        }
+        return rendered;
+    }
+
+    /**
+     * 输出结果
+     */
+    public String render() {
+        return buffer.toString();
+    }
+}
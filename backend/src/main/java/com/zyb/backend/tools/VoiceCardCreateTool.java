@@ -1,17 +1,16 @@
 package com.zyb.backend.tools;
 
+import com.zyb.backend.annotation.SideEffect;
 import com.zyb.backend.common.exception.BusinessException;
 import com.zyb.backend.common.response.ResultCode;
 import com.zyb.backend.model.entity.VoiceCard;
 import com.zyb.backend.service.VoiceCardService;
-import com.zyb.backend.service.VoiceCardVectorService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.CompletableFuture;
 
 @Component
 @Slf4j
@@ -20,9 +19,6 @@ public class VoiceCardCreateTool {
     @Resource
     private VoiceCardService voiceCardService;
 
-    @Resource
-    private VoiceCardVectorService vectorService;
-
     @Tool(description = """
         【创建卡片】将合成的语音保存为卡片
         使用时机：
@@ -32,6 +28,7 @@ public class VoiceCardCreateTool {
         - 用户只是想"播放"、"听"已有卡片时使用
         - 必须先用 searchUserCards 检查是否已存在同类卡片
         """)
+    @SideEffect
     public String createVoiceCard(@ToolParam(description = "用户ID") Long userId,
                                   @ToolParam(description = "声音模型ID") Long voiceModelId,
                                   @ToolParam(description = "卡片标题，如'晚安问候'") String cardTitle,
@@ -55,16 +52,8 @@ public class VoiceCardCreateTool {
             boolean success = voiceCardService.save(voiceCard);
             if (success) {
                 log.info("声音卡片创建成功: cardId={}", voiceCard.getId());
-                
-                // 异步索引到向量存储
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        vectorService.indexCard(voiceCard.getId());
-                    } catch (Exception e) {
-                        log.error("卡片向量索引失败: cardId={}, error={}", voiceCard.getId(), e.getMessage());
-                    }
-                });
-                
+                // 向量索引由卡片变更事件异步同步（VoiceCardIndexSyncService）
+
                 return String.format(
                         """
                         创建成功！
@@ -1,9 +1,10 @@
 package com.zyb.backend.tools;
 
+import com.zyb.backend.annotation.SideEffect;
 import com.zyb.backend.model.entity.VoiceModel;
 import com.zyb.backend.service.CosyVoiceService;
+import com.zyb.backend.service.VoiceEnrollmentPoller;
 import com.zyb.backend.service.VoiceModelService;
-import com.zyb.backend.utils.ToolRetryHelper;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
@@ -25,7 +26,7 @@ public class VoiceCloneTool {
     private CosyVoiceService cosyVoiceService;
 
     @Resource
-    private ToolRetryHelper retryHelper;
+    private VoiceEnrollmentPoller voiceEnrollmentPoller;
 
     @Tool(description = """
             克隆用户上传的声音样本，使用阿里云CosyVoice-v3进行声音克隆。
@@ -35,6 +36,7 @@ public class VoiceCloneTool {
             - 质量：清晰、无背景音、连续朗读
             返回克隆后的声音模型信息。
             """)
+    @SideEffect
     public String cloneVoice(
             @ToolParam(description = "用户ID") Long userId,
             @ToolParam(description = "样本音频的阿里云OSS公网地址") String audioUrl,
@@ -50,10 +52,8 @@ public class VoiceCloneTool {
                 return "错误：已存在名为" + modelName + "的声音模型，请使用其他名称。";
             }
 
-            // 2. 调用LLM创建音色
-            String voiceId = retryHelper.executeNetworkCall("createVoice", () ->
-                cosyVoiceService.createVoice(audioUrl)
-            );
+            // 2. 创建音色（限流和重试由 DashScope 网关处理）
+            String voiceId = cosyVoiceService.createVoice(audioUrl);
 
             // 3. 保存到数据库
             VoiceModel model = new VoiceModel();
@@ -71,8 +71,8 @@ public class VoiceCloneTool {
 
             log.info("声音模型已创建: modelId={}, voiceId={}", model.getId(), voiceId);
 
-            // 4. 异步等待音色就绪
-            asyncWaitForVoice(model.getId(), voiceId);
+            // 4. 登记到状态轮询，音色就绪后自动更新模型状态
+            voiceEnrollmentPoller.register(model.getId(), voiceId);
 
             // 5. 返回结果
             return String.format(
@@ -95,55 +95,4 @@ public class VoiceCloneTool {
                    "\n请检查音频URL是否正确，音频是否符合要求（10-20秒，清晰无噪音）";
         }
     }
-
-    /**
-     * 异步等待音色处理完成
-     */
-    private void asyncWaitForVoice(Long modelId, String voiceId) {
-        Thread.startVirtualThread(() -> {
-            try {
-                int maxAttempts = 20;
-                int intervalSeconds = 5;
-
-                for (int i = 0; i < maxAttempts; i ++) {
-                    String status = cosyVoiceService.queryVoiceStatus(voiceId);
-
-                    if ("OK".equals(status)) {
-                        // 成功：更新数据库
-                        voiceModelService.updateTrainingStatus(
-                            modelId, 2, "声音克隆成功"
-                        );
-                        log.info("音色处理完成: modelId={}, voiceId={}", modelId, voiceId);
-                        return;
-                    } else if ("UNDEPLOYED".equals(status)) {
-                        // 失败：更新数据库
-                        voiceModelService.updateTrainingStatus(
-                            modelId, 3, "声音克隆失败"
-                        );
-                        log.error("音色处理失败: modelId={}, voiceId={}", modelId, voiceId);
-                        return;
-                    }
-
-                    // 继续等待
-                    Thread.sleep(intervalSeconds * 1000L);
-                }
-
-                // 超时：更新为失败
-                voiceModelService.updateTrainingStatus(
-                    modelId, 3, "声音克隆超时，请重试"
-                );
-                log.error("音色处理超时: modelId={}", modelId);
-
-            } catch (Exception e) {
-                log.error("异步等待失败", e);
-                try {
-                    voiceModelService.updateTrainingStatus(
-                        modelId, 3, "异常：" + e.getMessage()
-                    );
-                } catch (Exception ex) {
-                    log.error("更新状态失败", ex);
-                }
-            }
-        });
-    }
-}
\ No newline at end of file
+}
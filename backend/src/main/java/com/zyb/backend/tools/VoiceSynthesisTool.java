@@ -1,10 +1,12 @@
 package com.zyb.backend.tools;
 
-import cn.hutool.core.io.FileUtil;
+import com.zyb.backend.annotation.SideEffect;
 import com.zyb.backend.manager.OssManager;
+import com.zyb.backend.manager.SynthesisCacheManager;
 import com.zyb.backend.model.entity.VoiceModel;
 import com.zyb.backend.service.CosyVoiceService;
 import com.zyb.backend.service.VoiceModelService;
+import com.zyb.backend.utils.ChunkedAudioInputStream;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
@@ -12,7 +14,7 @@ import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
+import java.nio.ByteBuffer;
 
 /**
  * 语音合成工具
@@ -22,6 +24,8 @@ import java.io.File;
 @Slf4j
 public class VoiceSynthesisTool {
 
+    private static final String AUDIO_CONTENT_TYPE = "audio/mpeg";
+
     @Resource
     private VoiceModelService voiceModelService;
 
@@ -31,9 +35,18 @@ public class VoiceSynthesisTool {
     @Resource
     private OssManager ossManager;
 
+    @Resource
+    private SynthesisCacheManager synthesisCacheManager;
+
     @Value("${aliyun.oss.url-prefix}")
     private String ossUrlPrefix;
 
+    /**
+     * 是否使用流式合成（边合成边上传）
+     */
+    @Value("${voiceKeeper.voice.cosy-voice.streaming:true}")
+    private boolean streamingEnabled;
+
     @Tool(description = """
             【语音合成】将文字转换为克隆的声音
             使用时机：
@@ -48,6 +61,7 @@ public class VoiceSynthesisTool {
             - miss: ...+深情。
             返回音频 OSS 地址。
             """)
+    @SideEffect
     public String synthesizeVoice(
             @ToolParam(description = "声音模型ID") Long voiceModelId,
             @ToolParam(description = "要合成的文字内容，50-70字为佳，需充满情感") String text,
@@ -78,16 +92,22 @@ public class VoiceSynthesisTool {
             // 3. 根据场景获取情感参数
             EmotionParams emotionParams = getEmotionParams(sceneTag);
 
-            // 4. 调用 CosyVoice 合成语音（带情感控制）
-            byte[] audioData = cosyVoiceService.synthesizeSpeech(
+            // 4. 相同音色、文本和情感参数已合成过时直接复用
+            String cacheKey = synthesisCacheManager.buildKey(
                 model.getAiModelId(),
                 text,
                 emotionParams.emotion,
                 emotionParams.speechRate,
                 emotionParams.pitchRate
             );
+            String cachedUrl = synthesisCacheManager.get(cacheKey);
+            if (cachedUrl != null) {
+                log.info("命中合成缓存: audioUrl={}", cachedUrl);
+                voiceModelService.increaseUseCount(voiceModelId);
+                return buildResult(model.getModelName(), text, cachedUrl);
+            }
 
-            // 5. 上传到OSS
+            // 5. 合成语音并上传到OSS
             String fileName = "voice_" + System.currentTimeMillis() + ".mp3";
             String filePath = String.format(
                 "voice_generated/%d/%s", 
@@ -95,20 +115,30 @@ public class VoiceSynthesisTool {
                 fileName
             );
 
-            // 创建临时文件
-            File tempFile = File.createTempFile("voice_", ".mp3");
-            FileUtil.writeBytes(audioData, tempFile);
-
-            // 上传到OSS
-            ossManager.putObject(filePath, tempFile);
-
-            // 删除临时文件
-            boolean deleted = tempFile.delete();
-            if (!deleted) {
-                log.warn("临时文件删除失败: {}", tempFile.getPath());
+            if (streamingEnabled) {
+                // 流式合成：合成回调的音频帧直接写入上传流，合成与上传同时进行
+                try (ChunkedAudioInputStream audioStream = cosyVoiceService.streamSynthesizeSpeech(
+                        model.getAiModelId(),
+                        text,
+                        emotionParams.emotion,
+                        emotionParams.speechRate,
+                        emotionParams.pitchRate)) {
+                    ossManager.putObject(filePath, audioStream, AUDIO_CONTENT_TYPE);
+                    log.info("流式上传完成: 大小={}KB", audioStream.getTotalBytes() / 1024);
+                }
+            } else {
+                byte[] audioData = cosyVoiceService.synthesizeSpeech(
+                    model.getAiModelId(),
+                    text,
+                    emotionParams.emotion,
+                    emotionParams.speechRate,
+                    emotionParams.pitchRate
+                );
+                ossManager.putObject(filePath, ByteBuffer.wrap(audioData), AUDIO_CONTENT_TYPE);
             }
 
             String audioUrl = ossUrlPrefix + filePath;
+            synthesisCacheManager.put(cacheKey, audioUrl);
 
             // 6. 增加模型使用次数
             voiceModelService.increaseUseCount(voiceModelId);
@@ -116,17 +146,7 @@ public class VoiceSynthesisTool {
             log.info("语音合成完成: audioUrl={}", audioUrl);
 
             // 7. 返回结果
-            return String.format(
-                    """
-                    语音合成成功！
-                    - 使用声音：%s
-                    - 文字内容：%s
-                    - 音频地址：%s
-                    """,
-                model.getModelName(),
-                text.length() > 50 ? text.substring(0, 50) + "..." : text,
-                audioUrl
-            );
+            return buildResult(model.getModelName(), text, audioUrl);
 
         } catch (Exception e) {
             log.error("语音合成失败", e);
@@ -135,6 +155,23 @@ public class VoiceSynthesisTool {
         }
     }
 
+    /**
+     * 构建合成结果
+     */
+    private String buildResult(String modelName, String text, String audioUrl) {
+        return String.format(
+                """
+                语音合成成功！
+                - 使用声音：%s
+                - 文字内容：%s
+                - 音频地址：%s
+                """,
+            modelName,
+            text.length() > 50 ? text.substring(0, 50) + "..." : text,
+            audioUrl
+        );
+    }
+
     private String getStatusText(Integer status) {
         if (status == null) {
             return "未知";
@@ -0,0 +1,153 @@
+package com.zyb.backend.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分块音频输入流
+ * 生产者（语音合成回调线程）逐块写入音频帧，消费者（OSS 上传）边读边传，
+ * 不需要等待合成全部完成，也不需要落盘临时文件
+ */
+public class ChunkedAudioInputStream extends InputStream {
+
+    /**
+     * 结束标记
+     */
+    private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+    private final BlockingQueue<ByteBuffer> chunks = new LinkedBlockingQueue<>();
+
+    /**
+     * 等待下一块数据的超时时间（毫秒）
+     */
+    private final long readTimeoutMillis;
+
+    /**
+     * 关闭时的回调（如释放合成连接）
+     */
+    private final Runnable onClose;
+
+    private ByteBuffer current;
+
+    private volatile Exception error;
+
+    private volatile boolean closed = false;
+
+    private boolean finished = false;
+
+    private long totalBytes = 0;
+
+    public ChunkedAudioInputStream(long readTimeoutMillis, Runnable onClose) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.onClose = onClose;
+    }
+
+    /**
+     * 写入一块音频数据（会复制，调用方可复用缓冲区）
+     */
+    public void offer(ByteBuffer chunk) {
+        if (closed || chunk == null || !chunk.hasRemaining()) {
+            return;
+        }
+        ByteBuffer copy = ByteBuffer.allocate(chunk.remaining());
+        copy.put(chunk.duplicate()).flip();
+        chunks.offer(copy);
+    }
+
+    /**
+     * 数据写入完成
+     */
+    public void complete() {
+        chunks.offer(EOF);
+    }
+
+    /**
+     * 生产者失败，读取方会收到 IOException
+     */
+    public void fail(Exception e) {
+        this.error = e;
+        chunks.offer(EOF);
+    }
+
+    /**
+     * 已读取的字节数
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        totalBytes += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.remaining() : 0;
+    }
+
+    /**
+     * 准备好可读的数据块
+     *
+     * @return 没有更多数据时返回 false
+     */
+    private boolean nextChunk() throws IOException {
+        while (current == null || !current.hasRemaining()) {
+            if (finished || closed) {
+                return false;
+            }
+            ByteBuffer chunk;
+            try {
+                chunk = chunks.poll(readTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待音频数据时被中断");
+            }
+            if (chunk == null) {
+                throw new IOException("等待音频数据超时: " + readTimeoutMillis + "ms");
+            }
+            if (chunk == EOF) {
+                finished = true;
+                if (error != null) {
+                    throw new IOException("语音合成失败: " + error.getMessage(), error);
+                }
+                return false;
+            }
+            current = chunk;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        if (onClose != null) {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.zyb.backend.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * NDJSON 输出工具：每行一个 JSON 对象，写完一批立即刷出，客户端可以边收边解析
+ */
+public class NdjsonWriter {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final OutputStream outputStream;
+
+    private final ObjectWriter objectWriter;
+
+    public NdjsonWriter(OutputStream outputStream, ObjectMapper objectMapper) {
+        // 逐行写出时不能让 Jackson 关闭底层输出流
+        this.outputStream = outputStream;
+        this.objectWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * 写出一行
+     */
+    public void write(Object value) {
+        try {
+            objectWriter.writeValue(outputStream, value);
+            outputStream.write(NEW_LINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 写出一批并刷出
+     */
+    public void writeAll(List<?> values) {
+        values.forEach(this::write);
+        flush();
+    }
+
+    public void flush() {
+        try {
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
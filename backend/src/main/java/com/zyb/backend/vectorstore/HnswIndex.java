@@ -0,0 +1,320 @@
+package com.zyb.backend.vectorstore;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * HNSW（分层可导航小世界图）近似最近邻索引
+ * 工作原理：
+ * 1. 向量写入时归一化，相似度即点积（余弦相似度）
+ * 2. 每个节点随机分配层数，高层稀疏用于快速定位，第 0 层稠密用于精确搜索
+ * 3. 删除只打墓碑标记，节点仍参与图导航，墓碑过多时由调用方重建
+ * 非线程安全，由调用方加锁
+ */
+public class HnswIndex {
+
+    /**
+     * 每层最大邻居数（第 0 层为 2 倍）
+     */
+    private final int m;
+
+    /**
+     * 构建时的候选集大小
+     */
+    private final int efConstruction;
+
+    private final double levelMultiplier;
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    private final Map<String, Integer> idToNode = new HashMap<>();
+
+    private int entryPoint = -1;
+
+    private int maxLevel = -1;
+
+    private int deletedCount = 0;
+
+    /**
+     * 搜索结果
+     */
+    public record SearchResult(String id, double similarity) {
+    }
+
+    private static final class Node {
+        final String id;
+        final float[] vector;
+        final int[][] neighbors;
+        final int[] neighborCounts;
+        boolean deleted;
+
+        Node(String id, float[] vector, int level, int m) {
+            this.id = id;
+            this.vector = vector;
+            this.neighbors = new int[level + 1][];
+            this.neighborCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                // 预留一个位置，插入后再裁剪
+                neighbors[l] = new int[(l == 0 ? m * 2 : m) + 1];
+            }
+        }
+
+        int level() {
+            return neighbors.length - 1;
+        }
+    }
+
+    private record Candidate(int node, double similarity) {
+    }
+
+    public HnswIndex(int m, int efConstruction) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * 有效（未删除）节点数
+     */
+    public int size() {
+        return idToNode.size();
+    }
+
+    /**
+     * 已删除但仍在图中的节点数
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * 插入向量，已存在的 id 会先删除再插入
+     *
+     * @param vector 已归一化的向量
+     */
+    public void add(String id, float[] vector) {
+        remove(id);
+
+        int level = (int) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+        int nodeIndex = nodes.size();
+        Node node = new Node(id, vector, level, m);
+        nodes.add(node);
+        idToNode.put(id, nodeIndex);
+
+        if (entryPoint == -1) {
+            entryPoint = nodeIndex;
+            maxLevel = level;
+            return;
+        }
+
+        // 1. 从顶层贪心下降到新节点所在层
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+
+        // 2. 逐层搜索候选并双向连接
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, l);
+            int maxNeighbors = l == 0 ? m * 2 : m;
+            for (int i = 0; i < Math.min(m, candidates.size()); i++) {
+                int neighbor = candidates.get(i).node();
+                addLink(nodeIndex, neighbor, l, maxNeighbors);
+                addLink(neighbor, nodeIndex, l, maxNeighbors);
+            }
+            current = candidates.get(0).node();
+        }
+
+        if (level > maxLevel) {
+            entryPoint = nodeIndex;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * 删除向量（墓碑）
+     */
+    public boolean remove(String id) {
+        Integer nodeIndex = idToNode.remove(id);
+        if (nodeIndex == null) {
+            return false;
+        }
+        nodes.get(nodeIndex).deleted = true;
+        deletedCount++;
+        return true;
+    }
+
+    /**
+     * 近似最近邻搜索
+     *
+     * @param query 已归一化的查询向量
+     * @param ef 搜索候选集大小，越大召回越高
+     * @param filter 结果过滤条件（按 id），为 null 时不过滤
+     * @return 按相似度降序排列的结果
+     */
+    public List<SearchResult> search(float[] query, int topK, int ef, Predicate<String> filter) {
+        if (entryPoint == -1 || idToNode.isEmpty()) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, current, l);
+        }
+
+        // 过滤后结果不足时扩大候选集重试
+        int searchEf = Math.max(ef, topK);
+        while (true) {
+            List<SearchResult> results = new ArrayList<>(topK);
+            List<Candidate> candidates = searchLayer(query, current, searchEf, 0);
+            for (Candidate candidate : candidates) {
+                Node node = nodes.get(candidate.node());
+                if (node.deleted || (filter != null && !filter.test(node.id))) {
+                    continue;
+                }
+                results.add(new SearchResult(node.id, candidate.similarity()));
+                if (results.size() >= topK) {
+                    break;
+                }
+            }
+            if (results.size() >= topK || searchEf >= nodes.size()) {
+                return results;
+            }
+            searchEf = Math.min(searchEf * 4, nodes.size());
+        }
+    }
+
+    /**
+     * 单层贪心搜索最近节点
+     */
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double best = dot(query, nodes.get(current).vector);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.neighborCounts[level]; i++) {
+                int neighbor = node.neighbors[level][i];
+                double similarity = dot(query, nodes.get(neighbor).vector);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层束搜索
+     *
+     * @return 按相似度降序排列的候选（包含已删除节点）
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        // 待扩展：相似度高的先出队
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(
+                Comparator.comparingDouble(Candidate::similarity).reversed());
+        // 当前最优结果：相似度最低的在队首，便于淘汰
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity));
+
+        Candidate first = new Candidate(start, dot(query, nodes.get(start).vector));
+        visited.set(start);
+        toVisit.add(first);
+        best.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate candidate = toVisit.poll();
+            if (best.size() >= ef && candidate.similarity() < best.peek().similarity()) {
+                break;
+            }
+            Node node = nodes.get(candidate.node());
+            if (level > node.level()) {
+                continue;
+            }
+            for (int i = 0; i < node.neighborCounts[level]; i++) {
+                int neighbor = node.neighbors[level][i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                double similarity = dot(query, nodes.get(neighbor).vector);
+                if (best.size() < ef || similarity > best.peek().similarity()) {
+                    Candidate next = new Candidate(neighbor, similarity);
+                    toVisit.add(next);
+                    best.add(next);
+                    if (best.size() > ef) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> results = new ArrayList<>(best);
+        results.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+        return results;
+    }
+
+    /**
+     * 添加单向连接，超出上限时只保留最相似的邻居
+     */
+    private void addLink(int from, int to, int level, int maxNeighbors) {
+        Node node = nodes.get(from);
+        int[] links = node.neighbors[level];
+        int count = node.neighborCounts[level];
+        for (int i = 0; i < count; i++) {
+            if (links[i] == to) {
+                return;
+            }
+        }
+        links[count++] = to;
+        if (count > maxNeighbors) {
+            // 淘汰相似度最低的邻居
+            int worst = 0;
+            double worstSimilarity = Double.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                double similarity = dot(node.vector, nodes.get(links[i]).vector);
+                if (similarity < worstSimilarity) {
+                    worstSimilarity = similarity;
+                    worst = i;
+                }
+            }
+            links[worst] = links[--count];
+        }
+        node.neighborCounts[level] = count;
+    }
+
+    /**
+     * 点积
+     */
+    static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 归一化（返回新数组）
+     */
+    static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,499 @@
+package com.zyb.backend.vectorstore;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 进程内 HNSW 向量存储
+ * 工作原理：
+ * 1. 按 userId 元数据分区，检索时从过滤条件中识别 userId，只搜索该用户的分区；分区内按 cardId 排序，支持区间查询
+ * 2. 分区较小时直接暴力扫描（精确且更快），超过阈值才建立 HNSW 图
+ * 3. 写入先追加到内存映射的预写日志，日志超过阈值时生成快照并清空日志
+ * 4. 启动时加载快照并重放日志；重放是幂等的，快照与清空日志之间崩溃不会丢数据
+ * 适合单机部署，通过 spring.ai.vectorstore.type=local 启用
+ */
+@Slf4j
+public class LocalHnswVectorStore implements VectorStore, Closeable {
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private static final String WAL_FILE = "wal.log";
+
+    private static final int SNAPSHOT_MAGIC = 0x564B4856;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * 没有 userId 元数据的文档所在分区
+     */
+    private static final String SHARED_PARTITION = "";
+
+    /**
+     * 分区内建立有序索引的元数据字段
+     */
+    private static final String RANGE_FIELD = "cardId";
+
+    private final EmbeddingModel embeddingModel;
+
+    private final BatchingStrategy batchingStrategy;
+
+    private final Path dataDir;
+
+    private final int m;
+
+    private final int efConstruction;
+
+    private final int efSearch;
+
+    /**
+     * 分区文档数不超过该值时使用暴力扫描
+     */
+    private final int bruteForceThreshold;
+
+    /**
+     * 预写日志超过该大小时生成快照
+     */
+    private final long walMaxBytes;
+
+    private final Map<String, Partition> partitions = new HashMap<>();
+
+    /**
+     * 文档 id -> 分区
+     */
+    private final Map<String, String> documentPartitions = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final MappedWriteAheadLog wal;
+
+    /**
+     * 单个分区：文档和（按需建立的）HNSW 图
+     */
+    private final class Partition {
+
+        final Map<String, StoredDocument> documents = new LinkedHashMap<>();
+
+        /**
+         * cardId -> 文档 id
+         */
+        final NavigableMap<Long, String> rangeIndex = new TreeMap<>();
+
+        HnswIndex index;
+
+        void add(StoredDocument document) {
+            documents.put(document.id(), document);
+            Long rangeKey = rangeKey(document.metadata());
+            if (rangeKey != null) {
+                rangeIndex.put(rangeKey, document.id());
+            }
+            if (index != null) {
+                index.add(document.id(), document.vector());
+            } else if (documents.size() > bruteForceThreshold) {
+                rebuildIndex();
+            }
+        }
+
+        void remove(String id) {
+            StoredDocument removed = documents.remove(id);
+            if (removed == null) {
+                return;
+            }
+            Long rangeKey = rangeKey(removed.metadata());
+            if (rangeKey != null) {
+                rangeIndex.remove(rangeKey, id);
+            }
+            if (index == null) {
+                return;
+            }
+            index.remove(id);
+            // 墓碑过多时重建，保证图的质量
+            if (index.getDeletedCount() > index.size()) {
+                rebuildIndex();
+            }
+        }
+
+        void rebuildIndex() {
+            if (documents.size() <= bruteForceThreshold) {
+                index = null;
+                return;
+            }
+            index = new HnswIndex(m, efConstruction);
+            documents.values().forEach(document -> index.add(document.id(), document.vector()));
+        }
+
+        List<HnswIndex.SearchResult> search(float[] query, int topK, Filter.Expression filter) {
+            if (index != null) {
+                return index.search(query, topK, Math.max(efSearch, topK),
+                        id -> MetadataFilter.matches(filter, documents.get(id).metadata()));
+            }
+            List<HnswIndex.SearchResult> results = new ArrayList<>();
+            for (StoredDocument document : documents.values()) {
+                if (MetadataFilter.matches(filter, document.metadata())) {
+                    results.add(new HnswIndex.SearchResult(document.id(), HnswIndex.dot(query, document.vector())));
+                }
+            }
+            results.sort(Comparator.comparingDouble(HnswIndex.SearchResult::similarity).reversed());
+            return results.size() > topK ? results.subList(0, topK) : results;
+        }
+    }
+
+    public LocalHnswVectorStore(EmbeddingModel embeddingModel, BatchingStrategy batchingStrategy, Path dataDir,
+                                int m, int efConstruction, int efSearch, int bruteForceThreshold, long walMaxBytes) {
+        this.embeddingModel = embeddingModel;
+        this.batchingStrategy = batchingStrategy;
+        this.dataDir = dataDir;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.bruteForceThreshold = bruteForceThreshold;
+        this.walMaxBytes = walMaxBytes;
+        try {
+            Files.createDirectories(dataDir);
+            loadSnapshot();
+            this.wal = new MappedWriteAheadLog(dataDir.resolve(WAL_FILE));
+            wal.replay(new MappedWriteAheadLog.Replayer() {
+                @Override
+                public void add(StoredDocument document) {
+                    applyAdd(document);
+                }
+
+                @Override
+                public void delete(String id) {
+                    applyDelete(id);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载本地向量存储失败: " + dataDir, e);
+        }
+        log.info("初始化本地向量存储: dataDir={}, 文档数={}, 分区数={}", dataDir, size(), partitions.size());
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        // 向量化放在锁外，避免阻塞检索
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(), batchingStrategy);
+        List<StoredDocument> storedDocuments = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            storedDocuments.add(new StoredDocument(document.getId(), document.getText(),
+                    new HashMap<>(document.getMetadata()), HnswIndex.normalize(embeddings.get(i))));
+        }
+
+        lock.writeLock().lock();
+        try {
+            wal.appendAdd(storedDocuments);
+            wal.commit();
+            storedDocuments.forEach(this::applyAdd);
+            snapshotIfNeeded();
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入本地向量存储失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            wal.appendDelete(idList);
+            wal.commit();
+            idList.forEach(this::applyDelete);
+            snapshotIfNeeded();
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除本地向量失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        List<String> ids = findIds(filterExpression);
+        if (!ids.isEmpty()) {
+            delete(ids);
+        }
+    }
+
+    /**
+     * 查询满足过滤条件的文档ID
+     *
+     * @param filterExpression 为 null 时返回全部文档ID
+     */
+    public List<String> findIds(Filter.Expression filterExpression) {
+        lock.readLock().lock();
+        try {
+            return partitions.values().stream()
+                    .flatMap(partition -> partition.documents.values().stream())
+                    .filter(document -> MetadataFilter.matches(filterExpression, document.metadata()))
+                    .map(StoredDocument::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询 cardId 在 (fromExclusive, toInclusive] 区间内且满足过滤条件的文档ID
+     * 按分区内的有序索引定位区间，不扫描区间外的文档
+     *
+     * @param userId           只查该用户的分区，为 null 时查所有分区
+     * @param filterExpression 区间内的附加过滤条件，可为 null
+     */
+    public List<String> findIdsInRange(Object userId, long fromExclusive, long toInclusive,
+                                       Filter.Expression filterExpression) {
+        if (fromExclusive >= toInclusive) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Collection<Partition> targets;
+            if (userId != null) {
+                Partition partition = partitions.get(partitionKey(userId));
+                targets = partition != null ? List.of(partition) : List.of();
+            } else {
+                targets = partitions.values();
+            }
+            List<String> ids = new ArrayList<>();
+            for (Partition partition : targets) {
+                for (String id : partition.rangeIndex.subMap(fromExclusive, false, toInclusive, true).values()) {
+                    if (MetadataFilter.matches(filterExpression, partition.documents.get(id).metadata())) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 批量查询文档元数据
+     *
+     * @return 文档ID -> 元数据，不存在的文档不在结果中
+     */
+    public Map<String, Map<String, Object>> getMetadata(Collection<String> ids) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String id : ids) {
+                String key = documentPartitions.get(id);
+                if (key != null) {
+                    result.put(id, new HashMap<>(partitions.get(key).documents.get(id).metadata()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = HnswIndex.normalize(embeddingModel.embed(request.getQuery()));
+        Filter.Expression filter = request.getFilterExpression();
+        Object userId = MetadataFilter.findEquals(filter, "userId");
+
+        lock.readLock().lock();
+        try {
+            List<Partition> targets;
+            if (userId != null) {
+                Partition partition = partitions.get(partitionKey(userId));
+                targets = partition != null ? List.of(partition) : List.of();
+            } else {
+                targets = new ArrayList<>(partitions.values());
+            }
+
+            List<Document> results = new ArrayList<>();
+            for (Partition partition : targets) {
+                for (HnswIndex.SearchResult result : partition.search(query, request.getTopK(), filter)) {
+                    // 与 Elasticsearch 余弦相似度评分保持一致：(1 + cos) / 2
+                    double score = (1 + result.similarity()) / 2;
+                    if (score < request.getSimilarityThreshold()) {
+                        continue;
+                    }
+                    StoredDocument document = partition.documents.get(result.id());
+                    Map<String, Object> metadata = new HashMap<>(document.metadata());
+                    metadata.put("distance", 1 - score);
+                    results.add(Document.builder()
+                            .id(document.id())
+                            .text(document.text())
+                            .metadata(metadata)
+                            .score(score)
+                            .build());
+                }
+            }
+            results.sort(Comparator.comparingDouble(Document::getScore).reversed());
+            return results.size() > request.getTopK() ? results.subList(0, request.getTopK()) : results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 文档总数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentPartitions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 立即生成快照并清空预写日志
+     */
+    public void snapshot() {
+        lock.writeLock().lock();
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("生成向量快照失败", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            writeSnapshot();
+            wal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyAdd(StoredDocument document) {
+        // 同一 id 可能换了分区（userId 变更），先从旧分区移除
+        applyDelete(document.id());
+        String key = partitionKey(document.metadata().get("userId"));
+        partitions.computeIfAbsent(key, k -> new Partition()).add(document);
+        documentPartitions.put(document.id(), key);
+    }
+
+    private void applyDelete(String id) {
+        String key = documentPartitions.remove(id);
+        if (key == null) {
+            return;
+        }
+        Partition partition = partitions.get(key);
+        partition.remove(id);
+        if (partition.documents.isEmpty()) {
+            partitions.remove(key);
+        }
+    }
+
+    private static Long rangeKey(Map<String, Object> metadata) {
+        Object value = metadata.get(RANGE_FIELD);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String partitionKey(Object userId) {
+        if (userId == null) {
+            return SHARED_PARTITION;
+        }
+        // Integer / Long 统一为相同的分区键
+        return userId instanceof Number number ? String.valueOf(number.longValue()) : userId.toString();
+    }
+
+    private void snapshotIfNeeded() throws IOException {
+        if (wal.size() > walMaxBytes) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * 写入快照：先写临时文件再原子替换，最后清空预写日志
+     */
+    private void writeSnapshot() throws IOException {
+        long start = System.currentTimeMillis();
+        Path tmp = dataDir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(documentPartitions.size());
+            for (Partition partition : partitions.values()) {
+                for (StoredDocument document : partition.documents.values()) {
+                    document.writeTo(out);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, dataDir.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        wal.reset();
+        log.info("本地向量快照完成: 文档数={}, 耗时={}ms", documentPartitions.size(), System.currentTimeMillis() - start);
+    }
+
+    private void loadSnapshot() throws IOException {
+        Path snapshot = dataDir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("无效的向量快照文件: " + snapshot);
+            }
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("不支持的向量快照版本: " + version);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                applyAdd(StoredDocument.readFrom(in));
+            }
+        }
+    }
+}
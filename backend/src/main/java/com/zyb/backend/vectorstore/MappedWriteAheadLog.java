@@ -0,0 +1,183 @@
+package com.zyb.backend.vectorstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 基于内存映射文件的预写日志
+ * 文件布局：[8 字节已提交长度][记录...]，每条记录为 [4 字节长度][1 字节操作][负载]
+ * 先写记录再更新头部的已提交长度，崩溃时未提交的半条记录会被忽略
+ */
+class MappedWriteAheadLog implements Closeable {
+
+    static final byte OP_ADD = 1;
+
+    static final byte OP_DELETE = 2;
+
+    private static final int HEADER_SIZE = Long.BYTES;
+
+    private static final int INITIAL_CAPACITY = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    /**
+     * 已提交的写入位置
+     */
+    private long position;
+
+    /**
+     * 重放时的回调
+     */
+    interface Replayer {
+
+        void add(StoredDocument document);
+
+        void delete(String id);
+    }
+
+    MappedWriteAheadLog(Path file) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long capacity = Math.max(channel.size(), INITIAL_CAPACITY);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        long committed = buffer.getLong(0);
+        this.position = committed >= HEADER_SIZE && committed <= capacity ? committed : HEADER_SIZE;
+    }
+
+    /**
+     * 重放已提交的记录
+     */
+    void replay(Replayer replayer) throws IOException {
+        long offset = HEADER_SIZE;
+        while (offset < position) {
+            int length = buffer.getInt((int) offset);
+            byte op = buffer.get((int) offset + Integer.BYTES);
+            byte[] payload = new byte[length];
+            buffer.get((int) offset + Integer.BYTES + 1, payload);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (op == OP_ADD) {
+                replayer.add(StoredDocument.readFrom(in));
+            } else if (op == OP_DELETE) {
+                replayer.delete(in.readUTF());
+            } else {
+                throw new IOException("预写日志损坏: offset=" + offset + ", op=" + op);
+            }
+            offset += Integer.BYTES + 1 + length;
+        }
+    }
+
+    /**
+     * 追加新增记录，调用 {@link #commit()} 后生效
+     */
+    void appendAdd(List<StoredDocument> documents) throws IOException {
+        long start = position;
+        try {
+            for (StoredDocument document : documents) {
+                append(OP_ADD, document::writeTo);
+            }
+        } catch (IOException | RuntimeException e) {
+            rollback(start);
+            throw e;
+        }
+    }
+
+    /**
+     * 追加删除记录，调用 {@link #commit()} 后生效
+     */
+    void appendDelete(List<String> ids) throws IOException {
+        long start = position;
+        try {
+            for (String id : ids) {
+                append(OP_DELETE, out -> out.writeUTF(id));
+            }
+        } catch (IOException | RuntimeException e) {
+            rollback(start);
+            throw e;
+        }
+    }
+
+    /**
+     * 更新已提交长度并刷盘
+     */
+    void commit() {
+        buffer.putLong(0, position);
+        buffer.force();
+    }
+
+    /**
+     * 清空日志（快照完成后调用）
+     */
+    void reset() {
+        position = HEADER_SIZE;
+        commit();
+    }
+
+    /**
+     * 当前日志大小（字节）
+     */
+    long size() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        channel.close();
+    }
+
+    /**
+     * 一批记录只追加了一部分就失败时，丢弃已追加的部分
+     * 调用方看到失败不会应用这批变更，残留的记录不能被下一次提交一起生效
+     */
+    private void rollback(long start) {
+        position = start;
+    }
+
+    private interface PayloadWriter {
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(byte op, PayloadWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.write(new DataOutputStream(bytes));
+        byte[] payload = bytes.toByteArray();
+
+        int recordSize = Integer.BYTES + 1 + payload.length;
+        ensureCapacity(position + recordSize);
+        int offset = (int) position;
+        buffer.putInt(offset, payload.length);
+        buffer.put(offset + Integer.BYTES, op);
+        buffer.put(offset + Integer.BYTES + 1, payload);
+        position += recordSize;
+    }
+
+    /**
+     * 容量不足时扩大映射区域
+     */
+    private void ensureCapacity(long required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long capacity = buffer.capacity();
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("预写日志超过 2GB，请调小快照阈值");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+}
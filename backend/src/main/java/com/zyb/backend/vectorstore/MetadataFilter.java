@@ -0,0 +1,119 @@
+package com.zyb.backend.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * 在内存中对文档元数据求值 Spring AI 过滤表达式
+ */
+final class MetadataFilter {
+
+    private MetadataFilter() {
+    }
+
+    static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+        if (expression == null) {
+            return true;
+        }
+        return switch (expression.type()) {
+            case AND -> matches(operand(expression.left()), metadata) && matches(operand(expression.right()), metadata);
+            case OR -> matches(operand(expression.left()), metadata) || matches(operand(expression.right()), metadata);
+            case NOT -> !matches(operand(expression.left()), metadata);
+            case EQ -> equalsValue(metadataValue(expression, metadata), filterValue(expression));
+            case NE -> !equalsValue(metadataValue(expression, metadata), filterValue(expression));
+            case GT -> compare(metadataValue(expression, metadata), filterValue(expression), c -> c > 0);
+            case GTE -> compare(metadataValue(expression, metadata), filterValue(expression), c -> c >= 0);
+            case LT -> compare(metadataValue(expression, metadata), filterValue(expression), c -> c < 0);
+            case LTE -> compare(metadataValue(expression, metadata), filterValue(expression), c -> c <= 0);
+            case IN -> in(metadataValue(expression, metadata), filterValue(expression));
+            case NIN -> !in(metadataValue(expression, metadata), filterValue(expression));
+            // ISNULL / ISNOTNULL 在较新的 Spring AI 中才有，按名称匹配，避免依赖具体版本的枚举常量
+            default -> switch (expression.type().name()) {
+                case "ISNULL" -> metadataValue(expression, metadata) == null;
+                case "ISNOTNULL" -> metadataValue(expression, metadata) != null;
+                default -> throw new IllegalArgumentException("不支持的过滤操作: " + expression.type());
+            };
+        };
+    }
+
+    /**
+     * 从过滤表达式中提取顶层 AND 链上的 key == value 条件值，用于定位分区
+     *
+     * @return 没有该条件时返回 null
+     */
+    static Object findEquals(Filter.Expression expression, String key) {
+        if (expression == null) {
+            return null;
+        }
+        if (expression.type() == Filter.ExpressionType.EQ && key.equals(keyName(expression))) {
+            return filterValue(expression);
+        }
+        if (expression.type() == Filter.ExpressionType.AND) {
+            Object left = findEquals(operand(expression.left()), key);
+            return left != null ? left : findEquals(operand(expression.right()), key);
+        }
+        return null;
+    }
+
+    private static Filter.Expression operand(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return group.content();
+        }
+        if (operand instanceof Filter.Expression expression) {
+            return expression;
+        }
+        throw new IllegalArgumentException("无效的过滤表达式: " + operand);
+    }
+
+    private static String keyName(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new IllegalArgumentException("过滤条件左侧必须是字段名: " + expression);
+        }
+        String name = key.key();
+        // 文本表达式中带引号的字段名
+        if (name.length() > 1 && (name.startsWith("\"") || name.startsWith("'"))) {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    private static Object metadataValue(Filter.Expression expression, Map<String, Object> metadata) {
+        return metadata.get(keyName(expression));
+    }
+
+    private static Object filterValue(Filter.Expression expression) {
+        if (!(expression.right() instanceof Filter.Value value)) {
+            throw new IllegalArgumentException("过滤条件右侧必须是值: " + expression);
+        }
+        return value.value();
+    }
+
+    private static boolean equalsValue(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return Double.compare(a.doubleValue(), e.doubleValue()) == 0;
+        }
+        return Objects.equals(actual, expected);
+    }
+
+    private static boolean compare(Object actual, Object expected, IntPredicate condition) {
+        if (actual == null || expected == null) {
+            // 缺失字段不满足任何比较
+            return false;
+        }
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return condition.test(Double.compare(a.doubleValue(), e.doubleValue()));
+        }
+        return condition.test(actual.toString().compareTo(expected.toString()));
+    }
+
+    private static boolean in(Object actual, Object expected) {
+        if (expected instanceof Collection<?> values) {
+            return values.stream().anyMatch(value -> equalsValue(actual, value));
+        }
+        return equalsValue(actual, expected);
+    }
+}
@@ -0,0 +1,104 @@
+package com.zyb.backend.vectorstore;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地向量存储中的文档：原文、元数据和归一化后的向量
+ */
+record StoredDocument(String id, String text, Map<String, Object> metadata, float[] vector) {
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(id);
+        writeLongString(out, text);
+        out.writeInt(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+        out.writeInt(vector.length);
+        for (float v : vector) {
+            out.writeFloat(v);
+        }
+    }
+
+    static StoredDocument readFrom(DataInput in) throws IOException {
+        String id = in.readUTF();
+        String text = readLongString(in);
+        int metadataSize = in.readInt();
+        Map<String, Object> metadata = new HashMap<>(metadataSize * 2);
+        for (int i = 0; i < metadataSize; i++) {
+            metadata.put(in.readUTF(), readValue(in));
+        }
+        float[] vector = new float[in.readInt()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = in.readFloat();
+        }
+        return new StoredDocument(id, text, metadata, vector);
+    }
+
+    /**
+     * writeUTF 限制 64KB，正文用长度前缀的 UTF-8 字节
+     */
+    private static void writeLongString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readLongString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(TYPE_NULL);
+            case Long l -> {
+                out.writeByte(TYPE_LONG);
+                out.writeLong(l);
+            }
+            case Integer i -> {
+                out.writeByte(TYPE_INT);
+                out.writeInt(i);
+            }
+            case Number n -> {
+                out.writeByte(TYPE_DOUBLE);
+                out.writeDouble(n.doubleValue());
+            }
+            case Boolean b -> {
+                out.writeByte(TYPE_BOOLEAN);
+                out.writeBoolean(b);
+            }
+            default -> {
+                out.writeByte(TYPE_STRING);
+                writeLongString(out, value.toString());
+            }
+        }
+    }
+
+    private static Object readValue(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_LONG -> in.readLong();
+            case TYPE_INT -> in.readInt();
+            case TYPE_DOUBLE -> in.readDouble();
+            case TYPE_BOOLEAN -> in.readBoolean();
+            case TYPE_STRING -> readLongString(in);
+            default -> throw new IOException("未知的元数据类型: " + type);
+        };
+    }
+}
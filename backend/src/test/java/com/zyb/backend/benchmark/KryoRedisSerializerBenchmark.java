@@ -0,0 +1,119 @@
+package com.zyb.backend.benchmark;
+
+import com.zyb.backend.model.entity.VoiceCard;
+import com.zyb.backend.serializer.KryoRedisSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KryoRedisSerializer 两种模式的 JMH 基准：序列化/反序列化吞吐量及负载大小
+ * 运行方式：在 IDE 中直接执行 main 方法，或 mvn test-compile 后以测试类路径运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class KryoRedisSerializerBenchmark {
+
+    @Param({"LEGACY", "REGISTERED"})
+    private KryoRedisSerializer.Mode mode;
+
+    @Param({"user", "assistant", "tool", "voiceCard"})
+    private String payload;
+
+    private KryoRedisSerializer serializer;
+
+    private Object value;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = new KryoRedisSerializer(mode);
+        value = samples().get(payload);
+        bytes = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    static Map<String, Object> samples() {
+        Message user = new UserMessage("帮我用妈妈的声音生成一张生日祝福卡片，语气温柔一点");
+        Message assistant = new AssistantMessage("", Map.of(), List.of(
+                new AssistantMessage.ToolCall("call_7f3a9c", "function", "voiceSynthesis",
+                        "{\"voiceModelId\":1893456789012345678,\"text\":\"宝贝，生日快乐！\",\"emotion\":\"gentle\"}")));
+        Message tool = new ToolResponseMessage(List.of(new ToolResponseMessage.ToolResponse("call_7f3a9c", "voiceSynthesis",
+                "语音合成成功！音频地址: https://voicekeeper.oss-cn-beijing.aliyuncs.com/audio/2024/05/1893456789012345678.mp3，时长: 4秒")));
+
+        VoiceCard voiceCard = new VoiceCard();
+        voiceCard.setId(1893456789012345678L);
+        voiceCard.setUserId(1790000000000000001L);
+        voiceCard.setVoiceModelId(1891111111111111111L);
+        voiceCard.setCardTitle("生日祝福");
+        voiceCard.setTextContent("宝贝，生日快乐！愿你每天都开开心心。");
+        voiceCard.setAiGenerated(1);
+        voiceCard.setAudioUrl("https://voicekeeper.oss-cn-beijing.aliyuncs.com/audio/2024/05/1893456789012345678.mp3");
+        voiceCard.setAudioDuration(4);
+        voiceCard.setAudioFileSize(65536L);
+        voiceCard.setSceneTag("生日");
+        voiceCard.setEmotionTag("温柔");
+        voiceCard.setPlayCount(0);
+        voiceCard.setShareCount(0);
+        voiceCard.setCreateTime(new Date());
+        voiceCard.setUpdateTime(new Date());
+        voiceCard.setIsDelete(0);
+
+        return Map.of(
+                "user", user,
+                "assistant", assistant,
+                "tool", tool,
+                "voiceCard", voiceCard,
+                "system", new SystemMessage("【历史对话摘要】: 用户希望保存母亲的声音并制作节日卡片"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        // 负载大小不随运行变化，直接打印
+        KryoRedisSerializer legacy = new KryoRedisSerializer(KryoRedisSerializer.Mode.LEGACY);
+        KryoRedisSerializer registered = new KryoRedisSerializer(KryoRedisSerializer.Mode.REGISTERED);
+        samples().forEach((name, value) -> System.out.printf("payload=%-10s legacy=%5d bytes, registered=%5d bytes%n",
+                name, legacy.serialize(value).length, registered.serialize(value).length));
+
+        new Runner(new OptionsBuilder()
+                .include(KryoRedisSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
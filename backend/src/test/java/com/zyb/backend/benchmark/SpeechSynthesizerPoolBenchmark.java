@@ -0,0 +1,177 @@
+package com.zyb.backend.benchmark;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisAudioFormat;
+import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesisParam;
+import com.alibaba.dashscope.audio.ttsv2.SpeechSynthesizer;
+import com.alibaba.dashscope.utils.Constants;
+import com.zyb.backend.manager.SpeechSynthesizerPool;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.ByteString;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语音合成连接复用的 JMH 基准：每次新建合成器（新连接） vs 从对象池借出（复用连接）
+ * 本地 MockWebServer 模拟 DashScope 语音合成的 WebSocket 协议（run-task / continue-task / finish-task），
+ * handshakeDelayMillis 模拟建立连接的网络往返开销
+ * 运行方式：在 IDE 中直接执行 main 方法，或 mvn test-compile 后以测试类路径运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SpeechSynthesizerPoolBenchmark {
+
+    private static final String MODEL = "cosyvoice-v3";
+
+    private static final String TEXT = "宝贝，生日快乐！愿你每天都开开心心，健健康康地长大。";
+
+    /**
+     * 每次合成返回的模拟音频大小
+     */
+    private static final int AUDIO_BYTES = 32 * 1024;
+
+    @Param({"0", "30"})
+    private long handshakeDelayMillis;
+
+    private MockWebServer server;
+
+    private SpeechSynthesizerPool pool;
+
+    private SpeechSynthesisParam param;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @NotNull
+            @Override
+            public MockResponse dispatch(@NotNull RecordedRequest request) {
+                return new MockResponse()
+                        .setHeadersDelay(handshakeDelayMillis, TimeUnit.MILLISECONDS)
+                        .withWebSocketUpgrade(new MockSynthesisListener());
+            }
+        });
+        server.start();
+        Constants.baseWebsocketApiUrl = "ws://" + server.getHostName() + ":" + server.getPort() + "/api-ws/v1/inference";
+
+        param = SpeechSynthesisParam.builder()
+                .model(MODEL)
+                .voice("mock-voice")
+                .apiKey("sk-mock")
+                .format(SpeechSynthesisAudioFormat.MP3_44100HZ_MONO_256KBPS)
+                .build();
+
+        pool = new SpeechSynthesizerPool();
+        ReflectionTestUtils.setField(pool, "defaultModel", MODEL);
+        ReflectionTestUtils.setField(pool, "maxPerModel", 8);
+        ReflectionTestUtils.setField(pool, "minIdlePerModel", 4);
+        ReflectionTestUtils.setField(pool, "maxWaitMillis", 10000L);
+        ReflectionTestUtils.setField(pool, "idleTimeoutSeconds", 60L);
+        pool.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println(pool.getStats());
+        pool.close();
+        server.shutdown();
+    }
+
+    /**
+     * 改造前：每次合成新建合成器，完成后关闭连接
+     */
+    @Benchmark
+    public ByteBuffer newSynthesizerPerCall() {
+        SpeechSynthesizer synthesizer = new SpeechSynthesizer(param, null);
+        try {
+            return synthesizer.call(TEXT);
+        } finally {
+            synthesizer.getDuplexApi().close(1000, "bye");
+        }
+    }
+
+    /**
+     * 改造后：从对象池借出，连接保持打开
+     */
+    @Benchmark
+    public ByteBuffer pooledSynthesizer() throws Exception {
+        SpeechSynthesizerPool.Lease lease = pool.borrow(MODEL);
+        try {
+            lease.getSynthesizer().updateParamAndCallback(param, null);
+            ByteBuffer audio = lease.getSynthesizer().call(TEXT);
+            lease.release();
+            return audio;
+        } catch (Exception e) {
+            lease.invalidate();
+            throw e;
+        }
+    }
+
+    /**
+     * 模拟服务端：收到 run-task 回复 task-started，收到 continue-task 推送音频帧，收到 finish-task 回复 task-finished
+     */
+    private static class MockSynthesisListener extends WebSocketListener {
+
+        private static final ByteString AUDIO_FRAME = ByteString.of(new byte[AUDIO_BYTES]);
+
+        @Override
+        public void onMessage(@NotNull WebSocket webSocket, @NotNull String text) {
+            JSONObject header = JSONUtil.parseObj(text).getJSONObject("header");
+            String taskId = header.getStr("task_id");
+            switch (header.getStr("action")) {
+                case "run-task" -> webSocket.send(event(taskId, "task-started", "{}"));
+                case "continue-task" -> {
+                    webSocket.send(AUDIO_FRAME);
+                    webSocket.send(event(taskId, "result-generated", "{\"output\":{}}"));
+                }
+                case "finish-task" -> webSocket.send(event(taskId, "task-finished",
+                        "{\"output\":{},\"usage\":{\"characters\":" + TEXT.length() + "}}"));
+                default -> {
+                }
+            }
+        }
+
+        private static String event(String taskId, String event, String payload) {
+            return "{\"header\":{\"task_id\":\"" + taskId + "\",\"event\":\"" + event + "\",\"attributes\":{}},"
+                    + "\"payload\":" + payload + "}";
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SpeechSynthesizerPoolBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.zyb.backend.benchmark;
+
+import com.zyb.backend.model.vo.VoiceCardVO;
+import com.zyb.backend.tools.ToolResultRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工具结果格式化的 JMH 基准：改造前逐张 String.format + 新建 SimpleDateFormat vs ToolResultRenderer
+ * 关注 gc.alloc.rate.norm（每次格式化分配的字节数）和输出长度，卡片数超过上限时渲染器只列出前 20 张
+ * 运行方式：在 IDE 中直接执行 main 方法（附带 GC 分析），或 mvn test-compile 后以测试类路径运行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolResultRendererBenchmark {
+
+    private static final int MAX_ITEMS = 20;
+
+    private static final int MAX_CHARS = 4000;
+
+    @Param({"5", "20", "200"})
+    private int cardCount;
+
+    private List<VoiceCardVO> cards;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cards = new ArrayList<>(cardCount);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < cardCount; i++) {
+            VoiceCardVO card = new VoiceCardVO();
+            card.setId(10_000L + i);
+            card.setCardTitle("晚安问候 " + i);
+            card.setVoiceModelName("妈妈的声音");
+            card.setSceneTag(i % 2 == 0 ? "night" : "morning");
+            card.setTextContent("宝贝晚安，无论多晚都要好好休息，妈妈永远爱你。明天醒来又是美好的一天，记得吃早饭，路上注意安全。");
+            card.setCreateTime(new Date(now - i * 3_600_000L));
+            cards.add(card);
+        }
+    }
+
+    /**
+     * 改造前：每张卡片一次 String.format，每次新建 SimpleDateFormat，不限制条数
+     */
+    @Benchmark
+    public String legacyFormat() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("找到 %d 张匹配的卡片：\n\n", cards.size()));
+        for (int i = 0; i < cards.size(); i++) {
+            VoiceCardVO card = cards.get(i);
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+            result.append(String.format(
+                    """
+                    %d. 【%s】
+                       - 卡片ID: %d
+                       - 声音: %s
+                       - 场景: %s
+                       - 内容: %s
+                       - 创建时间: %s
+                    """,
+                    i + 1,
+                    card.getCardTitle(),
+                    card.getId(),
+                    card.getVoiceModelName(),
+                    sceneText(card.getSceneTag()),
+                    card.getTextContent().length() <= 50 ? card.getTextContent() : card.getTextContent().substring(0, 50) + "...",
+                    dateFormat.format(card.getCreateTime())
+            ));
+        }
+        return result.toString();
+    }
+
+    /**
+     * 改造后：预分配缓冲区、共享 DateTimeFormatter、限制条数
+     */
+    @Benchmark
+    public String renderer() {
+        ToolResultRenderer renderer = ToolResultRenderer.create(cards.size(), MAX_ITEMS, MAX_CHARS);
+        renderer.append("找到 ").append(cards.size()).append(" 张匹配的卡片：\n\n");
+        renderer.items(cards, "张卡片", (card, index) -> renderer
+                .item(index, card.getCardTitle())
+                .field("卡片ID", card.getId(), null)
+                .field("声音", card.getVoiceModelName())
+                .field("场景", sceneText(card.getSceneTag()))
+                .preview("内容", card.getTextContent(), 50)
+                .field("创建时间", card.getCreateTime()));
+        return renderer.render();
+    }
+
+    private static String sceneText(String sceneTag) {
+        return "night".equals(sceneTag) ? "晚安问候" : "早安问候";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ToolResultRendererBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
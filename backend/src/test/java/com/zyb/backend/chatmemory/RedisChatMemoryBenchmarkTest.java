@@ -0,0 +1,133 @@
+package com.zyb.backend.chatmemory;
+
+import com.zyb.backend.serializer.KryoRedisSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RedisChatMemory 追加写入微基准
+ * 对比逐条 RPUSH 循环与 Lua 脚本单次往返的延迟，需要本地 Redis（localhost:6379），不可用时跳过
+ */
+public class RedisChatMemoryBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 200;
+
+    private static final int ROUNDS = 2000;
+
+    /**
+     * 一次智能体步骤追加的消息数（助手消息 + 工具响应 + 反思提示）
+     */
+    private static final int MESSAGES_PER_STEP = 3;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static RedisTemplate<String, Object> redisTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration("localhost", 6379);
+        configuration.setDatabase(15);
+        connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new KryoRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        boolean available;
+        try {
+            available = "PONG".equals(connectionFactory.getConnection().ping());
+        } catch (Exception e) {
+            available = false;
+        }
+        Assumptions.assumeTrue(available, "本地 Redis 不可用，跳过基准测试");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void compareAppendLatency() {
+        RedisChatMemory chatMemory = new RedisChatMemory(redisTemplate);
+        List<Message> step = buildStep();
+
+        // 预热
+        runLegacy("bench:legacy", step, WARMUP_ROUNDS);
+        runScript(chatMemory, "bench:script", step, WARMUP_ROUNDS);
+        chatMemory.clear("bench:legacy");
+        chatMemory.clear("bench:script");
+
+        long legacyNanos = runLegacy("bench:legacy", step, ROUNDS);
+        long scriptNanos = runScript(chatMemory, "bench:script", step, ROUNDS);
+
+        System.out.printf("逐条 RPUSH 循环: %d 次往返/步, 平均 %.1f µs/步%n",
+                MESSAGES_PER_STEP + 3, legacyNanos / 1000.0 / ROUNDS);
+        System.out.printf("Lua 追加脚本:   1 次往返/步, 平均 %.1f µs/步%n",
+                scriptNanos / 1000.0 / ROUNDS);
+
+        // 两种写法的结果必须一致（含1000条上限裁剪）
+        List<Message> legacy = chatMemory.get("bench:legacy");
+        List<Message> script = chatMemory.get("bench:script");
+        Assertions.assertEquals(legacy.size(), script.size());
+        Assertions.assertEquals(1000, script.size());
+        Assertions.assertEquals(legacy.get(legacy.size() - 1).getText(), script.get(script.size() - 1).getText());
+
+        chatMemory.clear("bench:legacy");
+        chatMemory.clear("bench:script");
+    }
+
+    /**
+     * 优化前的写法：每条消息一次 RPUSH，再 EXPIRE、LLEN，必要时 LTRIM
+     */
+    private long runLegacy(String conversationId, List<Message> step, int rounds) {
+        String key = "voiceKeeper:chat:" + conversationId;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (Message message : step) {
+                redisTemplate.opsForList().rightPush(key, message);
+            }
+            redisTemplate.expire(key, Duration.ofDays(30));
+            Long size = redisTemplate.opsForList().size(key);
+            if (size != null && size > 1000) {
+                redisTemplate.opsForList().trim(key, -1000, -1);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runScript(RedisChatMemory chatMemory, String conversationId, List<Message> step, int rounds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            chatMemory.add(conversationId, step);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private List<Message> buildStep() {
+        List<Message> step = new ArrayList<>(MESSAGES_PER_STEP);
+        step.add(new AssistantMessage("我先查询一下你的声音模型。"));
+        step.add(new UserMessage("工具执行完成，请继续。"));
+        step.add(new AssistantMessage("已为您找到妈妈的声音模型。"));
+        return step;
+    }
+}
@@ -0,0 +1,71 @@
+package com.zyb.backend.manager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * BoundedVirtualThreadExecutor 测试
+ */
+public class BoundedVirtualThreadExecutorTest {
+
+    @Test
+    void closeDropsQueuedTasksAndWaitsForRunningOnes() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test", 1, 10, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+
+        CompletableFuture<Void> running = executor.runAsync(() -> {
+            started.countDown();
+            sleepQuietly(300);
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> queued = executor.runAsync(() -> queuedRan.set(true));
+
+        executor.close();
+
+        // 运行中的任务在 close() 返回前已完成
+        Assertions.assertTrue(running.isDone());
+        Assertions.assertFalse(running.isCompletedExceptionally());
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        Assertions.assertFalse(queuedRan.get());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.runAsync(() -> { }));
+    }
+
+    @Test
+    void closeInterruptsTasksThatOutliveTheTimeout() throws Exception {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test", 1, 10, Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        executor.runAsync(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.close();
+
+        Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.zyb.backend.manager;
+
+import com.zyb.backend.model.enums.DashScopeApiEnum;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * DashScopeGateway 测试
+ */
+public class DashScopeGatewayTest {
+
+    private DashScopeGateway gateway;
+
+    @BeforeEach
+    void setUp() {
+        gateway = new DashScopeGateway();
+        ReflectionTestUtils.setField(gateway, "environment", new MockEnvironment()
+                .withProperty("voiceKeeper.dashscope.embedding.rate-per-second", "1000")
+                .withProperty("voiceKeeper.dashscope.embedding.burst", "1000"));
+        ReflectionTestUtils.setField(gateway, "maxAttempts", 3);
+        ReflectionTestUtils.setField(gateway, "backoffBaseMillis", 10L);
+        ReflectionTestUtils.setField(gateway, "backoffMaxMillis", 50L);
+        ReflectionTestUtils.setField(gateway, "acquireTimeoutMillis", 5000L);
+        gateway.init();
+    }
+
+    @Test
+    void coalescesIdenticalInFlightCalls() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<String>> futures = IntStream.range(0, 5)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() ->
+                            gateway.execute(DashScopeApiEnum.EMBEDDING, "早安", () -> {
+                                calls.incrementAndGet();
+                                release.await(5, TimeUnit.SECONDS);
+                                return "vector";
+                            }), executor))
+                    .toList();
+            // 等待所有请求进入网关后再放行首个调用
+            Thread.sleep(200);
+            release.countDown();
+
+            for (CompletableFuture<String> future : futures) {
+                Assertions.assertEquals("vector", future.get(5, TimeUnit.SECONDS));
+            }
+        }
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    void retriesThrottledCallsWithBackoff() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = gateway.execute(DashScopeApiEnum.EMBEDDING, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException("429 Throttling.RateQuota");
+            }
+            return "ok";
+        });
+
+        Assertions.assertEquals("ok", result);
+        Assertions.assertEquals(3, calls.get());
+        Map<String, Object> stats = gateway.getStats().get(DashScopeApiEnum.EMBEDDING.getValue());
+        Assertions.assertEquals(2L, stats.get("retries"));
+        Assertions.assertEquals(2L, stats.get("throttled"));
+    }
+
+    @Test
+    void backoffReleasesConcurrencyPermit() throws Exception {
+        DashScopeGateway single = new DashScopeGateway();
+        ReflectionTestUtils.setField(single, "environment", new MockEnvironment()
+                .withProperty("voiceKeeper.dashscope.embedding.rate-per-second", "1000")
+                .withProperty("voiceKeeper.dashscope.embedding.burst", "1000")
+                .withProperty("voiceKeeper.dashscope.embedding.max-concurrency", "1"));
+        ReflectionTestUtils.setField(single, "maxAttempts", 2);
+        ReflectionTestUtils.setField(single, "backoffBaseMillis", 1000L);
+        ReflectionTestUtils.setField(single, "backoffMaxMillis", 1000L);
+        ReflectionTestUtils.setField(single, "acquireTimeoutMillis", 300L);
+        single.init();
+        CountDownLatch throttled = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> retrying = CompletableFuture.supplyAsync(() ->
+                    single.execute(DashScopeApiEnum.EMBEDDING, () -> {
+                        if (calls.incrementAndGet() == 1) {
+                            throttled.countDown();
+                            throw new IllegalStateException("429 Throttling.RateQuota");
+                        }
+                        return "retried";
+                    }), executor);
+            Assertions.assertTrue(throttled.await(5, TimeUnit.SECONDS));
+
+            // 重试方退避期间唯一的许可已归还，其它调用无需等待
+            Assertions.assertEquals("ok", single.execute(DashScopeApiEnum.EMBEDDING, () -> "ok"));
+            Assertions.assertEquals("retried", retrying.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void doesNotRetryNonTransientFailures() {
+        AtomicInteger calls = new AtomicInteger();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () ->
+                gateway.execute(DashScopeApiEnum.EMBEDDING, () -> {
+                    calls.incrementAndGet();
+                    throw new IllegalArgumentException("invalid parameter");
+                }));
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    void nonIdempotentCallsRetryOnlyWhenThrottled() {
+        AtomicInteger timeouts = new AtomicInteger();
+        Assertions.assertThrows(IllegalStateException.class, () ->
+                gateway.executeNonIdempotent(DashScopeApiEnum.EMBEDDING, () -> {
+                    timeouts.incrementAndGet();
+                    throw new IllegalStateException("Read timed out");
+                }));
+        Assertions.assertEquals(1, timeouts.get());
+
+        AtomicInteger throttled = new AtomicInteger();
+        String result = gateway.executeNonIdempotent(DashScopeApiEnum.EMBEDDING, () -> {
+            if (throttled.incrementAndGet() < 2) {
+                throw new IllegalStateException("429 Throttling.RateQuota");
+            }
+            return "voice-id";
+        });
+        Assertions.assertEquals("voice-id", result);
+        Assertions.assertEquals(2, throttled.get());
+    }
+
+    @Test
+    void coalescedWaitersSeeErrors() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Object>> futures = IntStream.range(0, 3)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() ->
+                            gateway.execute(DashScopeApiEnum.EMBEDDING, "晚安", () -> {
+                                release.await(5, TimeUnit.SECONDS);
+                                throw new AssertionError("boom");
+                            }), executor))
+                    .toList();
+            Thread.sleep(200);
+            release.countDown();
+
+            for (CompletableFuture<Object> future : futures) {
+                ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                        () -> future.get(5, TimeUnit.SECONDS));
+                Assertions.assertInstanceOf(AssertionError.class, e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.zyb.backend.manager;
+
+import com.zyb.backend.model.entity.VoiceModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * VoiceModelCacheManager 测试（仅本地缓存）
+ */
+public class VoiceModelCacheManagerTest {
+
+    private VoiceModelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new VoiceModelCacheManager();
+        ReflectionTestUtils.setField(cacheManager, "maxSize", 100L);
+        ReflectionTestUtils.setField(cacheManager, "expireSeconds", 60L);
+        ReflectionTestUtils.setField(cacheManager, "redisEnabled", false);
+        ReflectionTestUtils.setField(cacheManager, "tombstoneSeconds", 10L);
+        cacheManager.init();
+    }
+
+    @Test
+    void loadsOnceUntilEvicted() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            VoiceModel model = cacheManager.getById(1L, id -> {
+                loads.incrementAndGet();
+                return model(id, "妈妈的声音", 2);
+            });
+            Assertions.assertEquals("妈妈的声音", model.getModelName());
+        }
+        Assertions.assertEquals(1, loads.get());
+
+        cacheManager.evict(1L);
+        cacheManager.getById(1L, id -> {
+            loads.incrementAndGet();
+            return model(id, "妈妈的声音", 2);
+        });
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void returnedCopiesDoNotLeakIntoCache() {
+        VoiceModel first = cacheManager.getById(1L, id -> model(id, "妈妈的声音", 2));
+        first.setModelName("被修改");
+
+        VoiceModel second = cacheManager.getById(1L, id -> null);
+        Assertions.assertEquals("妈妈的声音", second.getModelName());
+    }
+
+    @Test
+    void staleNameIndexFallsBackToLoader() {
+        cacheManager.getByUserIdAndName(10L, "妈妈的声音", () -> model(1L, "妈妈的声音", 2));
+        // 改名后只失效ID，旧名称索引仍指向该模型
+        cacheManager.evict(1L);
+        cacheManager.getById(1L, id -> model(id, "外婆的声音", 2));
+
+        VoiceModel result = cacheManager.getByUserIdAndName(10L, "妈妈的声音", () -> null);
+        Assertions.assertNull(result);
+    }
+
+    @Test
+    void doesNotCacheModelsInTraining() {
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            cacheManager.getById(1L, id -> {
+                loads.incrementAndGet();
+                return model(id, "妈妈的声音", 1);
+            });
+        }
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void batchLookupOnlyLoadsMissingIds() {
+        cacheManager.getById(1L, id -> model(id, "妈妈的声音", 2));
+
+        Map<Long, VoiceModel> result = cacheManager.getByIds(List.of(1L, 2L), ids -> {
+            Assertions.assertEquals(List.of(2L), List.copyOf(ids));
+            return List.of(model(2L, "爸爸的声音", 2));
+        });
+
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("爸爸的声音", result.get(2L).getModelName());
+    }
+
+    @Test
+    void loadRacingWithEvictDoesNotCacheStaleRow() {
+        // 读请求查到旧数据后、回填之前，写请求更新并失效
+        VoiceModel stale = cacheManager.getById(1L, id -> {
+            VoiceModel old = model(id, "妈妈的声音", 2);
+            cacheManager.evict(id);
+            return old;
+        });
+        Assertions.assertEquals("妈妈的声音", stale.getModelName());
+
+        VoiceModel fresh = cacheManager.getById(1L, id -> model(id, "外婆的声音", 2));
+        Assertions.assertEquals("外婆的声音", fresh.getModelName());
+    }
+
+    private static VoiceModel model(Long id, String name, int trainingStatus) {
+        VoiceModel model = new VoiceModel();
+        model.setId(id);
+        model.setUserId(10L);
+        model.setModelName(name);
+        model.setTrainingStatus(trainingStatus);
+        return model;
+    }
+}
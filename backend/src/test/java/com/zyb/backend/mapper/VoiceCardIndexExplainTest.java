@@ -0,0 +1,256 @@
+package com.zyb.backend.mapper;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import com.zyb.backend.model.entity.VoiceCard;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * voice_card 索引执行计划回归测试
+ * 在嵌入式 MariaDB 上执行 sql/voicekeeper.sql 建表，灌入测试数据后 EXPLAIN 各列表查询，
+ * 校验命中预期的联合索引且没有 filesort。嵌入式数据库无法启动时跳过
+ * EXPLAIN 的 SQL 由 MyBatis 解析 VoiceCardMapper.xml、MyBatis-Plus 按条件构造器生成，带绑定参数执行，与线上语句一致
+ */
+public class VoiceCardIndexExplainTest {
+
+    private static final int USERS = 50;
+
+    private static final int CARDS_PER_USER = 200;
+
+    private static final String[] SCENES = {"morning", "night", "encourage", "miss", "custom"};
+
+    private static final String MAPPER_RESOURCE = "mapper/VoiceCardMapper.xml";
+
+    private static final String NAMESPACE = VoiceCardMapper.class.getName();
+
+    private static final long NOW = System.currentTimeMillis();
+
+    private static DB db;
+
+    private static Connection connection;
+
+    private static MybatisConfiguration configuration;
+
+    /**
+     * 嵌入式数据库无法启动的原因，为 null 表示已启动
+     */
+    private static String unavailableReason;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(freePort());
+        // 容器中常以 root 运行，mariadbd 默认拒绝以 root 启动
+        if ("root".equals(System.getProperty("user.name"))) {
+            config.addArg("--user=root");
+        }
+        try {
+            db = DB.newEmbeddedDB(config.build());
+            db.start();
+        } catch (Exception e) {
+            // 不在 @BeforeAll 中中止：那样测试报告里是 0 个用例，这里记下原因，让每个用例显示为跳过
+            unavailableReason = "嵌入式 MariaDB 无法启动，跳过执行计划测试: " + e.getMessage();
+            return;
+        }
+        connection = DriverManager.getConnection(
+                "jdbc:mysql://localhost:" + config.getPort() + "/?useSSL=false&allowPublicKeyRetrieval=true", "root", "");
+
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : loadSchema()) {
+                statement.execute(sql);
+            }
+        }
+        seedCards();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE voice_card");
+        }
+        loadMapper();
+    }
+
+    @BeforeEach
+    void requireDatabase() {
+        Assumptions.assumeTrue(unavailableReason == null, unavailableReason);
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    @Test
+    void listByUserIdUsesUserIndex() throws SQLException {
+        // VoiceCardServiceImpl.listByUserId
+        LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(VoiceCard::getUserId, 7L)
+                .eq(VoiceCard::getIsDelete, 0)
+                .orderByDesc(VoiceCard::getCreateTime);
+        assertPlan("selectList", Map.of(Constants.WRAPPER, wrapper), "idx_user_delete_create");
+    }
+
+    @Test
+    void listByUserIdAndSceneUsesSceneIndex() throws SQLException {
+        // VoiceCardServiceImpl.listByUserIdAndScene
+        LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(VoiceCard::getUserId, 7L)
+                .eq(VoiceCard::getSceneTag, "night")
+                .eq(VoiceCard::getIsDelete, 0)
+                .orderByDesc(VoiceCard::getCreateTime);
+        assertPlan("selectList", Map.of(Constants.WRAPPER, wrapper), "idx_user_scene_delete_create");
+    }
+
+    @Test
+    void summaryByVoiceModelUsesModelIndex() throws SQLException {
+        // VoiceCardMapper.listSummaryByUserId，参数与 SearchCardTool 调用一致
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", 7L);
+        params.put("sceneTag", null);
+        params.put("voiceModelId", 702L);
+        params.put("previewLength", 51);
+        params.put("limit", 21);
+        // 声音模型只属于一个用户，两个以 voiceModelId 为等值前缀的索引代价相同，优化器任选其一都不需要排序
+        assertPlan("listSummaryByUserId", params, "idx_user_model_delete_create", "idx_model_delete_create");
+    }
+
+    @Test
+    void listByVoiceModelIdUsesModelIndex() throws SQLException {
+        // VoiceCardServiceImpl.listByVoiceModelId
+        LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(VoiceCard::getVoiceModelId, 702L)
+                .eq(VoiceCard::getIsDelete, 0)
+                .orderByDesc(VoiceCard::getCreateTime);
+        assertPlan("selectList", Map.of(Constants.WRAPPER, wrapper), "idx_model_delete_create");
+    }
+
+    @Test
+    void keysetPageUsesUserIndexWithoutSort() throws SQLException {
+        // VoiceCardServiceImpl.listVoiceCardVOByCursor，带游标的第二页
+        Date cursorTime = new Date(NOW - 100 * 60_000L);
+        long cursorId = 1000L;
+        LambdaQueryWrapper<VoiceCard> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(VoiceCard::getUserId, 7L)
+                .eq(VoiceCard::getIsDelete, 0);
+        wrapper.and(w -> w.lt(VoiceCard::getCreateTime, cursorTime)
+                .or(o -> o.eq(VoiceCard::getCreateTime, cursorTime).lt(VoiceCard::getId, cursorId)));
+        wrapper.orderByDesc(VoiceCard::getCreateTime)
+                .orderByDesc(VoiceCard::getId)
+                .last("limit " + 21);
+        assertPlan("selectList", Map.of(Constants.WRAPPER, wrapper), "idx_user_delete_create");
+    }
+
+    /**
+     * 取出映射语句，按参数生成 SQL 并绑定参数后 EXPLAIN
+     */
+    private static void assertPlan(String statementId, Object parameter, String... expectedIndexes) throws SQLException {
+        MappedStatement mappedStatement = configuration.getMappedStatement(NAMESPACE + "." + statementId);
+        BoundSql boundSql = mappedStatement.getBoundSql(parameter);
+        String sql = boundSql.getSql();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            new DefaultParameterHandler(mappedStatement, parameter, boundSql).setParameters(statement);
+            try (ResultSet plan = statement.executeQuery()) {
+                Assertions.assertTrue(plan.next());
+                String key = plan.getString("key");
+                String extra = plan.getString("Extra");
+                Assertions.assertTrue(Arrays.asList(expectedIndexes).contains(key), "执行计划未命中预期索引: " + key + ", " + sql);
+                Assertions.assertFalse(extra != null && extra.contains("filesort"), "执行计划出现 filesort: " + extra);
+            }
+        }
+    }
+
+    /**
+     * 按 application.yml 中的 mybatis-plus 配置解析 VoiceCardMapper.xml，
+     * 解析时绑定 VoiceCardMapper 接口并注入 MyBatis-Plus 的通用查询语句
+     */
+    private static void loadMapper() throws IOException {
+        configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(false);
+        GlobalConfig.DbConfig dbConfig = GlobalConfigUtils.getGlobalConfig(configuration).getDbConfig();
+        dbConfig.setLogicDeleteField("isDelete");
+        dbConfig.setLogicDeleteValue("1");
+        dbConfig.setLogicNotDeleteValue("0");
+        dbConfig.setTableUnderline(false);
+        try (InputStream inputStream = Resources.getResourceAsStream(MAPPER_RESOURCE)) {
+            new XMLMapperBuilder(inputStream, configuration, MAPPER_RESOURCE, configuration.getSqlFragments()).parse();
+        }
+    }
+
+    /**
+     * 读取建表脚本，去掉注释后按分号拆分
+     */
+    private static String[] loadSchema() throws IOException {
+        String script = Files.readAllLines(Path.of("sql", "voicekeeper.sql"), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.trim().startsWith("--"))
+                .collect(Collectors.joining("\n"));
+        return Arrays.stream(script.split(";"))
+                .map(String::trim)
+                .filter(sql -> !sql.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * 每个用户若干张卡片，场景、声音模型轮换，少量已删除
+     */
+    private static void seedCards() throws SQLException {
+        String sql = "INSERT INTO voice_card (userId, voiceModelId, cardTitle, textContent, sceneTag, isDelete, createTime) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int user = 1; user <= USERS; user++) {
+                for (int i = 0; i < CARDS_PER_USER; i++) {
+                    statement.setLong(1, user);
+                    statement.setLong(2, user * 100L + i % 4);
+                    statement.setString(3, "卡片" + i);
+                    statement.setString(4, "宝贝，这是第" + i + "张卡片的内容，".repeat(10));
+                    statement.setString(5, SCENES[i % SCENES.length]);
+                    statement.setInt(6, i % 20 == 0 ? 1 : 0);
+                    statement.setTimestamp(7, new Timestamp(NOW - (long) i * 60_000 - user * 1_000L));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
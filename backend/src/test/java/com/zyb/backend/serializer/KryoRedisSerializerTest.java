@@ -0,0 +1,54 @@
+package com.zyb.backend.serializer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * KryoRedisSerializer 格式兼容性测试
+ */
+public class KryoRedisSerializerTest {
+
+    private final KryoRedisSerializer legacy = new KryoRedisSerializer(KryoRedisSerializer.Mode.LEGACY);
+
+    private final KryoRedisSerializer registered = new KryoRedisSerializer(KryoRedisSerializer.Mode.REGISTERED);
+
+    private final List<Message> messages = List.of(
+            new SystemMessage("【历史对话摘要】: 用户想制作生日卡片"),
+            new UserMessage("用妈妈的声音说生日快乐"),
+            new AssistantMessage("", Map.of(), List.of(
+                    new AssistantMessage.ToolCall("call_1", "function", "voiceSynthesis", "{\"text\":\"生日快乐\"}"))),
+            new ToolResponseMessage(List.of(
+                    new ToolResponseMessage.ToolResponse("call_1", "voiceSynthesis", "合成成功"))));
+
+    @Test
+    void registeredRoundTrip() {
+        for (Message message : messages) {
+            byte[] bytes = registered.serialize(message);
+            Assertions.assertEquals(KryoRedisSerializer.MAGIC, bytes[0]);
+            Assertions.assertEquals(message, registered.deserialize(bytes));
+        }
+    }
+
+    @Test
+    void readsBothFormats() {
+        for (Message message : messages) {
+            Assertions.assertEquals(message, registered.deserialize(legacy.serialize(message)));
+            Assertions.assertEquals(message, legacy.deserialize(registered.serialize(message)));
+        }
+    }
+
+    @Test
+    void registeredIsSmaller() {
+        for (Message message : messages) {
+            Assertions.assertTrue(registered.serialize(message).length < legacy.serialize(message).length);
+        }
+    }
+}
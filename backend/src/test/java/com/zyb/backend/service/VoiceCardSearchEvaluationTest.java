@@ -0,0 +1,89 @@
+package com.zyb.backend.service;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.zyb.backend.model.entity.VoiceCard;
+import com.zyb.backend.model.enums.CardSearchModeEnum;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 卡片检索离线评估
+ * 对比向量检索与混合检索的 recall@k 和延迟，需要可用的 ES / DashScope 和带标注的评估集：
+ * mvn test -Dtest=VoiceCardSearchEvaluationTest -Dsearch.eval.file=/path/to/eval.jsonl
+ * 评估集每行一个 JSON：{"userId": 1, "query": "早安问候", "relevantCardIds": [12, 34]}
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "search.eval.file", matches = ".+")
+public class VoiceCardSearchEvaluationTest {
+
+    private static final int TOP_K = 5;
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    @Resource
+    private VoiceCardVectorService voiceCardVectorService;
+
+    private record EvalCase(Long userId, String query, Set<Long> relevantCardIds) {
+    }
+
+    @Test
+    void compareSearchModes() throws IOException {
+        List<EvalCase> cases = loadCases(Path.of(System.getProperty("search.eval.file")));
+        Assertions.assertFalse(cases.isEmpty(), "评估集为空");
+
+        for (CardSearchModeEnum mode : CardSearchModeEnum.values()) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                voiceCardVectorService.semanticSearch(cases.get(0).userId(), cases.get(0).query(), null, TOP_K, mode);
+            }
+
+            double recallSum = 0;
+            List<Double> latencies = new ArrayList<>();
+            for (EvalCase evalCase : cases) {
+                long start = System.nanoTime();
+                List<VoiceCard> cards = voiceCardVectorService.semanticSearch(
+                        evalCase.userId(), evalCase.query(), null, TOP_K, mode);
+                latencies.add((System.nanoTime() - start) / 1_000_000.0);
+
+                long hits = cards.stream().map(VoiceCard::getId).filter(evalCase.relevantCardIds()::contains).count();
+                recallSum += hits / (double) evalCase.relevantCardIds().size();
+            }
+
+            Collections.sort(latencies);
+            System.out.printf("[%s] 查询数=%d, recall@%d=%.3f, 平均延迟=%.1fms, P95延迟=%.1fms%n",
+                    mode.getValue(),
+                    cases.size(),
+                    TOP_K,
+                    recallSum / cases.size(),
+                    latencies.stream().mapToDouble(Double::doubleValue).average().orElse(0),
+                    latencies.get((int) Math.min(latencies.size() - 1, Math.ceil(latencies.size() * 0.95) - 1)));
+        }
+    }
+
+    private static List<EvalCase> loadCases(Path file) throws IOException {
+        List<EvalCase> cases = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JSONObject json = JSONUtil.parseObj(line);
+            Set<Long> relevant = new HashSet<>(json.getJSONArray("relevantCardIds").toList(Long.class));
+            if (!relevant.isEmpty()) {
+                cases.add(new EvalCase(json.getLong("userId"), json.getStr("query"), relevant));
+            }
+        }
+        return cases;
+    }
+}
@@ -0,0 +1,95 @@
+package com.zyb.backend.tools;
+
+import com.zyb.backend.annotation.SideEffect;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.annotation.Tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ParallelToolExecutor 测试
+ */
+public class ParallelToolExecutorTest {
+
+    public static class SampleTools {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Tool(description = "慢查询")
+        public String slowSearch() throws InterruptedException {
+            events.add("slowSearch:start");
+            Thread.sleep(300);
+            events.add("slowSearch:end");
+            return "slow";
+        }
+
+        @Tool(description = "快查询")
+        public String fastSearch() {
+            events.add("fastSearch");
+            return "fast";
+        }
+
+        @Tool(description = "写入")
+        @SideEffect
+        public String write() {
+            events.add("write");
+            return "written";
+        }
+    }
+
+    @Test
+    void runsIndependentCallsInParallelAndKeepsOrder() {
+        SampleTools tools = new SampleTools();
+        ParallelToolExecutor executor = new ParallelToolExecutor(ToolCallbacks.from(tools), tools);
+
+        ToolExecutionResult result = execute(executor, "slowSearch", "slowSearch", "fastSearch");
+
+        // 结果顺序与调用顺序一致
+        Assertions.assertEquals(List.of("slow", "slow", "fast"), responseData(result));
+        // 两个慢查询并行执行：第一个结束前第二个已经开始
+        Assertions.assertTrue(tools.events.indexOf("slowSearch:end") > tools.events.lastIndexOf("slowSearch:start"));
+    }
+
+    @Test
+    void sideEffectCallsActAsBarrier() {
+        SampleTools tools = new SampleTools();
+        ParallelToolExecutor executor = new ParallelToolExecutor(ToolCallbacks.from(tools), tools);
+
+        ToolExecutionResult result = execute(executor, "slowSearch", "write", "fastSearch");
+
+        Assertions.assertEquals(List.of("slow", "written", "fast"), responseData(result));
+        Assertions.assertEquals(List.of("slowSearch:start", "slowSearch:end", "write", "fastSearch"), tools.events);
+    }
+
+    private static ToolExecutionResult execute(ParallelToolExecutor executor, String... toolNames) {
+        List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>();
+        for (int i = 0; i < toolNames.length; i++) {
+            toolCalls.add(new AssistantMessage.ToolCall("call_" + i, "function", toolNames[i], "{}"));
+        }
+        AssistantMessage assistantMessage = new AssistantMessage("", Map.of(), toolCalls);
+        ChatResponse chatResponse = new ChatResponse(List.of(new Generation(assistantMessage)));
+        return executor.executeToolCalls(new Prompt(new UserMessage("测试")), chatResponse);
+    }
+
+    private static List<String> responseData(ToolExecutionResult result) {
+        List<Message> history = result.conversationHistory();
+        ToolResponseMessage toolResponseMessage = (ToolResponseMessage) history.get(history.size() - 1);
+        return toolResponseMessage.getResponses().stream()
+                .map(ToolResponseMessage.ToolResponse::responseData)
+                .map(data -> data.replace("\"", ""))
+                .toList();
+    }
+}
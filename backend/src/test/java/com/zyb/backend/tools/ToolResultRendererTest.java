@@ -0,0 +1,68 @@
+package com.zyb.backend.tools;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ToolResultRenderer 测试
+ */
+public class ToolResultRendererTest {
+
+    @Test
+    void summarizesItemsBeyondLimit() {
+        List<Integer> items = IntStream.rangeClosed(1, 30).boxed().toList();
+        ToolResultRenderer renderer = ToolResultRenderer.create(items.size(), 5, 10_000);
+
+        int rendered = renderer.items(items, "张卡片", (item, index) -> renderer.item(index, "卡片" + item));
+
+        String output = renderer.render();
+        Assertions.assertEquals(5, rendered);
+        Assertions.assertTrue(output.contains("5. 【卡片5】"));
+        Assertions.assertFalse(output.contains("【卡片6】"));
+        Assertions.assertTrue(output.endsWith("……另有 25 张卡片未列出\n"));
+    }
+
+    @Test
+    void remainingCountUsesQueryTotal() {
+        List<Integer> items = IntStream.rangeClosed(1, 3).boxed().toList();
+        ToolResultRenderer renderer = ToolResultRenderer.create(items.size(), 2, 10_000);
+
+        int rendered = renderer.items(items, 57, "张卡片", (item, index) -> renderer.item(index, "卡片" + item));
+
+        Assertions.assertEquals(2, rendered);
+        Assertions.assertTrue(renderer.render().endsWith("……另有 55 张卡片未列出\n"));
+    }
+
+    @Test
+    void stopsAtCharacterBudget() {
+        List<String> items = List.of("a".repeat(100), "b".repeat(100), "c".repeat(100));
+        ToolResultRenderer renderer = ToolResultRenderer.create(items.size(), 10, 150);
+
+        int rendered = renderer.items(items, "项", (item, index) -> renderer.field("内容", item));
+
+        Assertions.assertEquals(2, rendered);
+        Assertions.assertTrue(renderer.render().endsWith("……另有 1 项未列出\n"));
+    }
+
+    @Test
+    void rendersFieldsWithoutIntermediateFormatting() {
+        Date createTime = new Date(0);
+        String output = ToolResultRenderer.create(1, 10, 1000)
+                .item(1, "晚安问候")
+                .field("卡片ID", 42, null)
+                .field("播放次数", 3, "次")
+                .preview("内容", "宝贝晚安".repeat(20), 10)
+                .field("创建时间", createTime)
+                .render();
+
+        Assertions.assertEquals("1. 【晚安问候】\n"
+                + "   - 卡片ID: 42\n"
+                + "   - 播放次数: 3次\n"
+                + "   - 内容: " + "宝贝晚安".repeat(20).substring(0, 10) + "...\n"
+                + "   - 创建时间: " + ToolResultRenderer.DATE_TIME_FORMATTER.format(createTime.toInstant()) + "\n", output);
+    }
+}
@@ -0,0 +1,158 @@
+package com.zyb.backend.vectorstore;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * 本地 HNSW 向量存储测试
+ */
+public class LocalHnswVectorStoreTest {
+
+    private static final int DIMENSIONS = 32;
+
+    /**
+     * 按文本哈希生成固定向量，避免依赖真实模型
+     */
+    static class FakeEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                embeddings.add(new Embedding(vectorOf(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vectorOf(document.getText());
+        }
+
+        static float[] vectorOf(String text) {
+            return randomVector(new Random(text.hashCode()));
+        }
+    }
+
+    @Test
+    void hnswRecallCloseToBruteForce() {
+        Random random = new Random(42);
+        HnswIndex index = new HnswIndex(16, 100);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            float[] vector = HnswIndex.normalize(randomVector(random));
+            vectors.add(vector);
+            index.add(String.valueOf(i), vector);
+        }
+
+        int topK = 10;
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = HnswIndex.normalize(randomVector(random));
+            Set<String> expected = new HashSet<>(IntStream.range(0, vectors.size()).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -HnswIndex.dot(query, vectors.get(i))))
+                    .limit(topK)
+                    .map(String::valueOf)
+                    .toList());
+            for (HnswIndex.SearchResult result : index.search(query, topK, 64, null)) {
+                if (expected.contains(result.id())) {
+                    hits++;
+                }
+            }
+        }
+        double recall = hits / (double) (queries * topK);
+        Assertions.assertTrue(recall > 0.9, "召回率过低: " + recall);
+    }
+
+    @Test
+    void filtersByUserAndSurvivesRestart(@TempDir Path dataDir) throws Exception {
+        FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel();
+        // 暴力扫描阈值设为 1，让分区走 HNSW
+        LocalHnswVectorStore store = new LocalHnswVectorStore(embeddingModel, new TokenCountBatchingStrategy(),
+                dataDir, 8, 50, 32, 1, 1024 * 1024);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            documents.add(new Document("card-" + i, "卡片 " + i,
+                    Map.of("userId", (long) (i % 2), "sceneTag", i % 4 < 2 ? "birthday" : "comfort")));
+        }
+        store.add(documents);
+        store.delete(List.of("card-0"));
+
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        SearchRequest request = SearchRequest.builder()
+                .query("卡片 4")
+                .topK(5)
+                .filterExpression(b.and(b.eq("userId", 0), b.eq("sceneTag", "birthday")).build())
+                .build();
+
+        List<Document> results = store.similaritySearch(request);
+        Assertions.assertEquals("card-4", results.get(0).getId());
+        results.forEach(doc -> {
+            Assertions.assertEquals(0L, doc.getMetadata().get("userId"));
+            Assertions.assertEquals("birthday", doc.getMetadata().get("sceneTag"));
+            Assertions.assertNotEquals("card-0", doc.getId());
+        });
+
+        // 仅依赖预写日志恢复
+        LocalHnswVectorStore reopened = new LocalHnswVectorStore(embeddingModel, new TokenCountBatchingStrategy(),
+                dataDir, 8, 50, 32, 1, 1024 * 1024);
+        Assertions.assertEquals(19, reopened.size());
+        Assertions.assertEquals(results.stream().map(Document::getId).toList(),
+                reopened.similaritySearch(request).stream().map(Document::getId).toList());
+
+        // 快照 + 清空日志后恢复
+        reopened.close();
+        store = new LocalHnswVectorStore(embeddingModel, new TokenCountBatchingStrategy(),
+                dataDir, 8, 50, 32, 1, 1024 * 1024);
+        Assertions.assertEquals(19, store.size());
+        store.close();
+    }
+
+    @Test
+    void findsIdsInCardIdRange(@TempDir Path dataDir) throws Exception {
+        LocalHnswVectorStore store = new LocalHnswVectorStore(new FakeEmbeddingModel(), new TokenCountBatchingStrategy(),
+                dataDir, 8, 50, 32, 100, 1024 * 1024);
+        List<Document> documents = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            documents.add(new Document(String.valueOf(i), "卡片 " + i,
+                    Map.of("cardId", i, "userId", i % 2, "createTime", i * 1000)));
+        }
+        store.add(documents);
+        store.delete(List.of("4"));
+
+        Assertions.assertEquals(Set.of("3", "5", "6"), new HashSet<>(store.findIdsInRange(null, 2, 6, null)));
+        Assertions.assertEquals(Set.of("6"), new HashSet<>(store.findIdsInRange(0L, 2, 6, null)));
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        Assertions.assertEquals(Set.of("7"), new HashSet<>(
+                store.findIdsInRange(1L, 6, Long.MAX_VALUE, b.lt("createTime", 9_000L).build())));
+        store.close();
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
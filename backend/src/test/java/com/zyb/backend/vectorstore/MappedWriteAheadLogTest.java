@@ -0,0 +1,53 @@
+package com.zyb.backend.vectorstore;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MappedWriteAheadLog 测试
+ */
+public class MappedWriteAheadLogTest {
+
+    @Test
+    void failedAppendLeavesNoOrphanRecords(@TempDir Path dataDir) throws Exception {
+        Path file = dataDir.resolve("wal.log");
+        StoredDocument good = new StoredDocument("1", "晚安", Map.of("userId", 1L), new float[]{1f, 0f});
+        // writeUTF 超过 64KB 时抛出 UTFDataFormatException
+        StoredDocument bad = new StoredDocument("x".repeat(70_000), "早安", Map.of(), new float[]{0f, 1f});
+
+        try (MappedWriteAheadLog wal = new MappedWriteAheadLog(file)) {
+            long before = wal.size();
+            Assertions.assertThrows(IOException.class, () -> wal.appendAdd(List.of(good, bad)));
+            Assertions.assertEquals(before, wal.size());
+            Assertions.assertThrows(IOException.class, () -> wal.appendDelete(List.of("2", "x".repeat(70_000))));
+            Assertions.assertEquals(before, wal.size());
+
+            // 后续成功的提交不能把失败批次的残留记录带上
+            wal.appendDelete(List.of("3"));
+            wal.commit();
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (MappedWriteAheadLog wal = new MappedWriteAheadLog(file)) {
+            wal.replay(new MappedWriteAheadLog.Replayer() {
+                @Override
+                public void add(StoredDocument document) {
+                    replayed.add("add:" + document.id());
+                }
+
+                @Override
+                public void delete(String id) {
+                    replayed.add("delete:" + id);
+                }
+            });
+        }
+        Assertions.assertEquals(List.of("delete:3"), replayed);
+    }
+}
@@ -0,0 +1,38 @@
+package com.zyb.backend.vectorstore;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.util.Map;
+
+/**
+ * MetadataFilter 测试
+ */
+public class MetadataFilterTest {
+
+    private static final Map<String, Object> METADATA = Map.of("userId", 7L, "sceneTag", "night", "cardId", 42L);
+
+    @Test
+    void evaluatesComparisonsAndLogic() {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+        Assertions.assertTrue(MetadataFilter.matches(b.and(b.eq("userId", 7), b.in("sceneTag", "night", "miss")).build(), METADATA));
+        Assertions.assertTrue(MetadataFilter.matches(b.and(b.gt("cardId", 41), b.lte("cardId", 42)).build(), METADATA));
+        Assertions.assertFalse(MetadataFilter.matches(b.not(b.eq("sceneTag", "night")).build(), METADATA));
+        // 缺失字段不满足任何比较
+        Assertions.assertFalse(MetadataFilter.matches(b.lt("createTime", 1000).build(), METADATA));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        Filter.Expression valueOnLeft = new Filter.Expression(Filter.ExpressionType.EQ,
+                new Filter.Value("userId"), new Filter.Value(7));
+        Filter.Expression keyOnRight = new Filter.Expression(Filter.ExpressionType.GT,
+                new Filter.Key("cardId"), new Filter.Key("userId"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MetadataFilter.matches(valueOnLeft, METADATA));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MetadataFilter.matches(keyOnRight, METADATA));
+    }
+}
@@ -61,6 +61,15 @@ export interface PageResponse<T> {
   pages: number
 }
 
+/**
+ * 游标分页响应
+ */
+export interface CursorPageResponse<T> {
+  records: T[]
+  nextCursor?: string
+  hasMore: boolean
+}
+
 /**
  * 创建声音卡片
  */
@@ -107,7 +116,8 @@ export async function listMyVoiceCardsPage(
 }
 
 /**
- * 获取当前用户的所有声音卡片（不分页）
+ * 获取当前用户最近的声音卡片（不分页，最多 500 张）
+ * 需要完整卡片库时使用 listAllMyVoiceCards
  */
 export async function listMyVoiceCards(sceneTag?: string): Promise<ApiResponse<VoiceCardVO[]>> {
   const params = sceneTag ? `?sceneTag=${sceneTag}` : ''
@@ -115,6 +125,35 @@ export async function listMyVoiceCards(sceneTag?: string): Promise<ApiResponse<V
   return response.data
 }
 
+/**
+ * 按游标分页获取当前用户的声音卡片（按创建时间倒序）
+ */
+export async function listMyVoiceCardsByCursor(
+  cursor?: string,
+  size = 100,
+  sceneTag?: string
+): Promise<ApiResponse<CursorPageResponse<VoiceCardVO>>> {
+  const response = await request.get<ApiResponse<CursorPageResponse<VoiceCardVO>>>(
+    '/voicecard/my/list/cursor',
+    { params: { cursor, size, sceneTag } }
+  )
+  return response.data
+}
+
+/**
+ * 获取当前用户的全部声音卡片：按游标逐页拉取直到没有更多
+ */
+export async function listAllMyVoiceCards(sceneTag?: string): Promise<VoiceCardVO[]> {
+  const cards: VoiceCardVO[] = []
+  let cursor: string | undefined
+  do {
+    const res = await listMyVoiceCardsByCursor(cursor, 100, sceneTag)
+    cards.push(...(res.data?.records || []))
+    cursor = res.data?.hasMore ? res.data.nextCursor : undefined
+  } while (cursor)
+  return cards
+}
+
 /**
  * 增加播放次数
  */
@@ -5,6 +5,7 @@ import type { SSEMessage } from '@/types/ai'
  */
 export interface SSEConfig {
   onMessage: (message: string, event?: MessageEvent) => void
+  onDelta?: (text: string) => void
   onComplete?: () => void
   onError?: (error: Error) => void
 }
@@ -33,6 +34,18 @@ export function createSSE(url: string, config: SSEConfig): EventSource {
     config.onMessage(event.data, event as MessageEvent)
   })
 
+  // 监听模型增量输出（逐字推送）
+  eventSource.addEventListener('delta', (event) => {
+    try {
+      const { text } = JSON.parse((event as MessageEvent).data)
+      if (text) {
+        config.onDelta?.(text)
+      }
+    } catch (e) {
+      console.warn('解析增量消息失败:', e)
+    }
+  })
+
   eventSource.onerror = (error) => {
     console.error('SSE 连接错误:', error)
     console.log('EventSource readyState:', eventSource.readyState)
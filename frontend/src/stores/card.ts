@@ -24,8 +24,7 @@ export const useCardStore = defineStore('card', () => {
   async function fetchCardList(sceneTag?: SceneTag) {
     try {
       isLoading.value = true
-      const res = await cardApi.listMyVoiceCards(sceneTag)
-      cards.value = res.data || []
+      cards.value = await cardApi.listAllMyVoiceCards(sceneTag)
       return cards.value
     } catch (error) {
       console.error('获取卡片列表失败:', error)